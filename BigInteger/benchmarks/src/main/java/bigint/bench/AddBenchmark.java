@@ -0,0 +1,61 @@
+package bigint.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bigint.BigInteger;
+
+/**
+ * BigInteger.add against java.math.BigInteger.add, with operands of the same sign
+ * (a real addition) or of mixed signs (a subtraction).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddBenchmark {
+
+	@Param({"10", "100", "1000", "10000", "100000", "1000000"})
+	int digits;
+
+	@Param({"same", "mixed"})
+	String signs;
+
+	BigInteger first;
+	BigInteger second;
+	java.math.BigInteger jdkFirst;
+	java.math.BigInteger jdkSecond;
+
+	@Setup
+	public void setup() {
+		String a = Operands.digits(digits, 1);
+		String b = ("mixed".equals(signs) ? "-" : "") + Operands.digits(digits, 2);
+		first = BigInteger.parse(a);
+		second = BigInteger.parse(b);
+		jdkFirst = new java.math.BigInteger(a);
+		jdkSecond = new java.math.BigInteger(b);
+	}
+
+	@Benchmark
+	public BigInteger bigint() {
+		return BigInteger.add(first, second);
+	}
+
+	@Benchmark
+	public java.math.BigInteger jdk() {
+		return jdkFirst.add(jdkSecond);
+	}
+}
@@ -0,0 +1,63 @@
+package bigint.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bigint.BigInteger;
+
+/**
+ * BigInteger.multiply against java.math.BigInteger.multiply. Balanced products
+ * multiply two operands of the same length; unbalanced ones multiply by an
+ * operand a tenth as long.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiplyBenchmark {
+
+	@Param({"10", "100", "1000", "10000", "100000", "1000000"})
+	int digits;
+
+	@Param({"balanced", "unbalanced"})
+	String shape;
+
+	BigInteger first;
+	BigInteger second;
+	java.math.BigInteger jdkFirst;
+	java.math.BigInteger jdkSecond;
+
+	@Setup
+	public void setup() {
+		int secondDigits = "balanced".equals(shape) ? digits : Math.max(1, digits / 10);
+		String a = Operands.digits(digits, 1);
+		String b = Operands.digits(secondDigits, 2);
+		first = BigInteger.parse(a);
+		second = BigInteger.parse(b);
+		jdkFirst = new java.math.BigInteger(a);
+		jdkSecond = new java.math.BigInteger(b);
+	}
+
+	@Benchmark
+	public BigInteger bigint() {
+		return BigInteger.multiply(first, second);
+	}
+
+	@Benchmark
+	public java.math.BigInteger jdk() {
+		return jdkFirst.multiply(jdkSecond);
+	}
+}
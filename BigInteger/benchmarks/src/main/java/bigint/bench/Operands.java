@@ -0,0 +1,29 @@
+package bigint.bench;
+
+import java.util.Random;
+
+/**
+ * Reproducible operands for the benchmarks.
+ */
+final class Operands {
+
+	private Operands() {
+	}
+
+	/**
+	 * Returns a string of the given number of decimal digits, with no leading zero.
+	 *
+	 * @param digits Number of digits
+	 * @param seed Seed, so every run sees the same operands
+	 * @return Digit string
+	 */
+	static String digits(int digits, long seed) {
+		Random random = new Random(seed);
+		char[] chars = new char[digits];
+		chars[0] = (char) ('1' + random.nextInt(9));
+		for (int i = 1; i < digits; i++) {
+			chars[i] = (char) ('0' + random.nextInt(10));
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,49 @@
+package bigint.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bigint.BigInteger;
+
+/**
+ * BigInteger.parse against new java.math.BigInteger(String).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+	@Param({"10", "100", "1000", "10000", "100000", "1000000"})
+	int digits;
+
+	String text;
+
+	@Setup
+	public void setup() {
+		text = Operands.digits(digits, 1);
+	}
+
+	@Benchmark
+	public BigInteger bigint() {
+		return BigInteger.parse(text);
+	}
+
+	@Benchmark
+	public java.math.BigInteger jdk() {
+		return new java.math.BigInteger(text);
+	}
+}
@@ -0,0 +1,60 @@
+package bigint.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bigint.BigInteger;
+
+/**
+ * BigInteger.square against a general multiply of two different operands of the
+ * same length, and against java.math.BigInteger.multiply(x, x).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SquareBenchmark {
+
+	@Param({"10", "100", "1000", "10000", "100000", "1000000"})
+	int digits;
+
+	BigInteger value;
+	BigInteger other;
+	java.math.BigInteger jdkValue;
+
+	@Setup
+	public void setup() {
+		String text = Operands.digits(digits, 1);
+		value = BigInteger.parse(text);
+		other = BigInteger.parse(Operands.digits(digits, 2));
+		jdkValue = new java.math.BigInteger(text);
+	}
+
+	@Benchmark
+	public BigInteger square() {
+		return value.square();
+	}
+
+	@Benchmark
+	public BigInteger multiplyDistinct() {
+		return BigInteger.multiply(value, other);
+	}
+
+	@Benchmark
+	public java.math.BigInteger jdk() {
+		return jdkValue.multiply(jdkValue);
+	}
+}
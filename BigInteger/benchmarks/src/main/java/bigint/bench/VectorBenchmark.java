@@ -0,0 +1,83 @@
+package bigint.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bigint.BigInteger;
+
+/**
+ * The SIMD limb loops against the scalar ones, for an addition, a subtraction (add
+ * with mixed signs) and a multiplication by a one-limb factor. The *Vector
+ * benchmarks fork with the jdk.incubator.vector module, the *Scalar ones without
+ * it, so the same BigInteger calls take one path or the other.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VectorBenchmark {
+
+	@Param({"10000", "100000", "1000000", "10000000"})
+	int digits;
+
+	BigInteger first;
+	BigInteger second;
+	BigInteger negativeSecond;
+	BigInteger factor;
+
+	@Setup
+	public void setup() {
+		first = BigInteger.parse(Operands.digits(digits, 1));
+		second = BigInteger.parse(Operands.digits(digits, 2));
+		negativeSecond = BigInteger.parse("-" + Operands.digits(digits, 2));
+		factor = BigInteger.valueOf(123456789);
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+	public BigInteger addVector() {
+		return BigInteger.add(first, second);
+	}
+
+	@Benchmark
+	@Fork(1)
+	public BigInteger addScalar() {
+		return BigInteger.add(first, second);
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+	public BigInteger subtractVector() {
+		return BigInteger.add(first, negativeSecond);
+	}
+
+	@Benchmark
+	@Fork(1)
+	public BigInteger subtractScalar() {
+		return BigInteger.add(first, negativeSecond);
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+	public BigInteger multiplySmallVector() {
+		return BigInteger.multiply(first, factor);
+	}
+
+	@Benchmark
+	@Fork(1)
+	public BigInteger multiplySmallScalar() {
+		return BigInteger.multiply(first, factor);
+	}
+}
@@ -0,0 +1,354 @@
+package bigint;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Batch mode of BigTest: runs a file of operations, one per line, and writes one
+ * result line per operation, in the same order. Operation lines are
+ *
+ *    parse x        (or p x)
+ *    add x y        (or a x y)
+ *    multiply x y   (or m x y)
+ *    divide x y     (or d x y)
+ *    remainder x y  (or r x y)
+ *    square x       (or s x)
+ *    pow x n
+ *
+ * with the operands separated by spaces or tabs. Blank lines and lines starting
+ * with # are skipped and get no result line. A result line is the value, or
+ * "error: " and the reason if the line could not be run.
+ *
+ * Lines flow through a bounded pipeline of three stages:
+ *
+ *    - a parser thread reads lines and splits them into an operation and operands
+ *    - a fixed pool of workers parses the operands, computes the result and formats
+ *      it as a string
+ *    - the calling thread writes results in input order as they complete
+ *
+ * At most WINDOW_PER_WORKER lines per worker are in flight at once, so memory use
+ * does not depend on the length of the file however fast the input is read.
+ * Throughput and latency percentiles are reported at the end; latencies are
+ * counted in a fixed histogram of SUB_BUCKETS buckets per power of two, so the
+ * percentiles are upper bounds at most 1/SUB_BUCKETS above the exact ones.
+ */
+final class BatchRunner {
+
+	/**
+	 * Lines in flight per worker, between the parser and the writer
+	 */
+	private static final int WINDOW_PER_WORKER = 64;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Latency buckets per power of two of nanoseconds
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Enough buckets for any non-negative long
+	 */
+	private static final int LATENCY_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/**
+	 * Marks the end of the input in the queue to the writer
+	 */
+	private static final FutureTask<String> END = new FutureTask<String>(() -> null);
+
+	private final int threads;
+	private final PrintStream report;
+
+	/**
+	 * Number of operations by compute time, in the buckets of latencyBucket(long)
+	 */
+	private final long[] latencies = new long[LATENCY_BUCKETS];
+	private long maxLatency;
+	private int count;
+	private int errors;
+
+	/**
+	 * @param threads Number of compute workers, at least 1
+	 * @param report Stream for the summary, usually System.err
+	 * @throws IllegalArgumentException If threads is less than 1
+	 */
+	BatchRunner(int threads, PrintStream report) throws IllegalArgumentException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Need at least one worker thread, got " + threads);
+		}
+		this.threads = threads;
+		this.report = report;
+	}
+
+	/**
+	 * Runs BigTest's batch mode: BigTest --batch in out [threads], where in and out
+	 * are file names, or - for standard input and output.
+	 */
+	static void main(String[] args) throws IOException {
+		if (args.length < 3 || args.length > 4) {
+			System.err.println("Usage: BigTest --batch <operations file|-> <results file|-> [threads]");
+			System.exit(2);
+		}
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length == 4) {
+			try {
+				threads = Integer.parseInt(args[3]);
+			} catch (NumberFormatException e) {
+				threads = 0;
+			}
+		}
+		if (threads < 1) {
+			System.err.println("BigTest --batch: threads must be at least 1, got " + args[3]);
+			System.exit(2);
+		}
+		Reader in = args[1].equals("-") ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+				: Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+		Writer out = args[2].equals("-") ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+				: Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8);
+		try {
+			new BatchRunner(threads, System.err).run(in, out);
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
+	/**
+	 * Runs every operation of in, writing the results to out. Neither is closed.
+	 *
+	 * @throws IOException If reading or writing fails
+	 */
+	void run(Reader in, Writer out) throws IOException {
+		BufferedReader lines = new BufferedReader(in, BUFFER_SIZE);
+		BufferedWriter results = new BufferedWriter(out, BUFFER_SIZE);
+		BlockingQueue<FutureTask<String>> window = new ArrayBlockingQueue<FutureTask<String>>(
+				WINDOW_PER_WORKER * threads);
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		IOException[] readFailure = new IOException[1];
+
+		//a daemon, since it may be blocked reading the input when the writer fails,
+		//and it stops by itself once the workers are shut down
+		Thread parser = new Thread(() -> {
+			try {
+				for (String line = lines.readLine(); line != null && !workers.isShutdown();
+						line = lines.readLine()) {
+					String[] words = split(line);
+					if (words == null) {
+						continue;
+					}
+					FutureTask<String> task = new FutureTask<String>(new Operation(words));
+					window.put(task);
+					workers.execute(task);
+				}
+			} catch (IOException e) {
+				readFailure[0] = e;
+			} catch (InterruptedException | RejectedExecutionException e) {
+				//the writer has stopped, and nothing waits for the end marker
+				return;
+			}
+			try {
+				window.put(END);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "BigTest batch parser");
+		parser.setDaemon(true);
+
+		long start = System.nanoTime();
+		parser.start();
+		try {
+			for (FutureTask<String> task = window.take(); task != END; task = window.take()) {
+				results.write(result(task));
+				results.newLine();
+			}
+			parser.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			//on failure the parser may be blocked on a full window or a worker pool
+			//that no longer accepts tasks; this releases it
+			workers.shutdownNow();
+			parser.interrupt();
+		}
+		results.flush();
+		if (readFailure[0] != null) {
+			throw readFailure[0];
+		}
+		report(System.nanoTime() - start);
+	}
+
+	/**
+	 * Waits for an operation and returns its result line.
+	 */
+	private String result(FutureTask<String> task) throws InterruptedException {
+		String line;
+		try {
+			line = task.get();
+		} catch (ExecutionException e) {
+			errors++;
+			line = error(e.getCause());
+		}
+		return line;
+	}
+
+	private synchronized void report(long elapsed) {
+		double seconds = elapsed / 1e9;
+		report.printf("%d operations (%d errors) in %.3f s with %d workers: %.0f ops/s%n",
+				count, errors, seconds, threads, count / seconds);
+		report.printf("latency p50 %.1f us, p99 %.1f us, max %.1f us%n",
+				percentile(0.50) / 1e3, percentile(0.99) / 1e3, maxLatency / 1e3);
+	}
+
+	/**
+	 * Returns an upper bound of the p quantile of the latencies, from the bucket
+	 * that holds it.
+	 */
+	private long percentile(double p) {
+		long rank = Math.max(1, (long) Math.ceil(p * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < LATENCY_BUCKETS; bucket++) {
+			seen += latencies[bucket];
+			if (seen >= rank) {
+				return Math.min(maxLatency, latencyBound(bucket));
+			}
+		}
+		return 0;
+	}
+
+	private synchronized void recordLatency(long nanos) {
+		latencies[latencyBucket(nanos)]++;
+		maxLatency = Math.max(maxLatency, nanos);
+		count++;
+	}
+
+	/**
+	 * Returns the histogram bucket of a latency: below SUB_BUCKETS nanoseconds one
+	 * bucket per value, and above that SUB_BUCKETS buckets of equal width for each
+	 * power of two.
+	 */
+	static int latencyBucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) Math.max(0, nanos);
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = exponent - SUB_BUCKET_BITS;
+		//the top SUB_BUCKET_BITS + 1 bits of nanos, whose leading bit is always set
+		return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * Returns the largest latency that falls in a bucket.
+	 */
+	static long latencyBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long top = SUB_BUCKETS + bucket % SUB_BUCKETS;
+		return ((top + 1) << shift) - 1;
+	}
+
+	/**
+	 * One line of the operations file, run by a worker
+	 */
+	private final class Operation implements Callable<String> {
+
+		private final String[] words;
+
+		Operation(String[] words) {
+			this.words = words;
+		}
+
+		public String call() {
+			long start = System.nanoTime();
+			try {
+				return evaluate(words).toString();
+			} finally {
+				recordLatency(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Returns the result line for an operation that failed: "error: " and the
+	 * message of the exception, or the exception itself if it has no message.
+	 */
+	static String error(Throwable e) {
+		return "error: " + (e.getMessage() != null ? e.getMessage() : e.toString());
+	}
+
+	/**
+	 * Splits an operation line into its operation and operands.
+	 *
+	 * @return The words of the line, or null for a blank or comment line
+	 */
+	static String[] split(String line) {
+		String[] words = line.trim().split("[ \t]+");
+		return words[0].isEmpty() || words[0].startsWith("#") ? null : words;
+	}
+
+	/**
+	 * Runs one operation line, split by split(String).
+	 *
+	 * @return Result of the operation
+	 * @throws IllegalArgumentException If the operation is unknown, has the wrong
+	 *         number of operands or an operand is incorrectly formatted
+	 * @throws ArithmeticException If the operation divides by zero or raises to a
+	 *         negative power
+	 */
+	static BigInteger evaluate(String[] words) throws IllegalArgumentException, ArithmeticException {
+		switch (words[0].toLowerCase()) {
+		case "p":
+		case "parse":
+			return BigInteger.parse(operand(words, 1, 1));
+		case "a":
+		case "add":
+			return BigInteger.add(BigInteger.parse(operand(words, 1, 2)), BigInteger.parse(words[2]));
+		case "m":
+		case "multiply":
+			return BigInteger.multiply(BigInteger.parse(operand(words, 1, 2)), BigInteger.parse(words[2]));
+		case "d":
+		case "divide":
+			return BigInteger.divide(BigInteger.parse(operand(words, 1, 2)), BigInteger.parse(words[2]));
+		case "r":
+		case "remainder":
+			return BigInteger.remainder(BigInteger.parse(operand(words, 1, 2)), BigInteger.parse(words[2]));
+		case "s":
+		case "square":
+			return BigInteger.parse(operand(words, 1, 1)).square();
+		case "pow":
+			return BigInteger.parse(operand(words, 1, 2)).pow(Integer.parseInt(words[2]));
+		default:
+			throw new IllegalArgumentException("Unknown operation \"" + words[0] + "\"");
+		}
+	}
+
+	/**
+	 * Returns operand i after checking that the line has exactly n operands.
+	 */
+	private static String operand(String[] words, int i, int n) {
+		if (words.length != n + 1) {
+			throw new IllegalArgumentException(words[0] + " takes " + n + " operand" + (n == 1 ? "" : "s")
+					+ ", got " + (words.length - 1));
+		}
+		return words[i];
+	}
+}
@@ -1,34 +1,98 @@
 package bigint;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
 /**
- * This class encapsulates a BigInteger, i.e. a positive or negative integer with 
- * any number of digits, which overcomes the computer storage length limitation of 
+ * This class encapsulates a BigInteger, i.e. a positive or negative integer with
+ * any number of digits, which overcomes the computer storage length limitation of
  * an integer.
- * 
+ *
+ * BigIntegers are immutable: every operation leaves its operands untouched and
+ * returns a new (or shared cached) instance, and all fields but the cached hash code
+ * are final. Instances can therefore be shared between threads without locking or
+ * defensive copies, and used as keys of hash maps.
+ *
  */
-public class BigInteger {
+public final class BigInteger implements Comparable<BigInteger> {
+
+	/**
+	 * Size of the buffer writeTo fills before handing digits to the stream
+	 */
+	private static final int WRITE_CHUNK = 8192;
 
 	/**
 	 * True if this is a negative integer
 	 */
-	boolean negative;
-	
+	final boolean negative;
+
 	/**
 	 * Number of digits in this integer
 	 */
-	int numDigits;
-	
+	final int numDigits;
+
+	/**
+	 * Magnitude of this integer as an array of base 10^9 limbs.
+	 * NOTE: The array stores the Least Significant limb in the FIRST slot.
+	 * For instance, the integer 1234567890123 would be stored as:
+	 *    {567890123, 1234}
+	 *
+	 * Insignificant limbs are not counted. Only the first len entries are part
+	 * of the value, and mag[len-1] is never zero.
+	 *
+	 * The array may be shared with other instances and is never written to once
+	 * the integer is constructed.
+	 */
+	final int[] mag;
+
 	/**
-	 * Reference to the first node of this integer's linked list representation
-	 * NOTE: The linked list stores the Least Significant Digit in the FIRST node.
-	 * For instance, the integer 235 would be stored as:
-	 *    5 --> 3  --> 2
-	 *    
-	 * Insignificant digits are not stored. So the integer 00235 will be stored as:
-	 *    5 --> 3 --> 2  (No zeros after the last 2)        
+	 * Number of significant limbs in mag; 0 for the zero valued integer
 	 */
-	DigitNode front;
-	
+	final int len;
+
+	/**
+	 * The value of this integer as a long, or INFLATED if it does not fit in one.
+	 * Kept next to mag so that arithmetic on values that fit can skip the limbs.
+	 */
+	final long compact;
+
+	/**
+	 * Value of compact when the integer does not fit in a long. Long.MIN_VALUE
+	 * itself is never held compactly, so it can serve as the marker.
+	 */
+	static final long INFLATED = Long.MIN_VALUE;
+
+	/**
+	 * Hash code, computed on the first call to hashCode; 0 until then. Threads that
+	 * race to compute it all store the same value, so no locking is needed.
+	 */
+	private int hash;
+
+	/**
+	 * Smallest and largest values with a shared instance, see valueOf
+	 */
+	private static final int CACHE_LOW = -128;
+	private static final int CACHE_HIGH = 1024;
+
+	private static final BigInteger[] CACHE = new BigInteger[CACHE_HIGH - CACHE_LOW + 1];
+
+	static {
+		for (int i = 0; i < CACHE.length; i++) {
+			CACHE[i] = new BigInteger(i + CACHE_LOW);
+		}
+	}
+
 	/**
 	 * Initializes this integer to a positive number with zero digits, in other
 	 * words this is the 0 (zero) valued integer.
@@ -36,740 +100,1005 @@ public class BigInteger {
 	public BigInteger() {
 		negative = false;
 		numDigits = 0;
-		front = null;
+		mag = Limbs.EMPTY;
+		len = 0;
+		compact = 0;
+	}
+
+	/**
+	 * Initializes this integer from a sign and a magnitude. Leading zero limbs
+	 * are dropped, and a zero magnitude is always positive.
+	 *
+	 * @param negative True if the integer is negative
+	 * @param mag Magnitude limbs, least significant first (not copied)
+	 * @param len Number of limbs of mag to use
+	 */
+	BigInteger(boolean negative, int[] mag, int len) {
+		this.len = Limbs.normalize(mag, len);
+		this.mag = this.len == 0 ? Limbs.EMPTY : mag;
+		this.negative = this.len != 0 && negative;
+		this.numDigits = Limbs.digitCount(mag, this.len);
+		this.compact = compactValue(this.negative, mag, this.len);
+	}
+
+	/**
+	 * Initializes this integer to a long value other than Long.MIN_VALUE.
+	 */
+	private BigInteger(long value) {
+		long m = Math.abs(value);
+		int n = m == 0 ? 0 : m < Limbs.BASE ? 1 : m < (long) Limbs.BASE * Limbs.BASE ? 2 : 3;
+		int[] limbs = n == 0 ? Limbs.EMPTY : new int[n];
+		for (int i = 0; i < n; i++) {
+			limbs[i] = (int) (m % Limbs.BASE);
+			m /= Limbs.BASE;
+		}
+		this.negative = value < 0;
+		this.mag = limbs;
+		this.len = n;
+		this.numDigits = Limbs.digitCount(limbs, n);
+		this.compact = value;
 	}
-	
+
+	/**
+	 * Returns the value of a normalized magnitude with a sign as a long, or INFLATED
+	 * if it does not fit.
+	 */
+	private static long compactValue(boolean negative, int[] mag, int len) {
+		if (len > 3 || (len == 3 && mag[2] > 9)) {
+			return INFLATED;
+		}
+		//below 10^19 < 2^64, so anything too large for a long wraps to negative
+		long v = 0;
+		for (int i = len - 1; i >= 0; i--) {
+			v = v * Limbs.BASE + mag[i];
+		}
+		if (v < 0) {
+			return INFLATED;
+		}
+		return negative ? -v : v;
+	}
+
+	/**
+	 * Returns a BigInteger with the given value. Values from -128 to 1024 come from a
+	 * cache of shared instances, so asking for them allocates nothing.
+	 *
+	 * @param value Value of the integer
+	 * @return BigInteger instance with that value
+	 */
+	public static BigInteger valueOf(long value) {
+		if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+			return CACHE[(int) value - CACHE_LOW];
+		}
+		if (value == Long.MIN_VALUE) {
+			return new BigInteger(true, new int[] {854775808, 223372036, 9}, 3);
+		}
+		return new BigInteger(value);
+	}
+
+	/**
+	 * Returns the value of this integer as a long.
+	 *
+	 * @return Value of this integer
+	 * @throws ArithmeticException If the value does not fit in a long
+	 */
+	public long longValueExact() throws ArithmeticException {
+		if (compact != INFLATED) {
+			return compact;
+		}
+		if (negative && len == 3 && mag[2] == 9 && mag[1] == 223372036 && mag[0] == 854775808) {
+			return Long.MIN_VALUE;
+		}
+		throw new ArithmeticException("BigInteger out of long range");
+	}
+
 	/**
 	 * Parses an input integer string into a corresponding BigInteger instance.
-	 * A correctly formatted integer would have an optional sign as the first 
+	 * A correctly formatted integer would have an optional sign as the first
 	 * character (no sign means positive), and at least one digit character
-	 * (including zero). 
+	 * (including zero).
 	 * Examples of correct format, with corresponding values
 	 *      Format     Value
 	 *       +0            0
 	 *       -0            0
 	 *       +123        123
 	 *       1023       1023
-	 *       0012         12  
+	 *       0012         12
 	 *       0             0
 	 *       -123       -123
 	 *       -001         -1
 	 *       +000          0
-	 *       
-	 * Leading and trailing spaces are ignored. So "  +123  " will still parse 
+	 *
+	 * Leading and trailing spaces are ignored. So "  +123  " will still parse
 	 * correctly, as +123, after ignoring leading and trailing spaces in the input
 	 * string.
-	 * 
+	 *
 	 * Spaces between digits are not ignored. So "12  345" will not parse as
 	 * an integer - the input is incorrectly formatted.
-	 * 
-	 * An integer with value 0 will correspond to a null (empty) list - see the BigInteger
+	 *
+	 * An integer with value 0 will correspond to an empty magnitude - see the BigInteger
 	 * constructor
-	 * 
+	 *
 	 * @param integer Integer string that is to be parsed
 	 * @return BigInteger instance that stores the input integer.
 	 * @throws IllegalArgumentException If input is incorrectly formatted
 	 */
-	public static BigInteger parse(String integer) 
+	public static BigInteger parse(String integer)
 	throws IllegalArgumentException {
-		
-		integer = integer.trim();
-		
-		BigInteger parsedInt = new BigInteger();
-		if(integer.charAt(0)=='-') {
-			parsedInt.negative=true;
-			integer = integer.substring(1);
-			}
-		
-		else if(integer.charAt(0)=='+' ) {
-			parsedInt.negative=false;
-			integer = integer.substring(1);
-			}
-		
-		for(int i =0; i<integer.length(); i++) {
-		
-			if(!Character.isDigit(integer.charAt(i))) {
-				
-				
-					throw new IllegalArgumentException();
-				
-			}
-		
+		return parse(integer, 10);
+	}
+
+	/**
+	 * Parses an input integer string written in the given radix into a corresponding
+	 * BigInteger instance. The format rules are the same as for parse(String), with
+	 * digits beyond 9 written as the letters a-z or A-Z. The input is validated and
+	 * converted in a single pass, without copying it.
+	 *
+	 * @param integer Integer string that is to be parsed
+	 * @param radix Radix of the digits, 2 to 36
+	 * @return BigInteger instance that stores the input integer.
+	 * @throws IllegalArgumentException If input is incorrectly formatted, or the radix is out of range
+	 */
+	public static BigInteger parse(String integer, int radix)
+	throws IllegalArgumentException {
+		if (!BigIntegerMetrics.ENABLED) {
+			return parseValues(integer, radix);
+		}
+		long start = System.nanoTime();
+		BigInteger result = parseValues(integer, radix);
+		BigIntegerMetrics.record(BigIntegerMetrics.Operation.PARSE, result.len, start, result.len);
+		return result;
+	}
+
+	/**
+	 * Unmetered parse, for code in this package that parses on behalf of another
+	 * operation, so that the work is only counted as part of that operation.
+	 */
+	static BigInteger parseValues(String integer, int radix) {
+
+		if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+			throw new IllegalArgumentException("Radix out of range: " + radix);
+		}
+
+		//leading and trailing spaces, as String.trim would drop them
+		int start = 0;
+		int end = integer.length();
+		while (start < end && integer.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && integer.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		boolean negative = false;
+		if (start < end && (integer.charAt(start) == '-' || integer.charAt(start) == '+')) {
+			negative = integer.charAt(start) == '-';
+			start++;
+		}
+		if (start == end) {
+			throw new IllegalArgumentException("No digits in \"" + integer + "\"");
+		}
+
+		//up to 18 decimal digits always fit in a long
+		if (radix == 10 && end - start <= 18) {
+			long value = 0;
+			for (int i = start; i < end; i++) {
+				int d = integer.charAt(i) - '0';
+				if (d < 0 || d > 9) {
+					throw new IllegalArgumentException("Not a digit: '" + integer.charAt(i) + "'");
+				}
+				value = value * 10 + d;
 			}
-		
-		while(integer.length()>=1 && integer.charAt(0)=='0') {
-			integer = integer.substring(1);
-		}
-			
-		for (int x=0; x<integer.length(); x++) {
-			
-			int current = integer.charAt(x)-'0';
-			
-			parsedInt.front= new DigitNode(current,parsedInt.front); 
-			
-		}
-		int lengthList= lengthList(parsedInt);
-		parsedInt.numDigits=lengthList;
-		//System.out.println(parsedInt.numDigits);
-		return parsedInt; 
-		
-	}
-	
-	/**
-	 * Adds the first and second big integers, and returns the result in a NEW BigInteger object. 
+			return valueOf(negative ? -value : value);
+		}
+
+		int[] mag = RadixConversion.parse(integer, start, end, radix);
+		return new BigInteger(negative, mag, mag.length);
+
+	}
+
+	/**
+	 * Parses a decimal integer read from a character stream, with the same format
+	 * rules as parse(String). The digits are converted as they are read, so the
+	 * input never has to fit in a String. The reader is read to its end but not closed.
+	 *
+	 * @param in Reader supplying the integer
+	 * @return BigInteger instance that stores the input integer.
+	 * @throws IOException If reading fails
+	 * @throws IllegalArgumentException If input is incorrectly formatted
+	 */
+	public static BigInteger parse(Reader in)
+	throws IOException, IllegalArgumentException {
+		return StreamParser.parse(in);
+	}
+
+	/**
+	 * Parses a decimal integer read from a byte stream in ASCII, or any encoding that
+	 * agrees with ASCII on digits, signs and spaces (such as UTF-8 or ISO-8859-1).
+	 * The format rules are the same as for parse(String). The stream is read to its
+	 * end but not closed.
+	 *
+	 * @param in Stream supplying the integer
+	 * @return BigInteger instance that stores the input integer.
+	 * @throws IOException If reading fails
+	 * @throws IllegalArgumentException If input is incorrectly formatted
+	 */
+	public static BigInteger parse(InputStream in)
+	throws IOException, IllegalArgumentException {
+		return StreamParser.parse(in);
+	}
+
+	/**
+	 * Parses a decimal integer stored in a file, in the same byte encodings as
+	 * parse(InputStream). The file is memory-mapped and its digits are converted
+	 * straight from the mapping, without being copied into a String first.
+	 *
+	 * @param file File holding the integer
+	 * @return BigInteger instance that stores the input integer.
+	 * @throws IOException If the file cannot be read
+	 * @throws IllegalArgumentException If input is incorrectly formatted
+	 */
+	public static BigInteger parse(Path file)
+	throws IOException, IllegalArgumentException {
+		return StreamParser.parse(file);
+	}
+
+	/**
+	 * Adds the first and second big integers, and returns the result in a NEW BigInteger object.
 	 * DOES NOT MODIFY the input big integers.
-	 * 
+	 *
 	 * NOTE that either or both of the input big integers could be negative.
 	 * (Which means this method can effectively subtract as well.)
-	 * 
+	 *
 	 * @param first First big integer
 	 * @param second Second big integer
 	 * @return Result big integer
 	 */
 	public static BigInteger add(BigInteger first, BigInteger second) {
-		
-		BigInteger sum = new BigInteger();
-		int sumDigit;
-		
-		//for cases in which either both are positive or both are negative
-		if((first.negative==true && second.negative==true) || 
-				(first.negative==false && second.negative==false)) {
-			
-			if (first.negative==true) {sum.negative=true;}
-			else if (first.negative ==true) {sum.negative=false;}	
-			
-			int carry = 0;
-				
-			DigitNode firstD = first.front;
-			DigitNode secondD = second.front;
-		
-			
-			while(firstD!=null || secondD!=null) {
-				
-				 sumDigit = carry + (firstD!=null ? firstD.digit: 0)
-						 +(secondD!=null ? secondD.digit:0);
-				  
-				 carry = (sumDigit >= 10) ? 1 : 0;
-				 sumDigit = sumDigit % 10;
-				 
-				 sum.front = new DigitNode(sumDigit, sum.front);
-				 
-				 if (firstD!=null) {firstD = firstD.next;}
-				 if (secondD!=null) {secondD = secondD.next;}
-				 
-				
-				 }
-			 if(carry>0) {
-				 sum.front= new DigitNode(carry, sum.front);
-				 
-				 }
-		
-			}
-		
-		//for cases where one is negative and one is positive
-		if((first.negative==true && second.negative==false)||
-				(first.negative==false && second.negative==true)) {
-			
-			//one is negative one is positive but the digits are the same: you return 0
-			boolean isEqual = equalLists(first, second);
-			if(isEqual) {
-				sum.front= new DigitNode(0,sum.front);
-				sum.negative=false;
-			}
-			
-			boolean firstListGreater = isFirstListGreater(first,second);
-			
-		//	System.out.println(firstListGreater);
-			
-			if(firstListGreater && first.negative ) {sum.negative=true;}
-			if(firstListGreater && !first.negative) {sum.negative=false;}
-			
-			if(!firstListGreater && second.negative) {sum.negative=true;}
-			if(!firstListGreater && !second.negative) {sum.negative=false;}
-			
-			if(firstListGreater) {
-			
-			DigitNode firstF = first.front;
-			DigitNode secondF = second.front;
-			
-			//either one is not null
-			while(firstF!=null || secondF!=null) {
-				
-				
-				
-				//putting a zero in the location of the null space
-				 if (secondF==null) {
-					secondF = new DigitNode (0, null);
-				} 
-				
-				
-				 if(firstF.digit >= secondF.digit) {
-					sumDigit = (firstF.digit) -
-							(secondF!=null ? secondF.digit: 0);
-							sum.front = new DigitNode (sumDigit, sum.front);
-				}
-				else if (firstF.digit<secondF.digit && firstF.next!=null) {
-					firstF.digit = firstF.digit + 10;
-					firstF.next.digit = firstF.next.digit-1;
-					sumDigit = (firstF.digit) -
-							(secondF!=null ? secondF.digit: 0);
-							sum.front = new DigitNode (sumDigit, sum.front);
-				} 
-				
-				if (firstF!=null) {
-				firstF = firstF.next;
-				}
-				
-				if (secondF!=null) {
-				secondF = secondF.next;
-				}
-					}
-			}
-			
-			
-			else if (!firstListGreater) {
-				
-				DigitNode firstF = first.front;
-				DigitNode secondF = second.front;
-				
-				//either one is not null
-				while(firstF!=null || secondF!=null) {
-					
-					
-					
-					
-					//putting a zero in the location of the null space
-					 if (firstF==null) {
-						firstF = new DigitNode (0, null);
-					} 
-					
-					
-					 if(secondF.digit >= firstF.digit) {
-						sumDigit = (secondF.digit) -
-								(firstF!=null ? firstF.digit: 0);
-								sum.front = new DigitNode (sumDigit, sum.front);
-					}
-					else if (secondF.digit<firstF.digit && secondF.next!=null) {
-						secondF.digit = secondF.digit + 10;
-						secondF.next.digit = secondF.next.digit-1;
-						sumDigit = (secondF.digit) -
-								(firstF!=null ? firstF.digit: 0);
-								sum.front = new DigitNode (sumDigit, sum.front);
-					} 
-					
-					if (firstF!=null) {
-					firstF = firstF.next;}
-					if (secondF!=null) {
-					secondF = secondF.next; }
-				}
-				
-			}
-		int difference = differenceLists(first,second);
-			if (difference == 0) {
-				DigitNode prev = null; 
-		        DigitNode current = sum.front; 
-		        DigitNode next = null; 
-		        while (current != null) { 
-		            next = current.next; 
-		            current.next = prev; 
-		            prev = current; 
-		            current = next;} 
-		            sum.front=prev;
-			}
-			
-		
-		}
-		
-		//reverse the List
-		DigitNode prev = null; 
-        DigitNode current = sum.front; 
-        DigitNode next = null; 
-        while (current != null) { 
-            next = current.next; 
-            current.next = prev; 
-            prev = current; 
-            current = next;} 
-            sum.front=prev;
-            
-            
-            
-            int length = lengthList(sum);
-            if(length > 1) {
-            	removeTrailingZeros(sum);
-            }
-            sum.numDigits = lengthList(sum);
-          //  System.out.println(sum.numDigits);
-           return sum; 
-}
-	 private static int lengthList(BigInteger l) {
-		int length = 0;
-		DigitNode front = l.front;
-		while(front!=null) {
-			length++;
-			front = front.next;
-		}
-	
-		return length;
-	} 
-private static BigInteger addMult(BigInteger first, BigInteger second) {
-	BigInteger sum = new BigInteger();
-	int sumDigit;
-	
-	//for cases in which either both are positive or both are negative
-	if((first.negative==true && second.negative==true) || 
-			(first.negative==false && second.negative==false)) {
-		
-		if (first.negative==true) {sum.negative=true;}
-		else if (first.negative ==true) {sum.negative=false;}	
-		
-		int carry = 0;
-			
-		DigitNode firstD = first.front;
-		DigitNode secondD = second.front;
-	
-		
-		while(firstD!=null || secondD!=null) {
-			
-			 sumDigit = carry + (firstD!=null ? firstD.digit: 0)
-					 +(secondD!=null ? secondD.digit:0);
-			  
-			 carry = (sumDigit >= 10) ? 1 : 0;
-			 sumDigit = sumDigit % 10;
-			 
-			 sum.front = new DigitNode(sumDigit, sum.front);
-			 
-			 if (firstD!=null) {firstD = firstD.next;}
-			 if (secondD!=null) {secondD = secondD.next;}
-			 
-			
-			 }
-		 if(carry>0) {
-			 sum.front= new DigitNode(carry, sum.front);
-			 
-			 }
-	
-		}
-	
-	//for cases where one is negative and one is positive
-	if((first.negative==true && second.negative==false)||
-			(first.negative==false && second.negative==true)) {
-		
-		//one is negative one is positive but the digits are the same: you return 0
-		boolean isEqual = equalLists(first, second);
-		if(isEqual) {
-			sum.front= new DigitNode(0,sum.front);
-			sum.negative=false;
-		}
-		
-		boolean firstListGreater = isFirstListGreater(first,second);
-		
-	//	System.out.println(firstListGreater);
-		
-		if(firstListGreater && first.negative ) {sum.negative=true;}
-		if(firstListGreater && !first.negative) {sum.negative=false;}
-		
-		if(!firstListGreater && second.negative) {sum.negative=true;}
-		if(!firstListGreater && !second.negative) {sum.negative=false;}
-		
-		if(firstListGreater) {
-		
-		DigitNode firstF = first.front;
-		DigitNode secondF = second.front;
-		
-		//either one is not null
-		while(firstF!=null || secondF!=null) {
-			
-			
-			
-			//putting a zero in the location of the null space
-			 if (secondF==null) {
-				secondF = new DigitNode (0, null);
-			} 
-			
-			
-			 if(firstF.digit >= secondF.digit) {
-				sumDigit = (firstF.digit) -
-						(secondF!=null ? secondF.digit: 0);
-						sum.front = new DigitNode (sumDigit, sum.front);
-			}
-			else if (firstF.digit<secondF.digit && firstF.next!=null) {
-				firstF.digit = firstF.digit + 10;
-				firstF.next.digit = firstF.next.digit-1;
-				sumDigit = (firstF.digit) -
-						(secondF!=null ? secondF.digit: 0);
-						sum.front = new DigitNode (sumDigit, sum.front);
-			} 
-			
-			if (firstF!=null) {
-			firstF = firstF.next;
-			}
-			
-			if (secondF!=null) {
-			secondF = secondF.next;
-			}
-				}
+		if (!BigIntegerMetrics.ENABLED) {
+			return addValues(first, second);
 		}
-		
-		
-		else if (!firstListGreater) {
-			
-			DigitNode firstF = first.front;
-			DigitNode secondF = second.front;
-			
-			//either one is not null
-			while(firstF!=null || secondF!=null) {
-				
-				
-				
-				
-				//putting a zero in the location of the null space
-				 if (firstF==null) {
-					firstF = new DigitNode (0, null);
-				} 
-				
-				
-				 if(secondF.digit >= firstF.digit) {
-					sumDigit = (secondF.digit) -
-							(firstF!=null ? firstF.digit: 0);
-							sum.front = new DigitNode (sumDigit, sum.front);
-				}
-				else if (secondF.digit<firstF.digit && secondF.next!=null) {
-					secondF.digit = secondF.digit + 10;
-					secondF.next.digit = secondF.next.digit-1;
-					sumDigit = (secondF.digit) -
-							(firstF!=null ? firstF.digit: 0);
-							sum.front = new DigitNode (sumDigit, sum.front);
-				} 
-				
-				if (firstF!=null) {
-				firstF = firstF.next;}
-				if (secondF!=null) {
-				secondF = secondF.next; }
-			}
-			
-		}
-	int difference = differenceLists(first,second);
-		if (difference == 0) {
-			DigitNode prev = null; 
-	        DigitNode current = sum.front; 
-	        DigitNode next = null; 
-	        while (current != null) { 
-	            next = current.next; 
-	            current.next = prev; 
-	            prev = current; 
-	            current = next;} 
-	            sum.front=prev;
-		}
-		
-	
-	}
-	
-	//reverse the List
-	DigitNode prev = null; 
-    DigitNode current = sum.front; 
-    DigitNode next = null; 
-    while (current != null) { 
-        next = current.next; 
-        current.next = prev; 
-        prev = current; 
-        current = next;} 
-        sum.front=prev;
-        
-        
-        
-       
-       return sum; 
-}
+		long start = System.nanoTime();
+		BigInteger sum = addValues(first, second);
+		BigIntegerMetrics.record(BigIntegerMetrics.Operation.ADD, Math.max(first.len, second.len), start, sum.len);
+		return sum;
+	}
 
-	 private static void removeTrailingZeros(BigInteger Remove) {
-		 //reverse first
-		 DigitNode prev = null; 
-	        DigitNode current = Remove.front; 
-	        DigitNode next = null; 
-	        while (current != null) { 
-	            next = current.next; 
-	            current.next = prev; 
-	            prev = current; 
-	            current = next;} 
-	            Remove.front=prev;
-	            
-	            DigitNode temp = Remove.front;
-	            
-	            while(temp.digit==0 && temp!=null) {
-	            	Remove.front=temp.next;
-	            temp = temp.next;	
-	            }
-	            
-	            
-	           
-	            
-	            //reverse back
-	            DigitNode prev1 = null; 
-	            DigitNode current2 = Remove.front; 
-	            DigitNode next1 = null; 
-	            while (current2 != null) { 
-	                next1 = current2.next; 
-	                current2.next = prev1; 
-	                prev1 = current2; 
-	                current2 = next1;} 
-	                Remove.front=prev1;
-		 
-	 }
-	
-	
-	private static int differenceLists(BigInteger first, BigInteger second) {
-		int lOne=0;
-		int lTwo=0;
-		int diff;
-		
-		DigitNode frontOne = first.front;
-		DigitNode frontTwo = second.front;
-		
-		while(frontOne!=null) {
-			lOne++;
-			frontOne=frontOne.next;
-		}
-		while(frontTwo!=null) {
-			lTwo++;
-			frontTwo = frontTwo.next;
-		}
-		diff = lOne-lTwo;
-		return diff;
-	
-	}
-	private static boolean equalLists(BigInteger first, BigInteger second) {
-		boolean isEqualNegs= false;
-		DigitNode firstIt = first.front;
-		DigitNode secondIt = second.front;
-		
-		while(firstIt!= null) {
-			
-			if(secondIt==null || secondIt.digit!=firstIt.digit) {
-					isEqualNegs = false;
-					break;
-			}
-			else if(secondIt.digit==firstIt.digit) {
-				isEqualNegs = true;
+	/**
+	 * Unmetered add, for code in this package that adds on behalf of another
+	 * operation, so that the work is only counted as part of that operation.
+	 */
+	static BigInteger addValues(BigInteger first, BigInteger second) {
+
+		//both fit in a long: add them as longs unless the sum overflows, which is
+		//the case when it has the opposite sign of both operands (as in Math.addExact)
+		if (first.compact != INFLATED && second.compact != INFLATED) {
+			long a = first.compact;
+			long b = second.compact;
+			long sum = a + b;
+			if (((a ^ sum) & (b ^ sum)) >= 0) {
+				return valueOf(sum);
 			}
-			
-			firstIt=firstIt.next;
-			secondIt=secondIt.next;
-		}
-		return isEqualNegs;
-	}
-	private static boolean isFirstListGreater(BigInteger first, BigInteger second) {
-		boolean isFirstGreaterNegs = false;
-		
-		int difference = differenceLists(first, second);
-		if (difference>0) {return true;}
-		if (difference<0) {return false;}
-		BigInteger firstR = first;
-		BigInteger secondR = second;
-		
-		//reverse both lists
-		DigitNode prev1 = null; 
-        DigitNode current1 = firstR.front; 
-        DigitNode next1 = null; 
-        while (current1 != null) { 
-            next1 = current1.next; 
-            current1.next = prev1; 
-            prev1 = current1; 
-            current1 = next1;} 
-            firstR.front=prev1;
-            
-            DigitNode prev2 = null; 
-            DigitNode current2 = secondR.front; 
-            DigitNode next2 = null; 
-            while (current2 != null) { 
-                next2 = current2.next; 
-                current2.next = prev2; 
-                prev2 = current2; 
-                current2 = next2;} 
-                secondR.front=prev2;
-         
-         DigitNode frontFirst = firstR.front;
-         DigitNode frontSecond = secondR.front;
-       
-         while(frontFirst!=null) {
-        	 if(frontSecond.digit<frontFirst.digit) {isFirstGreaterNegs=true;
-        	 	break;}
-        	 if(frontSecond.digit>frontFirst.digit) {isFirstGreaterNegs = false;
-        	 	break;} 
-        	 
-        	 
-        	 frontFirst = frontFirst.next;
-        	 frontSecond = frontSecond.next;
-         }
-       
-		return isFirstGreaterNegs;
-	}
-	
+		}
+
+		//for cases in which either both are positive or both are negative
+		if (first.negative == second.negative) {
+			int[] sum = Limbs.add(first.mag, first.len, second.mag, second.len);
+			return new BigInteger(first.negative, sum, sum.length);
+		}
+
+		//for cases where one is negative and one is positive, the smaller
+		//magnitude is taken from the larger one, which decides the sign
+		int cmp = Limbs.compare(first.mag, first.len, second.mag, second.len);
+		if (cmp == 0) {
+			return new BigInteger();
+		}
+		if (cmp > 0) {
+			int[] diff = Limbs.subtract(first.mag, first.len, second.mag, second.len);
+			return new BigInteger(first.negative, diff, diff.length);
+		}
+		int[] diff = Limbs.subtract(second.mag, second.len, first.mag, first.len);
+		return new BigInteger(second.negative, diff, diff.length);
+	}
+
+	/**
+	 * Returns the sum of all the integers in a collection, 0 for an empty one.
+	 * DOES NOT MODIFY the input big integers.
+	 *
+	 * The values are accumulated with deferred carries, so no intermediate sums are
+	 * built - see BigIntegerSummer, which also offers a Collector for streams.
+	 *
+	 * @param values Integers to add, any of which may be negative
+	 * @return A new BigInteger which is the sum of the values
+	 */
+	public static BigInteger sumOf(Iterable<BigInteger> values) {
+		return new BigIntegerSummer().addAll(values).sum();
+	}
+
 	/**
 	 * Returns the BigInteger obtained by multiplying the first big integer
 	 * with the second big integer
-	 * 
+	 *
 	 * This method DOES NOT MODIFY either of the input big integers
-	 * 
+	 *
+	 * Small operands are multiplied the schoolbook way, larger ones with Karatsuba,
+	 * Toom-Cook 3 or a number-theoretic transform. The cutoffs can be tuned with the
+	 * bigint.karatsubaThreshold, bigint.toomCookThreshold and bigint.nttThreshold
+	 * system properties - see Multiplier. Operands of equal magnitude (including the
+	 * same instance twice) take the cheaper squaring path of square().
+	 *
 	 * @param first First big integer
 	 * @param second Second big integer
 	 * @return A new BigInteger which is the product of the first and second big integers
 	 */
 	public static BigInteger multiply(BigInteger first, BigInteger second) {
-		
-		BigInteger product= new BigInteger(); 
-		int lengthFirst = lengthList(first);
-		int lengthSecond = lengthList(second);
-		
-		
-		
-		//these next three if statements take care of the sign of the product
-		if (first.negative==true && second.negative==true) {
-			product.negative=false;
-		}
-		
-		if(first.negative==false && second.negative ==false) {
-			product.negative=false;
-		}
-		
-		if((first.negative==true && second.negative==false) || (first.negative==false && second.negative==true)) {
-			product.negative=true;
-		}
-		//if either digit is equal to 1 or zero
-			
-		if(lengthFirst==1) {
-					if (first.front.digit==0){
-						product.front = new DigitNode(0,product.front);
-						product.negative=false;
-						return product;
-					}
-					if(first.front.digit==1) {
-						second.negative=product.negative;
-						int lengthSecondTwo = lengthList(second);
-						second.numDigits = lengthSecondTwo;
-						return second;
-					}
+		if (!BigIntegerMetrics.ENABLED) {
+			return multiplyValues(first, second);
+		}
+		BigIntegerMetrics.Tier tier = multiplyTier(first, second);
+		long start = System.nanoTime();
+		BigInteger product = multiplyValues(first, second, tier);
+		BigIntegerMetrics.record(BigIntegerMetrics.Operation.MULTIPLY, Math.max(first.len, second.len), start,
+				product.len);
+		BigIntegerMetrics.recordTier(tier);
+		return product;
+	}
+
+	/**
+	 * Unmetered multiply, for code in this package that multiplies on behalf of another
+	 * operation, so that the work is only counted as part of that operation.
+	 */
+	static BigInteger multiplyValues(BigInteger first, BigInteger second) {
+		return multiplyValues(first, second, multiplyTier(first, second));
+	}
+
+	/**
+	 * Returns the algorithm multiplyValues uses for two integers: COMPACT when the
+	 * product fits in a long (or is zero), otherwise what Multiplier chooses for the
+	 * magnitudes, a square tier when they are equal.
+	 */
+	private static BigIntegerMetrics.Tier multiplyTier(BigInteger first, BigInteger second) {
+
+		if (first.len == 0 || second.len == 0) {
+			return BigIntegerMetrics.Tier.COMPACT;
+		}
+
+		//both fit in a long: the product does too if its high 64 bits are only the
+		//sign extension of the low 64
+		if (first.compact != INFLATED && second.compact != INFLATED
+				&& Math.multiplyHigh(first.compact, second.compact) == (first.compact * second.compact) >> 63) {
+			return BigIntegerMetrics.Tier.COMPACT;
+		}
+
+		//x * x, or x * -x: square the magnitude once
+		if (first == second
+				|| (first.len == second.len && Limbs.compare(first.mag, first.len, second.mag, second.len) == 0)) {
+			return Multiplier.squareTier(first.len);
+		}
+		return Multiplier.tier(first.mag, first.len, second.mag, second.len);
+	}
+
+	private static BigInteger multiplyValues(BigInteger first, BigInteger second, BigIntegerMetrics.Tier tier) {
+		if (first.len == 0 || second.len == 0) {
+			return new BigInteger();
+		}
+		if (tier == BigIntegerMetrics.Tier.COMPACT) {
+			return valueOf(first.compact * second.compact);
+		}
+		int[] product = Multiplier.multiply(tier, first.mag, first.len, second.mag, second.len);
+		return new BigInteger(first.negative != second.negative, product, product.length);
+	}
+
+	/**
+	 * Returns the square of this integer. DOES NOT MODIFY this integer.
+	 *
+	 * Squaring has algorithms of its own at every size - a schoolbook loop that takes
+	 * each cross product once, Karatsuba and Toom-Cook splits that only square, and an
+	 * NTT with one forward transform - so this costs roughly half to two thirds of a
+	 * general multiply. The cutoffs can be tuned with the bigint.karatsubaSquareThreshold
+	 * and bigint.toomCookSquareThreshold system properties - see Multiplier.
+	 *
+	 * @return A new BigInteger which is the square of this integer
+	 */
+	public BigInteger square() {
+		if (!BigIntegerMetrics.ENABLED) {
+			return squareValues();
+		}
+		//counted like multiply(this, this)
+		BigIntegerMetrics.Tier tier = squareTier();
+		long start = System.nanoTime();
+		BigInteger square = squareValues(tier);
+		BigIntegerMetrics.record(BigIntegerMetrics.Operation.MULTIPLY, len, start, square.len);
+		BigIntegerMetrics.recordTier(tier);
+		return square;
+	}
+
+	/**
+	 * Unmetered square, for code in this package that squares on behalf of another
+	 * operation, so that the work is only counted as part of that operation.
+	 */
+	BigInteger squareValues() {
+		return squareValues(squareTier());
+	}
+
+	/**
+	 * Returns the algorithm squareValues uses: COMPACT when the square fits in a long
+	 * (or is zero), otherwise the square tier Multiplier chooses.
+	 */
+	private BigIntegerMetrics.Tier squareTier() {
+		if (compact != INFLATED && Math.abs(compact) < 3037000500L) {
+			return BigIntegerMetrics.Tier.COMPACT;
+		}
+		return Multiplier.squareTier(len);
+	}
+
+	private BigInteger squareValues(BigIntegerMetrics.Tier tier) {
+		if (tier == BigIntegerMetrics.Tier.COMPACT) {
+			return valueOf(compact * compact);
+		}
+		int[] square = Multiplier.square(tier, mag, len);
+		return new BigInteger(false, square, square.length);
+	}
+
+	/**
+	 * Returns this integer raised to a non-negative power, by squaring and
+	 * multiplying along the bits of the exponent, left to right. x^0 is 1, also
+	 * for x = 0. DOES NOT MODIFY this integer.
+	 *
+	 * @param exponent Exponent, must not be negative
+	 * @return A new BigInteger which is this^exponent
+	 * @throws ArithmeticException If the exponent is negative
+	 */
+	public BigInteger pow(int exponent) throws ArithmeticException {
+		if (exponent < 0) {
+			throw new ArithmeticException("BigInteger negative exponent");
+		}
+		if (exponent == 0) {
+			return valueOf(1);
+		}
+		BigInteger result = this;
+		for (int bit = Integer.highestOneBit(exponent) >>> 1; bit != 0; bit >>>= 1) {
+			result = result.squareValues();
+			if ((exponent & bit) != 0) {
+				result = multiplyValues(result, this);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns this integer with the opposite sign, sharing its limbs. Zero is
+	 * returned as is.
+	 */
+	BigInteger negate() {
+		return len == 0 ? this : new BigInteger(!negative, mag, len);
+	}
+
+	/**
+	 * Returns the BigInteger obtained by multiplying the first big integer
+	 * with the second big integer, always using the number-theoretic transform
+	 * regardless of operand size.
+	 *
+	 * multiply switches to this algorithm by itself for operands of
+	 * bigint.nttThreshold limbs and up; this entry point is for callers that want to
+	 * force it, e.g. to benchmark it against the other tiers.
+	 *
+	 * This method DOES NOT MODIFY either of the input big integers
+	 *
+	 * @param first First big integer
+	 * @param second Second big integer
+	 * @return A new BigInteger which is the product of the first and second big integers
+	 */
+	public static BigInteger multiplyNtt(BigInteger first, BigInteger second) {
+
+		if (first.len == 0 || second.len == 0) {
+			return new BigInteger();
+		}
+
+		if (BigIntegerMetrics.ENABLED) {
+			BigIntegerMetrics.recordTier(BigIntegerMetrics.Tier.NTT);
+		}
+		int[] product = NttMultiplier.multiply(first.mag, first.len, second.mag, second.len);
+		return new BigInteger(first.negative != second.negative, product, product.length);
+
+	}
+
+	/**
+	 * Returns the BigInteger obtained by multiplying the first big integer
+	 * with the second big integer, splitting the work of large products across
+	 * the threads of a ForkJoinPool.
+	 *
+	 * The result is exactly the one multiply returns. When called from a ForkJoinPool
+	 * worker the work stays in that pool; otherwise it runs in the common pool, or in
+	 * a dedicated pool sized by the bigint.parallelism system property - see
+	 * ParallelMultiplier.
+	 *
+	 * This method DOES NOT MODIFY either of the input big integers
+	 *
+	 * @param first First big integer
+	 * @param second Second big integer
+	 * @return A new BigInteger which is the product of the first and second big integers
+	 */
+	public static BigInteger multiplyParallel(BigInteger first, BigInteger second) {
+		if (BigIntegerMetrics.ENABLED) {
+			BigIntegerMetrics.recordTier(BigIntegerMetrics.Tier.PARALLEL);
+		}
+		return multiplyParallelValues(first, second);
+	}
+
+	/**
+	 * Unmetered multiplyParallel, for code in this package that multiplies on behalf
+	 * of another operation.
+	 */
+	static BigInteger multiplyParallelValues(BigInteger first, BigInteger second) {
+
+		if (first.len == 0 || second.len == 0) {
+			return new BigInteger();
+		}
+
+		int[] product = ParallelMultiplier.multiply(first.mag, first.len, second.mag, second.len);
+		return new BigInteger(first.negative != second.negative, product, product.length);
+
+	}
+
+	/**
+	 * Divides the first big integer by the second, returning both the quotient and
+	 * the remainder in NEW BigInteger objects. DOES NOT MODIFY the input big integers.
+	 *
+	 * Division truncates toward zero, so the quotient is negative when exactly one
+	 * input is negative, and the remainder takes the sign of the first integer:
+	 *      -7 / 2 = -3 remainder -1
+	 *
+	 * Small divisors use Knuth's algorithm D, large ones Burnikel-Ziegler recursive
+	 * division - see Divider.
+	 *
+	 * @param first Dividend
+	 * @param second Divisor
+	 * @return {quotient, remainder}
+	 * @throws ArithmeticException If the divisor is zero
+	 */
+	public static BigInteger[] divideAndRemainder(BigInteger first, BigInteger second)
+	throws ArithmeticException {
+		if (!BigIntegerMetrics.ENABLED) {
+			return divideValues(first, second);
+		}
+		long start = System.nanoTime();
+		BigInteger[] qr = divideValues(first, second);
+		BigIntegerMetrics.record(BigIntegerMetrics.Operation.DIVIDE, Math.max(first.len, second.len), start,
+				qr[0].len + qr[1].len);
+		return qr;
+	}
+
+	/**
+	 * Unmetered divideAndRemainder, for code in this package that divides on behalf of another
+	 * operation, so that the work is only counted as part of that operation.
+	 */
+	static BigInteger[] divideValues(BigInteger first, BigInteger second) {
+
+		if (second.len == 0) {
+			throw new ArithmeticException("BigInteger divide by zero");
+		}
+
+		//long division truncates toward zero too, and cannot overflow since
+		//Long.MIN_VALUE is never compact
+		if (first.compact != INFLATED && second.compact != INFLATED) {
+			return new BigInteger[] {valueOf(first.compact / second.compact),
+					valueOf(first.compact % second.compact)};
+		}
+
+		BigInteger[] qr = Divider.divideAndRemainder(first.mag, first.len, second.mag, second.len);
+		qr[0] = new BigInteger(first.negative != second.negative, qr[0].mag, qr[0].len);
+		qr[1] = new BigInteger(first.negative, qr[1].mag, qr[1].len);
+		return qr;
+
+	}
+
+	/**
+	 * Returns the quotient of the first big integer divided by the second, truncated
+	 * toward zero. DOES NOT MODIFY the input big integers.
+	 *
+	 * @param first Dividend
+	 * @param second Divisor
+	 * @return A new BigInteger which is the quotient
+	 * @throws ArithmeticException If the divisor is zero
+	 */
+	public static BigInteger divide(BigInteger first, BigInteger second)
+	throws ArithmeticException {
+		return divideAndRemainder(first, second)[0];
+	}
+
+	/**
+	 * Returns the remainder of the first big integer divided by the second. The
+	 * remainder has the sign of the first integer (or is zero).
+	 * DOES NOT MODIFY the input big integers.
+	 *
+	 * @param first Dividend
+	 * @param second Divisor
+	 * @return A new BigInteger which is the remainder
+	 * @throws ArithmeticException If the divisor is zero
+	 */
+	public static BigInteger remainder(BigInteger first, BigInteger second)
+	throws ArithmeticException {
+		return divideAndRemainder(first, second)[1];
+	}
+
+	/**
+	 * Returns base raised to the power exponent, modulo modulus. The result is
+	 * always in [0, modulus), even for a negative base.
+	 * DOES NOT MODIFY the input big integers.
+	 *
+	 * This builds a new ModContext on every call; to run many exponentiations under
+	 * the same modulus, build the ModContext once and call its modPow instead.
+	 *
+	 * @param base Base
+	 * @param exponent Exponent, must not be negative
+	 * @param modulus Modulus, must be positive
+	 * @return A new BigInteger which is base^exponent mod modulus
+	 * @throws ArithmeticException If the exponent is negative or the modulus is not positive
+	 */
+	public static BigInteger modPow(BigInteger base, BigInteger exponent, BigInteger modulus)
+	throws ArithmeticException {
+		return new ModContext(modulus).modPow(base, exponent);
+	}
+
+	/**
+	 * Returns the product of all the integers in a list, 1 for an empty list.
+	 * DOES NOT MODIFY the input big integers.
+	 *
+	 * The factors are multiplied up a balanced tree rather than left to right, so
+	 * that both operands of every multiplication are about the same size. Large
+	 * subtrees are evaluated in parallel - see ProductTree.
+	 *
+	 * @param factors Integers to multiply
+	 * @return A new BigInteger which is the product of the factors
+	 */
+	public static BigInteger productOf(List<BigInteger> factors) {
+		BigInteger[] array = factors.toArray(new BigInteger[0]);
+		return ProductTree.productOf(array, array.length);
+	}
+
+	/**
+	 * Returns the product of an array of longs, 1 for an empty array. Neighbouring
+	 * values are multiplied as longs while the product fits, and the rest is
+	 * multiplied up a balanced tree as in productOf(List).
+	 *
+	 * @param factors Values to multiply
+	 * @return A new BigInteger which is the product of the factors
+	 */
+	public static BigInteger productOf(long[] factors) {
+		return ProductTree.productOf(factors);
+	}
+
+	/**
+	 * Returns n!, the product of the integers from 1 to n (1 for n = 0), computed
+	 * with the prime swing algorithm - see Combinatorics.
+	 *
+	 * @param n Non-negative integer
+	 * @return A new BigInteger which is n!
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public static BigInteger factorial(int n)
+	throws IllegalArgumentException {
+		return Combinatorics.factorial(n);
+	}
+
+	/**
+	 * Returns the binomial coefficient n choose k, the number of ways to pick k items
+	 * out of n, which is 0 when k is negative or greater than n. It is computed from
+	 * its prime factorization, without any division.
+	 *
+	 * @param n Number of items, must not be negative
+	 * @param k Number of items picked
+	 * @return A new BigInteger which is n! / (k! (n - k)!)
+	 * @throws IllegalArgumentException If n is negative
+	 */
+	public static BigInteger binomial(int n, int k)
+	throws IllegalArgumentException {
+		return Combinatorics.binomial(n, k);
+	}
+
+	/**
+	 * Compares this integer with another by value. Neither integer is modified,
+	 * and the cost is at most one pass over the limbs.
+	 *
+	 * @param other Integer to compare with
+	 * @return Negative, zero or positive as this is less than, equal to or greater than other
+	 */
+	@Override
+	public int compareTo(BigInteger other) {
+		if (compact != INFLATED && other.compact != INFLATED) {
+			return Long.compare(compact, other.compact);
+		}
+		if (negative != other.negative) {
+			return negative ? -1 : 1;
+		}
+		int cmp = Limbs.compare(mag, len, other.mag, other.len);
+		return negative ? -cmp : cmp;
+	}
+
+	/**
+	 * Compares the absolute values of this integer and another, ignoring signs.
+	 * Neither integer is modified, and the cost is at most one pass over the limbs.
+	 *
+	 * @param other Integer to compare with
+	 * @return Negative, zero or positive as |this| is less than, equal to or greater than |other|
+	 */
+	public int compareMagnitude(BigInteger other) {
+		return Limbs.compare(mag, len, other.mag, other.len);
+	}
+
+	/**
+	 * Compares this integer with another object for equality. They are equal if the
+	 * other object is a BigInteger with the same value.
+	 *
+	 * @param obj Object to compare with
+	 * @return True if obj is a BigInteger with the same value
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof BigInteger)) {
+			return false;
+		}
+		BigInteger other = (BigInteger) obj;
+		if (compact != INFLATED || other.compact != INFLATED) {
+			return compact == other.compact;
+		}
+		return negative == other.negative && len == other.len
+				&& Arrays.equals(mag, 0, len, other.mag, 0, len);
+	}
+
+	/**
+	 * Returns a hash code for this integer, consistent with equals. It is computed
+	 * once, on the first call, and cached.
+	 *
+	 * @return Hash code of the value
+	 */
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			if (compact != INFLATED) {
+				h = Long.hashCode(compact);
+			} else {
+				for (int i = len - 1; i >= 0; i--) {
+					h = 31 * h + mag[i];
 				}
-		if(lengthSecond==1) {
-			if (second.front.digit==0){
-				product.front = new DigitNode(0,product.front);
-				product.negative=false;
-				return product;
+				h = negative ? -h : h;
 			}
-			if(second.front.digit==1) {
-				first.negative=product.negative;
-				int lengthFirstOne = lengthList(first);
-				first.numDigits = lengthFirstOne;
-				return first;
+			hash = h;
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the digits of this integer as a linked list of DigitNodes, with the
+	 * Least Significant Digit in the FIRST node. The zero valued integer gives null.
+	 *
+	 * This is a compatibility view built on demand; it is not the storage of this integer.
+	 *
+	 * @return Front of a new digit list
+	 */
+	DigitNode front() {
+		DigitNode front = null;
+		for (int i = len - 1; i >= 0; i--) {
+			int limb = mag[i];
+			int digits = i == len - 1 ? numDigits - i * Limbs.BASE_DIGITS : Limbs.BASE_DIGITS;
+			for (int d = digits - 1; d >= 0; d--) {
+				front = new DigitNode((limb / Limbs.POW10[d]) % 10, front);
 			}
 		}
-		
-		
-		int loc = 0;
-        DigitNode frontOne = first.front;
-        DigitNode frontTwo = second.front;
-        int carry = 0;
-        //loop for the first bigInteger
-        while (frontOne != null) {
-            //digits of the interior of the multiplication
-        	BigInteger interior = new BigInteger();
-
-            //loop for second BigInteger
-            while (frontTwo != null) {
-            
-            	//the multiplication of the digits
-                int res = frontOne.digit*frontTwo.digit+carry;
-               
-                //when the result of the multiplication is over two digits
-                if (res >= 10) {
-                    carry = res/10;
-                    res = res%10;} else {carry = 0;}
-
-              //if the list is empty
-                if (interior.numDigits == 0) {
-                    //add onto front
-                    interior.front = new DigitNode(res, interior.front);
-                } else {
-                  //if the list is not empty, add onto the end of the list rather than just onto the front
-                    DigitNode ptr = interior.front;
-                  //loop to reach end
-                    while (ptr.next != null) {
-                        ptr = ptr.next;
-                    }
-                    //the next node is set to the digit
-                    ptr.next = new DigitNode(res, null);
-                   
-                } 
-                //increase number of digits
-                interior.numDigits++;
-
-               
-                
-              //advance the second bigInt  
-                frontTwo = frontTwo.next; 
-            }
-
-
-        //counter to count how many zeros to add to have as a placeholder
-            int countLoc = loc;
-         //loop for adding the zeros
-            while (countLoc > 0) {
-                interior.front = new DigitNode(0, interior.front);
-                interior.numDigits++;
-                countLoc--;
-            }
-
-         // if there is still carry leftOver
-            if (carry >= 1) {
-              //go to the end of the list
-                DigitNode curr = interior.front;
-                while (curr.next != null) {
-                    curr = curr.next;
-                }
-                //insert the carry digit to the end 
-                curr.next = new DigitNode(carry, null);
-                interior.numDigits++;
-      
-            }
-            
-
-          //add the previous interior storage to the total 
-            product = addMult(product,interior);
-
-          //iterate the front and set back the second List
-          //carry is reset 
-          //location is increased
-            loc++;
-            carry = 0;
-            frontOne = frontOne.next;
-            frontTwo = second.front;
-        } 
-        
-		
-        if ((first.negative == true && second.negative == true) || (first.negative == false && second.negative == false)) {
-            product.negative = false;}
-        else {product.negative = true;}
-		 
-       // System.out.println(product.numDigits);
-		return product; 
-		
-	}
-	
+		if (BigIntegerMetrics.ENABLED) {
+			BigIntegerMetrics.recordNodes(numDigits);
+		}
+		return front;
+	}
+
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
 	public String toString() {
-		if (front == null) {
-			return "0";
+		if (!BigIntegerMetrics.ENABLED) {
+			return toDecimalString();
+		}
+		long start = System.nanoTime();
+		String s = toDecimalString();
+		BigIntegerMetrics.record(BigIntegerMetrics.Operation.TO_STRING, len, start, 0);
+		return s;
+	}
+
+	private String toDecimalString() {
+		if (compact != INFLATED) {
+			return Long.toString(compact);
+		}
+		int sign = negative ? 1 : 0;
+		char[] retval = new char[sign + numDigits];
+		if (negative) {
+			retval[0] = '-';
+		}
+		RadixConversion.toDecimal(mag, len, retval, sign);
+		return new String(retval);
+	}
+
+	/**
+	 * Returns this integer written in the given radix, with a leading '-' if it is
+	 * negative and lower case letters for digits beyond 9.
+	 *
+	 * @param radix Radix of the digits, 2 to 36
+	 * @return String representation in the radix
+	 * @throws IllegalArgumentException If the radix is out of range
+	 */
+	public String toString(int radix) {
+		if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+			throw new IllegalArgumentException("Radix out of range: " + radix);
+		}
+		if (radix == 10 || len == 0) {
+			return toString();
+		}
+		String digits = RadixConversion.toString(mag, len, radix);
+		return negative ? '-' + digits : digits;
+	}
+
+	/**
+	 * Returns this integer as a big-endian two's complement byte array of the
+	 * smallest length that holds it, sign bit included: the same bytes as
+	 * java.math.BigInteger.toByteArray. Zero is a single 0 byte.
+	 *
+	 * @return Two's complement bytes, most significant first
+	 */
+	public byte[] toByteArray() {
+		return RadixConversion.toBytes(negative, mag, len);
+	}
+
+	/**
+	 * Creates an integer from a big-endian two's complement byte array, such as
+	 * toByteArray or java.math.BigInteger.toByteArray returns. The integer is
+	 * negative if the top bit of the first byte is set.
+	 *
+	 * @param bytes Two's complement bytes, most significant first
+	 * @return BigInteger instance that stores the integer
+	 * @throws IllegalArgumentException If the array is empty
+	 */
+	public static BigInteger fromByteArray(byte[] bytes) throws IllegalArgumentException {
+		if (bytes.length == 0) {
+			throw new IllegalArgumentException("Zero length byte array");
+		}
+		int[] mag = RadixConversion.fromBytes(bytes);
+		return new BigInteger(bytes[0] < 0, mag, mag.length);
+	}
+
+	/**
+	 * Writes the decimal representation of this integer, the same characters toString
+	 * returns, to a Writer. The digits are streamed through a small fixed buffer, so
+	 * no String of the whole number is ever built. The writer is neither flushed
+	 * nor closed.
+	 *
+	 * @param out Writer to write to
+	 * @throws IOException If the writer fails
+	 */
+	public void writeTo(Writer out) throws IOException {
+		if (len == 0) {
+			out.write('0');
+			return;
+		}
+		char[] buf = new char[Math.min(WRITE_CHUNK, numDigits + 1)];
+		int n = 0;
+		if (negative) {
+			buf[n++] = '-';
 		}
-		String retval = front.digit + "";
-		for (DigitNode curr = front.next; curr != null; curr = curr.next) {
-				retval = curr.digit + retval;
+		int topDigits = numDigits - (len - 1) * Limbs.BASE_DIGITS;
+		RadixConversion.putDigits(mag[len - 1], topDigits, buf, n);
+		n += topDigits;
+		for (int i = len - 2; i >= 0; i--) {
+			if (n + Limbs.BASE_DIGITS > buf.length) {
+				out.write(buf, 0, n);
+				n = 0;
+			}
+			RadixConversion.putDigits(mag[i], Limbs.BASE_DIGITS, buf, n);
+			n += Limbs.BASE_DIGITS;
 		}
-		
+		out.write(buf, 0, n);
+	}
+
+	/**
+	 * Writes the decimal representation of this integer, the same characters toString
+	 * returns, to an OutputStream as ASCII bytes. The digits are streamed through a
+	 * small fixed buffer, so no String of the whole number is ever built. The stream
+	 * is neither flushed nor closed.
+	 *
+	 * @param out Stream to write to
+	 * @throws IOException If the stream fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		if (len == 0) {
+			out.write('0');
+			return;
+		}
+		byte[] buf = new byte[Math.min(WRITE_CHUNK, numDigits + 1)];
+		int n = 0;
 		if (negative) {
-			retval = '-' + retval;
+			buf[n++] = '-';
+		}
+		int topDigits = numDigits - (len - 1) * Limbs.BASE_DIGITS;
+		RadixConversion.putDigits(mag[len - 1], topDigits, buf, n);
+		n += topDigits;
+		for (int i = len - 2; i >= 0; i--) {
+			if (n + Limbs.BASE_DIGITS > buf.length) {
+				out.write(buf, 0, n);
+				n = 0;
+			}
+			RadixConversion.putDigits(mag[i], Limbs.BASE_DIGITS, buf, n);
+			n += Limbs.BASE_DIGITS;
 		}
-		return retval;
+		out.write(buf, 0, n);
+	}
+
+	/**
+	 * Returns the number of bytes writeTo(ByteBuffer) and writeTo(FileChannel) write
+	 * for this integer: a 6 byte header plus 4 bytes for every 9 decimal digits.
+	 *
+	 * @return Size of the binary form in bytes
+	 */
+	public int serializedSize() {
+		return BinaryFormat.size(this);
+	}
+
+	/**
+	 * Writes this integer to a buffer in the binary format: a version byte, a sign
+	 * byte, the limb count and the base 10^9 limbs, all little-endian, whatever the
+	 * byte order of the buffer. The limbs are copied in bulk, exactly as stored.
+	 * The buffer position advances by serializedSize() bytes.
+	 *
+	 * @param out Buffer to write to
+	 * @throws BufferOverflowException If fewer than serializedSize() bytes remain in
+	 * the buffer; nothing is written then
+	 */
+	public void writeTo(ByteBuffer out) throws BufferOverflowException {
+		BinaryFormat.write(this, out);
+	}
+
+	/**
+	 * Reads an integer in the binary format written by writeTo(ByteBuffer) from the
+	 * position of a buffer, and advances the position past it.
+	 *
+	 * @param in Buffer to read from
+	 * @return BigInteger instance that stores the integer read
+	 * @throws BufferUnderflowException If the buffer ends before the integer does;
+	 * the position is left unchanged then
+	 * @throws IllegalArgumentException If the data is not in the binary format
+	 */
+	public static BigInteger readFrom(ByteBuffer in)
+	throws BufferUnderflowException, IllegalArgumentException {
+		return BinaryFormat.read(in);
+	}
+
+	/**
+	 * Writes this integer in the binary format to a file channel at its current
+	 * position, through a buffer of at most 1 MB. Several integers can be written
+	 * one after another and read back in the same order.
+	 *
+	 * @param channel Channel to write to
+	 * @throws IOException If writing fails
+	 */
+	public void writeTo(FileChannel channel) throws IOException {
+		BinaryFormat.write(this, channel);
 	}
-	
+
+	/**
+	 * Reads an integer in the binary format from the current position of a file
+	 * channel, and advances the position past it. Large values are read by mapping
+	 * the file rather than through a buffer.
+	 *
+	 * @param channel Channel to read from
+	 * @return BigInteger instance that stores the integer read
+	 * @throws EOFException If the file ends before the integer does
+	 * @throws IOException If reading fails
+	 * @throws IllegalArgumentException If the data is not in the binary format
+	 */
+	public static BigInteger readFrom(FileChannel channel)
+	throws IOException, IllegalArgumentException {
+		return BinaryFormat.read(channel);
+	}
+
 }
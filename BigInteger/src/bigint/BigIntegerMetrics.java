@@ -0,0 +1,431 @@
+package bigint;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in counters and latency histograms for the main BigInteger operations:
+ * parse, add, multiply (square counts as a multiply), divideAndRemainder and
+ * toString. Only calls from outside the library are counted: the arithmetic
+ * operations do internally, such as the additions inside Toom-Cook or division,
+ * goes through unmetered paths and is part of the time of the operation that does it.
+ *
+ * Metrics are off unless the JVM is started with -Dbigint.metrics=true. The flag is
+ * read once into a static final field, so when it is off the JIT removes the
+ * metering code from the operations entirely.
+ *
+ * For each operation this records:
+ *
+ *    - calls and total time per operand size class, where class k holds operands
+ *      of 2^(k-1) to 2^k - 1 limbs (of the larger operand), class 0 the value zero
+ *    - a histogram of call latencies per operand size class, where bucket k holds
+ *      calls that took 2^(k-1) to 2^k - 1 nanoseconds
+ *    - the limbs allocated for results
+ *
+ * plus the number of multiplications and squarings done by each algorithm tier, as
+ * chosen by Multiplier for the multiplications callers asked for (not the smaller
+ * ones the algorithms split them into), and the DigitNodes built by the digit list
+ * view. Everything is readable from code
+ * through snapshot(), and from JMX tools under the name bigint:type=Metrics once
+ * register() has been called (it is called by itself when metrics are enabled).
+ */
+public final class BigIntegerMetrics {
+
+	/**
+	 * True if metrics are recorded, from the bigint.metrics system property
+	 */
+	static final boolean ENABLED = Boolean.getBoolean("bigint.metrics");
+
+	/**
+	 * Metered operations
+	 */
+	public enum Operation {
+		PARSE, ADD, MULTIPLY, DIVIDE, TO_STRING
+	}
+
+	/**
+	 * Algorithms a multiplication can be done with. COMPACT is the long fast path
+	 * for products that fit in a long.
+	 */
+	public enum Tier {
+		COMPACT, SCHOOLBOOK, KARATSUBA, TOOM_COOK_3, NTT, PARALLEL,
+		SQUARE_SCHOOLBOOK, SQUARE_KARATSUBA, SQUARE_TOOM_COOK_3, SQUARE_NTT
+	}
+
+	/**
+	 * Number of operand size classes and latency buckets
+	 */
+	public static final int SIZE_CLASSES = 32;
+	public static final int LATENCY_BUCKETS = 48;
+
+	private static final int OPERATIONS = Operation.values().length;
+
+	private static final LongAdder[] calls = adders(OPERATIONS * SIZE_CLASSES);
+	private static final LongAdder[] nanos = adders(OPERATIONS * SIZE_CLASSES);
+	private static final LongAdder[] latencies = adders(OPERATIONS * SIZE_CLASSES * LATENCY_BUCKETS);
+	private static final LongAdder[] limbs = adders(OPERATIONS);
+	private static final LongAdder[] tiers = adders(Tier.values().length);
+	private static final LongAdder nodes = new LongAdder();
+
+	private static final String OBJECT_NAME = "bigint:type=Metrics";
+	private static boolean registered;
+
+	static {
+		if (ENABLED) {
+			register();
+		}
+	}
+
+	private BigIntegerMetrics() {
+	}
+
+	private static LongAdder[] adders(int n) {
+		LongAdder[] a = new LongAdder[n];
+		for (int i = 0; i < n; i++) {
+			a[i] = new LongAdder();
+		}
+		return a;
+	}
+
+	/**
+	 * Returns true if metrics are being recorded.
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Records one call of an operation that started at System.nanoTime() start.
+	 *
+	 * @param operandLimbs Limbs of the larger operand
+	 * @param resultLimbs Limbs allocated for the result
+	 */
+	static void record(Operation op, int operandLimbs, long start, int resultLimbs) {
+		long elapsed = System.nanoTime() - start;
+		int index = op.ordinal() * SIZE_CLASSES + sizeClass(operandLimbs);
+		calls[index].increment();
+		nanos[index].add(elapsed);
+		latencies[index * LATENCY_BUCKETS + latencyBucket(elapsed)].increment();
+		limbs[op.ordinal()].add(resultLimbs);
+	}
+
+	/**
+	 * Records the tier a multiplication was done with.
+	 */
+	static void recordTier(Tier tier) {
+		tiers[tier.ordinal()].increment();
+	}
+
+	static void recordNodes(int count) {
+		nodes.add(count);
+	}
+
+	private static int sizeClass(int limbCount) {
+		return Math.min(SIZE_CLASSES - 1, 32 - Integer.numberOfLeadingZeros(limbCount));
+	}
+
+	/**
+	 * Returns the limb range of a size class, such as "64-127".
+	 */
+	static String sizeClassName(int sizeClass) {
+		return sizeClass == 0 ? "0" : sizeClass == SIZE_CLASSES - 1 ? (1L << (sizeClass - 1)) + "+"
+				: (1L << (sizeClass - 1)) + "-" + ((1L << sizeClass) - 1);
+	}
+
+	private static int latencyBucket(long elapsed) {
+		return Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, elapsed)));
+	}
+
+	/**
+	 * Returns a copy of all the metrics recorded so far. Counters are read one by one
+	 * while other threads may be updating them, so a snapshot taken under load is
+	 * consistent per counter but not across counters.
+	 *
+	 * @return New snapshot
+	 */
+	public static Snapshot snapshot() {
+		return new Snapshot();
+	}
+
+	/**
+	 * Sets every metric back to zero.
+	 */
+	public static void reset() {
+		for (LongAdder[] group : new LongAdder[][] {calls, nanos, latencies, limbs, tiers}) {
+			for (LongAdder a : group) {
+				a.reset();
+			}
+		}
+		nodes.reset();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server as bigint:type=Metrics.
+	 * Calling it again has no effect.
+	 *
+	 * @throws IllegalStateException If the MBean server refuses the registration
+	 */
+	public static synchronized void register() throws IllegalStateException {
+		if (registered) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+			registered = true;
+		} catch (JMException e) {
+			throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+		}
+	}
+
+	/**
+	 * Metrics as they were when snapshot() was called
+	 */
+	public static final class Snapshot {
+
+		private final long[] calls = sums(BigIntegerMetrics.calls);
+		private final long[] nanos = sums(BigIntegerMetrics.nanos);
+		private final long[] latencies = sums(BigIntegerMetrics.latencies);
+		private final long[] limbs = sums(BigIntegerMetrics.limbs);
+		private final long[] tiers = sums(BigIntegerMetrics.tiers);
+		private final long nodes = BigIntegerMetrics.nodes.sum();
+
+		private Snapshot() {
+		}
+
+		private static long[] sums(LongAdder[] adders) {
+			long[] s = new long[adders.length];
+			for (int i = 0; i < s.length; i++) {
+				s[i] = adders[i].sum();
+			}
+			return s;
+		}
+
+		/**
+		 * Returns the number of calls of an operation.
+		 */
+		public long calls(Operation op) {
+			long n = 0;
+			for (int k = 0; k < SIZE_CLASSES; k++) {
+				n += calls[op.ordinal() * SIZE_CLASSES + k];
+			}
+			return n;
+		}
+
+		/**
+		 * Returns the number of calls of an operation with operands in a size class.
+		 */
+		public long calls(Operation op, int sizeClass) {
+			return calls[op.ordinal() * SIZE_CLASSES + sizeClass];
+		}
+
+		/**
+		 * Returns the total time, in nanoseconds, spent in an operation.
+		 */
+		public long nanos(Operation op) {
+			long n = 0;
+			for (int k = 0; k < SIZE_CLASSES; k++) {
+				n += nanos[op.ordinal() * SIZE_CLASSES + k];
+			}
+			return n;
+		}
+
+		/**
+		 * Returns the total time, in nanoseconds, spent in an operation with operands
+		 * in a size class.
+		 */
+		public long nanos(Operation op, int sizeClass) {
+			return nanos[op.ordinal() * SIZE_CLASSES + sizeClass];
+		}
+
+		/**
+		 * Returns the latency histogram of an operation over all operand sizes,
+		 * LATENCY_BUCKETS counts long.
+		 */
+		public long[] latencyHistogram(Operation op) {
+			long[] h = new long[LATENCY_BUCKETS];
+			for (int c = 0; c < SIZE_CLASSES; c++) {
+				int from = (op.ordinal() * SIZE_CLASSES + c) * LATENCY_BUCKETS;
+				for (int k = 0; k < LATENCY_BUCKETS; k++) {
+					h[k] += latencies[from + k];
+				}
+			}
+			return h;
+		}
+
+		/**
+		 * Returns the latency histogram of an operation with operands in a size class,
+		 * LATENCY_BUCKETS counts long.
+		 */
+		public long[] latencyHistogram(Operation op, int sizeClass) {
+			long[] h = new long[LATENCY_BUCKETS];
+			System.arraycopy(latencies, (op.ordinal() * SIZE_CLASSES + sizeClass) * LATENCY_BUCKETS, h, 0,
+					LATENCY_BUCKETS);
+			return h;
+		}
+
+		/**
+		 * Returns an upper bound, in nanoseconds, of the given quantile (0 to 1) of an
+		 * operation's latencies over all operand sizes; 0 if it was never called.
+		 */
+		public long latencyQuantile(Operation op, double quantile) {
+			return quantile(latencyHistogram(op), quantile);
+		}
+
+		/**
+		 * Returns an upper bound, in nanoseconds, of the given quantile (0 to 1) of an
+		 * operation's latencies with operands in a size class; 0 if there were none.
+		 */
+		public long latencyQuantile(Operation op, int sizeClass, double quantile) {
+			return quantile(latencyHistogram(op, sizeClass), quantile);
+		}
+
+		private static long quantile(long[] histogram, double quantile) {
+			long total = 0;
+			for (long n : histogram) {
+				total += n;
+			}
+			long rank = (long) Math.ceil(quantile * total);
+			long seen = 0;
+			for (int k = 0; k < LATENCY_BUCKETS && total != 0; k++) {
+				seen += histogram[k];
+				if (seen >= rank && seen != 0) {
+					return k == 0 ? 0 : (1L << k) - 1;
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Returns the number of limbs allocated for results of an operation.
+		 */
+		public long allocatedLimbs(Operation op) {
+			return limbs[op.ordinal()];
+		}
+
+		/**
+		 * Returns the number of multiplications done by a tier.
+		 */
+		public long multiplications(Tier tier) {
+			return tiers[tier.ordinal()];
+		}
+
+		/**
+		 * Returns the number of DigitNodes built by the digit list view.
+		 */
+		public long allocatedNodes() {
+			return nodes;
+		}
+
+		/**
+		 * Returns a table with one line per operation, followed by one per operand
+		 * size class it was called with, and one line per multiply tier.
+		 */
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("%-18s %12s %14s %10s %10s %14s%n",
+					"operation", "calls", "total ms", "p50 ns", "p99 ns", "result limbs"));
+			for (Operation op : Operation.values()) {
+				sb.append(String.format("%-18s %12d %14.3f %10d %10d %14d%n", op, calls(op), nanos(op) / 1e6,
+						latencyQuantile(op, 0.5), latencyQuantile(op, 0.99), allocatedLimbs(op)));
+				for (int c = 0; c < SIZE_CLASSES; c++) {
+					if (calls(op, c) != 0) {
+						sb.append(String.format("  %-16s %12d %14.3f %10d %10d%n", sizeClassName(c), calls(op, c),
+								nanos(op, c) / 1e6, latencyQuantile(op, c, 0.5), latencyQuantile(op, c, 0.99)));
+					}
+				}
+			}
+			for (Tier tier : Tier.values()) {
+				sb.append(String.format("%-18s %12d%n", tier, multiplications(tier)));
+			}
+			sb.append(String.format("%-18s %12d%n", "DIGIT_NODES", nodes));
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * JMX view of the metrics, each attribute read from a fresh snapshot
+	 */
+	private static final class MXBean implements BigIntegerMetricsMXBean {
+
+		public boolean isEnabled() {
+			return ENABLED;
+		}
+
+		public Map<String, Long> getCalls() {
+			Snapshot s = snapshot();
+			Map<String, Long> m = new LinkedHashMap<String, Long>();
+			for (Operation op : Operation.values()) {
+				m.put(op.name(), s.calls(op));
+			}
+			return m;
+		}
+
+		public Map<String, Long> getTotalNanos() {
+			Snapshot s = snapshot();
+			Map<String, Long> m = new LinkedHashMap<String, Long>();
+			for (Operation op : Operation.values()) {
+				m.put(op.name(), s.nanos(op));
+			}
+			return m;
+		}
+
+		public Map<String, Long> getP99Nanos() {
+			Snapshot s = snapshot();
+			Map<String, Long> m = new LinkedHashMap<String, Long>();
+			for (Operation op : Operation.values()) {
+				m.put(op.name(), s.latencyQuantile(op, 0.99));
+			}
+			return m;
+		}
+
+		public Map<String, Long> getP99NanosBySize() {
+			Snapshot s = snapshot();
+			Map<String, Long> m = new LinkedHashMap<String, Long>();
+			for (Operation op : Operation.values()) {
+				for (int c = 0; c < SIZE_CLASSES; c++) {
+					if (s.calls(op, c) != 0) {
+						m.put(op.name() + " " + sizeClassName(c), s.latencyQuantile(op, c, 0.99));
+					}
+				}
+			}
+			return m;
+		}
+
+		public Map<String, Long> getAllocatedLimbs() {
+			Snapshot s = snapshot();
+			Map<String, Long> m = new LinkedHashMap<String, Long>();
+			for (Operation op : Operation.values()) {
+				m.put(op.name(), s.allocatedLimbs(op));
+			}
+			return m;
+		}
+
+		public Map<String, Long> getMultiplyTiers() {
+			Snapshot s = snapshot();
+			Map<String, Long> m = new LinkedHashMap<String, Long>();
+			for (Tier tier : Tier.values()) {
+				m.put(tier.name(), s.multiplications(tier));
+			}
+			return m;
+		}
+
+		public long getAllocatedNodes() {
+			return nodes.sum();
+		}
+
+		public String getReport() {
+			return snapshot().toString();
+		}
+
+		public void reset() {
+			BigIntegerMetrics.reset();
+		}
+	}
+}
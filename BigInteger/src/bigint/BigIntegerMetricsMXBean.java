@@ -0,0 +1,63 @@
+package bigint;
+
+import java.util.Map;
+
+/**
+ * Management interface of BigIntegerMetrics, registered as bigint:type=Metrics.
+ * Maps are keyed by operation or tier name, unless said otherwise.
+ */
+public interface BigIntegerMetricsMXBean {
+
+	/**
+	 * Returns true if metrics are being recorded (-Dbigint.metrics=true).
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Returns the number of calls of each operation.
+	 */
+	Map<String, Long> getCalls();
+
+	/**
+	 * Returns the total time, in nanoseconds, spent in each operation.
+	 */
+	Map<String, Long> getTotalNanos();
+
+	/**
+	 * Returns an upper bound of the 99th percentile latency, in nanoseconds, of each
+	 * operation.
+	 */
+	Map<String, Long> getP99Nanos();
+
+	/**
+	 * Returns an upper bound of the 99th percentile latency, in nanoseconds, of each
+	 * operation and operand size class it was called with, keyed by the operation
+	 * and the limb range of the class, such as "MULTIPLY 64-127".
+	 */
+	Map<String, Long> getP99NanosBySize();
+
+	/**
+	 * Returns the number of limbs allocated for results of each operation.
+	 */
+	Map<String, Long> getAllocatedLimbs();
+
+	/**
+	 * Returns the number of multiplications done by each algorithm tier.
+	 */
+	Map<String, Long> getMultiplyTiers();
+
+	/**
+	 * Returns the number of DigitNodes built by the digit list view.
+	 */
+	long getAllocatedNodes();
+
+	/**
+	 * Returns all metrics as a printable table.
+	 */
+	String getReport();
+
+	/**
+	 * Sets every metric back to zero.
+	 */
+	void reset();
+}
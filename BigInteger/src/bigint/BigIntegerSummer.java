@@ -0,0 +1,219 @@
+package bigint;
+
+import java.util.Arrays;
+import java.util.stream.Collector;
+
+/**
+ * Running sum of many BigIntegers, for totals where calling BigInteger.add once per
+ * value would build and throw away a new BigInteger every time.
+ *
+ * Values are added limb by limb into wide (long) slots without propagating
+ * carries. A slot starts below 10^9 and grows by less than 10^9 per addition, so
+ * carries only have to be propagated once every 2^30 additions, and when the sum is
+ * read. Positive and negative values go to separate accumulators, so no addition
+ * ever has to borrow; the two are subtracted once, in sum().
+ *
+ * A summer is not thread safe. To sum in parallel, give each thread its own summer
+ * and merge them with combine, or use the collector from summing(), which does
+ * exactly that for streams:
+ *
+ *    BigInteger total = values.parallelStream().collect(BigIntegerSummer.summing());
+ */
+public final class BigIntegerSummer {
+
+	/**
+	 * Additions between carry propagations; 2^30 additions of limbs below 10^9 keep
+	 * every slot below 2^60
+	 */
+	private static final long CARRY_INTERVAL = 1L << 30;
+
+	private final Accumulator positive = new Accumulator();
+	private final Accumulator negative = new Accumulator();
+
+	/**
+	 * Initializes this summer to a sum of zero.
+	 */
+	public BigIntegerSummer() {
+	}
+
+	/**
+	 * Adds a value to the sum.
+	 *
+	 * @param x Value to add, may be negative
+	 * @return This summer
+	 */
+	public BigIntegerSummer add(BigInteger x) {
+		if (x.len != 0) {
+			(x.negative ? negative : positive).add(x.mag, x.len);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds a long value to the sum.
+	 *
+	 * @param x Value to add, may be negative
+	 * @return This summer
+	 */
+	public BigIntegerSummer add(long x) {
+		if (x != 0) {
+			//-x as an unsigned magnitude is right even for Long.MIN_VALUE
+			(x < 0 ? negative : positive).add(x < 0 ? -x : x);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds every value of a collection to the sum.
+	 *
+	 * @param values Values to add
+	 * @return This summer
+	 */
+	public BigIntegerSummer addAll(Iterable<BigInteger> values) {
+		for (BigInteger x : values) {
+			add(x);
+		}
+		return this;
+	}
+
+	/**
+	 * Adds the sum of another summer to this one. The other summer is left as it was.
+	 *
+	 * @param other Summer to merge in
+	 * @return This summer
+	 */
+	public BigIntegerSummer combine(BigIntegerSummer other) {
+		positive.add(other.positive);
+		negative.add(other.negative);
+		return this;
+	}
+
+	/**
+	 * Returns the sum of the values added so far. The summer can go on taking values
+	 * afterwards.
+	 *
+	 * @return A new BigInteger which is the sum
+	 */
+	public BigInteger sum() {
+		positive.carry();
+		negative.carry();
+		int[] p = positive.toLimbs();
+		int[] n = negative.toLimbs();
+		int cmp = Limbs.compare(p, p.length, n, n.length);
+		if (cmp == 0) {
+			return new BigInteger();
+		}
+		if (cmp > 0) {
+			int[] diff = Limbs.subtract(p, p.length, n, n.length);
+			return new BigInteger(false, diff, diff.length);
+		}
+		int[] diff = Limbs.subtract(n, n.length, p, p.length);
+		return new BigInteger(true, diff, diff.length);
+	}
+
+	/**
+	 * Returns a Collector that sums a stream of BigIntegers with one summer per
+	 * thread, combining them at the end. It works for parallel streams and does not
+	 * depend on encounter order.
+	 *
+	 * @return Summing collector
+	 */
+	public static Collector<BigInteger, ?, BigInteger> summing() {
+		return Collector.of(BigIntegerSummer::new, BigIntegerSummer::add, BigIntegerSummer::combine,
+				BigIntegerSummer::sum, Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Unsigned magnitude in base 10^9 limbs held in long slots, least significant
+	 * first, with carries pending for up to CARRY_INTERVAL additions
+	 */
+	private static final class Accumulator {
+
+		private long[] slots = new long[4];
+
+		/**
+		 * Number of slots in use; slots past it are zero
+		 */
+		private int len;
+
+		/**
+		 * Additions since carries were last propagated
+		 */
+		private long pending;
+
+		void add(int[] mag, int mlen) {
+			prepare(mlen);
+			for (int i = 0; i < mlen; i++) {
+				slots[i] += mag[i];
+			}
+			len = Math.max(len, mlen);
+		}
+
+		/**
+		 * Adds an unsigned 64-bit magnitude, at most 3 limbs.
+		 */
+		void add(long magnitude) {
+			prepare(3);
+			int i = 0;
+			while (magnitude != 0) {
+				slots[i++] += Long.remainderUnsigned(magnitude, Limbs.BASE);
+				magnitude = Long.divideUnsigned(magnitude, Limbs.BASE);
+			}
+			len = Math.max(len, i);
+		}
+
+		void add(Accumulator other) {
+			other.carry();
+			prepare(other.len);
+			for (int i = 0; i < other.len; i++) {
+				slots[i] += other.slots[i];
+			}
+			len = Math.max(len, other.len);
+		}
+
+		/**
+		 * Makes room for an addition of up to n limbs, propagating the carries first
+		 * if they have been pending for too long.
+		 */
+		private void prepare(int n) {
+			if (++pending >= CARRY_INTERVAL) {
+				carry();
+				pending = 1;
+			}
+			if (n > slots.length) {
+				slots = Arrays.copyOf(slots, Math.max(n, slots.length + (slots.length >> 1)));
+			}
+		}
+
+		/**
+		 * Propagates all pending carries, leaving every slot below 10^9.
+		 */
+		void carry() {
+			long c = 0;
+			for (int i = 0; i < len; i++) {
+				long v = slots[i] + c;
+				c = v / Limbs.BASE;
+				slots[i] = v - c * Limbs.BASE;
+			}
+			while (c != 0) {
+				if (len == slots.length) {
+					slots = Arrays.copyOf(slots, len + (len >> 1) + 1);
+				}
+				slots[len++] = c % Limbs.BASE;
+				c /= Limbs.BASE;
+			}
+			pending = 0;
+		}
+
+		/**
+		 * Returns the magnitude as normalized limbs; carries must have been propagated.
+		 */
+		int[] toLimbs() {
+			int[] limbs = new int[len];
+			for (int i = 0; i < len; i++) {
+				limbs[i] = (int) slots[i];
+			}
+			return Arrays.copyOf(limbs, Limbs.normalize(limbs, len));
+		}
+	}
+}
@@ -51,7 +51,12 @@ public class BigTest {
 	public static void main(String[] args) 
 	throws IOException {
 		
-		// TODO Auto-generated method stub
+		//BigTest --batch <operations file> <results file> [threads] - see BatchRunner
+		if (args.length > 0 && args[0].equals("--batch")) {
+			BatchRunner.main(args);
+			return;
+		}
+		
 		sc = new Scanner(System.in);
 		
 		char choice;
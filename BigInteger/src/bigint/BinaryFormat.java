@@ -0,0 +1,170 @@
+package bigint;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The binary storage format of a BigInteger, all fields little-endian:
+ *
+ *    byte     format version, currently 1
+ *    byte     sign, 0 for zero or positive, 1 for negative
+ *    int32    limb count n
+ *    int32[n] base 10^9 limbs, least significant first, each in [0, 10^9)
+ *
+ * That is 4 bytes per 9 decimal digits plus a 6 byte header, and since the limbs
+ * are stored exactly as they sit in memory, reading and writing are bulk copies
+ * with no arithmetic. Leading zero limbs are tolerated on reading.
+ */
+final class BinaryFormat {
+
+	/**
+	 * Current format version, the first byte of every stored value
+	 */
+	static final byte VERSION = 1;
+
+	/**
+	 * Bytes before the limbs: version, sign and limb count
+	 */
+	static final int HEADER_BYTES = 6;
+
+	/**
+	 * Size of the buffer used to move limbs through a channel
+	 */
+	private static final int CHANNEL_CHUNK = 1 << 20;
+
+	/**
+	 * From this many limb bytes on, readFrom(FileChannel) maps the file instead of
+	 * reading it through a buffer
+	 */
+	private static final int MAP_THRESHOLD = 1 << 20;
+
+	private BinaryFormat() {
+	}
+
+	static int size(BigInteger x) {
+		return HEADER_BYTES + 4 * x.len;
+	}
+
+	static void write(BigInteger x, ByteBuffer out) throws BufferOverflowException {
+		if (out.remaining() < size(x)) {
+			throw new BufferOverflowException();
+		}
+		ByteBuffer le = out.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		le.put(VERSION).put((byte) (x.negative ? 1 : 0)).putInt(x.len);
+		le.asIntBuffer().put(x.mag, 0, x.len);
+		out.position(out.position() + size(x));
+	}
+
+	static BigInteger read(ByteBuffer in) throws BufferUnderflowException, IllegalArgumentException {
+		ByteBuffer le = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		if (le.remaining() < HEADER_BYTES) {
+			throw new BufferUnderflowException();
+		}
+		boolean negative = readSign(le.get(), le.get());
+		int len = readLength(le.getInt());
+		if (le.remaining() < 4L * len) {
+			throw new BufferUnderflowException();
+		}
+		int[] mag = new int[len];
+		le.asIntBuffer().get(mag);
+		BigInteger x = toBigInteger(negative, mag);
+		in.position(le.position() + 4 * len);
+		return x;
+	}
+
+	static void write(BigInteger x, FileChannel channel) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(Math.min(size(x), CHANNEL_CHUNK)).order(ByteOrder.LITTLE_ENDIAN);
+		buf.put(VERSION).put((byte) (x.negative ? 1 : 0)).putInt(x.len);
+		int i = 0;
+		while (true) {
+			int n = Math.min(x.len - i, buf.remaining() / 4);
+			buf.asIntBuffer().put(x.mag, i, n);
+			buf.position(buf.position() + 4 * n);
+			i += n;
+			buf.flip();
+			while (buf.hasRemaining()) {
+				channel.write(buf);
+			}
+			if (i == x.len) {
+				return;
+			}
+			buf.clear();
+		}
+	}
+
+	static BigInteger read(FileChannel channel) throws IOException, IllegalArgumentException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, header);
+		header.flip();
+		boolean negative = readSign(header.get(), header.get());
+		int len = readLength(header.getInt());
+		long bytes = 4L * len;
+		long position = channel.position();
+		if (position + bytes > channel.size()) {
+			throw new EOFException("Truncated BigInteger data");
+		}
+
+		int[] mag = new int[len];
+		if (bytes >= MAP_THRESHOLD) {
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes);
+			map.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(mag);
+			channel.position(position + bytes);
+			return toBigInteger(negative, mag);
+		}
+
+		ByteBuffer buf = ByteBuffer.allocate((int) Math.min(Math.max(bytes, 4), CHANNEL_CHUNK))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < len;) {
+			int n = Math.min(len - i, buf.capacity() / 4);
+			buf.clear().limit(4 * n);
+			readFully(channel, buf);
+			buf.flip();
+			buf.asIntBuffer().get(mag, i, n);
+			i += n;
+		}
+		return toBigInteger(negative, mag);
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buf) throws IOException {
+		while (buf.hasRemaining()) {
+			if (channel.read(buf) < 0) {
+				throw new EOFException("Truncated BigInteger data");
+			}
+		}
+	}
+
+	private static boolean readSign(byte version, byte sign) throws IllegalArgumentException {
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported BigInteger format version: " + version);
+		}
+		if (sign != 0 && sign != 1) {
+			throw new IllegalArgumentException("Bad BigInteger sign byte: " + sign);
+		}
+		return sign == 1;
+	}
+
+	private static int readLength(int len) throws IllegalArgumentException {
+		if (len < 0) {
+			throw new IllegalArgumentException("Bad BigInteger limb count: " + len);
+		}
+		return len;
+	}
+
+	/**
+	 * Checks that every limb is in range, then wraps the limbs.
+	 */
+	private static BigInteger toBigInteger(boolean negative, int[] mag) throws IllegalArgumentException {
+		for (int limb : mag) {
+			if (limb < 0 || limb >= Limbs.BASE) {
+				throw new IllegalArgumentException("Bad BigInteger limb: " + limb);
+			}
+		}
+		return new BigInteger(negative, mag, mag.length);
+	}
+}
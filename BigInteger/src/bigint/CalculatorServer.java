@@ -0,0 +1,268 @@
+package bigint;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A long-running calculator service on a local TCP port, so that many jobs can share
+ * one warmed-up JVM instead of starting BigTest each time:
+ *
+ *    java -cp BigInteger/target/classes bigint.CalculatorServer [port]
+ *
+ * The protocol is line based and uses the operation lines of BigTest's batch mode
+ * (see BatchRunner): a client sends lines such as "multiply 123 456" and gets back
+ * one line per operation, the result or "error: " and the reason. Blank and comment
+ * lines get no response, and "quit" closes the connection. A line longer than
+ * MAX_LINE_LENGTH bytes is skipped up to its end and answered with "error: line
+ * too long", so one client cannot make the server buffer without bound.
+ *
+ * Clients may pipeline: send any number of requests without waiting for responses.
+ * Each connection is served by its own virtual thread, which answers requests in
+ * the order they came in and flushes its responses only when no complete request
+ * is left in its input buffer, so a pipelined burst is answered with few writes,
+ * and a client waiting for its responses always gets them.
+ */
+public final class CalculatorServer implements Closeable {
+
+	/**
+	 * Port used when none is given
+	 */
+	public static final int DEFAULT_PORT = 7112;
+
+	/**
+	 * Longest request line accepted, in bytes including its terminator: operands of
+	 * up to about 8 million digits each
+	 */
+	public static final int MAX_LINE_LENGTH = 1 << 24;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Returned by LineReader.readLine() for a line over the length limit
+	 */
+	private static final String TOO_LONG = new String("line too long");
+
+	private final ServerSocket server;
+	private final int maxLineLength;
+
+	/**
+	 * Opens the server on a port of the loopback interface. Connections are only
+	 * accepted once serve() is called.
+	 *
+	 * @param port Port to listen on, 0 for any free port
+	 * @throws IOException If the port cannot be opened
+	 */
+	public CalculatorServer(int port) throws IOException {
+		this(port, MAX_LINE_LENGTH);
+	}
+
+	/**
+	 * @param maxLineLength Longest request line accepted, in bytes including its
+	 *        terminator
+	 */
+	CalculatorServer(int port, int maxLineLength) throws IOException {
+		this.maxLineLength = maxLineLength;
+		server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 */
+	public int port() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Accepts connections until the server is closed, starting a virtual thread for
+	 * each.
+	 *
+	 * @throws IOException If accepting fails for a reason other than the server
+	 *         being closed
+	 */
+	public void serve() throws IOException {
+		while (!server.isClosed()) {
+			Socket socket;
+			try {
+				socket = server.accept();
+			} catch (SocketException e) {
+				if (server.isClosed()) {
+					return;
+				}
+				throw e;
+			}
+			Thread.ofVirtual().name("calculator-" + socket.getPort()).start(() -> handle(socket));
+		}
+	}
+
+	/**
+	 * Stops accepting connections. Connections already open run until their clients
+	 * close them.
+	 */
+	public void close() throws IOException {
+		server.close();
+	}
+
+	/**
+	 * Answers the requests of one connection, in order, until the client closes it
+	 * or sends quit.
+	 */
+	private void handle(Socket socket) {
+		try (Socket s = socket;
+				LineReader in = new LineReader(s.getInputStream(), maxLineLength);
+				BufferedWriter out = new BufferedWriter(
+						new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			s.setTcpNoDelay(true);
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				if (line == TOO_LONG) {
+					out.write("error: " + TOO_LONG);
+				} else {
+					String[] words = BatchRunner.split(line);
+					if (words == null) {
+						continue;
+					}
+					if (words.length == 1 && words[0].equalsIgnoreCase("quit")) {
+						break;
+					}
+					out.write(respond(words));
+				}
+				out.newLine();
+				//more complete requests waiting: answer them before flushing. Part of
+				//a line does not count, since its client may be waiting for these
+				//responses before it sends the rest
+				if (!in.hasLine()) {
+					out.flush();
+				}
+			}
+		} catch (IOException e) {
+			//the client went away; nothing to answer
+		}
+	}
+
+	/**
+	 * Reads UTF-8 lines, ended by \n or \r\n, and tells whether another whole line is
+	 * already buffered, which BufferedReader.ready() cannot: it is also true for part
+	 * of a line. Lines over the length limit are dropped as they are read, so the
+	 * buffer never grows past the limit.
+	 */
+	private static final class LineReader implements Closeable {
+
+		private final InputStream in;
+		private final int maxLineLength;
+		private byte[] buf;
+		private int start;
+		private int end;
+
+		/**
+		 * Index of the first byte from start not yet searched for a \n
+		 */
+		private int scanned;
+
+		/**
+		 * Whether the bytes before start belong to a line over the limit, whose rest
+		 * is being dropped
+		 */
+		private boolean skipping;
+
+		LineReader(InputStream in, int maxLineLength) {
+			this.in = in;
+			this.maxLineLength = maxLineLength;
+			buf = new byte[Math.min(BUFFER_SIZE, maxLineLength)];
+		}
+
+		/**
+		 * Returns true if a whole line can be read without blocking.
+		 */
+		boolean hasLine() {
+			while (scanned < end) {
+				if (buf[scanned] == '\n') {
+					return true;
+				}
+				scanned++;
+			}
+			return false;
+		}
+
+		/**
+		 * Returns the next line without its terminator, or null at the end of the
+		 * stream; a last line without a terminator is returned as well.
+		 *
+		 * @return The line, or TOO_LONG if it is longer than the limit
+		 */
+		String readLine() throws IOException {
+			while (!hasLine()) {
+				if (start > 0) {
+					System.arraycopy(buf, start, buf, 0, end - start);
+					end -= start;
+					scanned -= start;
+					start = 0;
+				}
+				if (end >= maxLineLength) {
+					//no terminator within the limit: drop the line read so far
+					skipping = true;
+					end = scanned = 0;
+				}
+				if (end == buf.length) {
+					buf = Arrays.copyOf(buf, Math.min(buf.length * 2, maxLineLength));
+				}
+				int n = in.read(buf, end, buf.length - end);
+				if (n < 0) {
+					if (skipping) {
+						skipping = false;
+						start = scanned = end;
+						return TOO_LONG;
+					}
+					if (start == end) {
+						return null;
+					}
+					String last = new String(buf, start, end - start, StandardCharsets.UTF_8);
+					start = scanned = end;
+					return last;
+				}
+				end += n;
+			}
+			int lineEnd = scanned > start && buf[scanned - 1] == '\r' ? scanned - 1 : scanned;
+			String line = skipping ? TOO_LONG : new String(buf, start, lineEnd - start, StandardCharsets.UTF_8);
+			skipping = false;
+			start = scanned = scanned + 1;
+			return line;
+		}
+
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the response line to an operation. Any failure is reported to the
+	 * client, including an OutOfMemoryError from a result too large to compute, whose
+	 * memory is released as it unwinds, so one request cannot take the connection
+	 * down without an answer.
+	 */
+	private static String respond(String[] words) {
+		try {
+			return BatchRunner.evaluate(words).toString();
+		} catch (Throwable e) {
+			return BatchRunner.error(e);
+		}
+	}
+
+	/**
+	 * Runs the server: CalculatorServer [port]
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		try (CalculatorServer server = new CalculatorServer(port)) {
+			System.err.println("Calculator listening on " + server.server.getLocalSocketAddress());
+			server.serve();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package bigint;
+
+import java.util.Arrays;
+
+/**
+ * Factorials and binomial coefficients, built from their prime factorizations and
+ * multiplied out with ProductTree.
+ *
+ * factorial uses Luschny's prime swing: n! = ((n/2)!)^2 * swing(n), where
+ * swing(n) = n! / ((n/2)!)^2 is a product of small prime powers read off the
+ * binary digits of n/p, n/p^2, ... So n! costs about log n squarings plus one
+ * product tree per level, instead of n - 1 multiplications.
+ *
+ * binomial(n, k) is the product of p^e over the primes up to n, with e the number
+ * of carries when adding k and n - k in base p (Kummer's theorem).
+ */
+final class Combinatorics {
+
+	/**
+	 * n! for every n whose factorial fits in a long
+	 */
+	private static final long[] SMALL_FACTORIALS = new long[21];
+
+	static {
+		SMALL_FACTORIALS[0] = 1;
+		for (int i = 1; i < SMALL_FACTORIALS.length; i++) {
+			SMALL_FACTORIALS[i] = SMALL_FACTORIALS[i - 1] * i;
+		}
+	}
+
+	private Combinatorics() {
+	}
+
+	static BigInteger factorial(int n) throws IllegalArgumentException {
+		if (n < 0) {
+			throw new IllegalArgumentException("Factorial of a negative number: " + n);
+		}
+		if (n < SMALL_FACTORIALS.length) {
+			return BigInteger.valueOf(SMALL_FACTORIALS[n]);
+		}
+		return factorial(n, primesUpTo(n));
+	}
+
+	private static BigInteger factorial(int n, int[] primes) {
+		if (n < SMALL_FACTORIALS.length) {
+			return BigInteger.valueOf(SMALL_FACTORIALS[n]);
+		}
+		BigInteger half = factorial(n / 2, primes);
+		return BigInteger.multiplyValues(BigInteger.multiplyValues(half, half), swing(n, primes));
+	}
+
+	/**
+	 * Returns n! / ((n/2)!)^2. The exponent of a prime p in it is the number of odd
+	 * values among n/p, n/p^2, ...; every prime power factor is at most n.
+	 */
+	private static BigInteger swing(int n, int[] primes) {
+		long[] factors = new long[primes.length];
+		int count = 0;
+		int root = (int) Math.sqrt(n);
+		for (int p : primes) {
+			if (p > n) {
+				break;
+			}
+			if (p > root) {
+				//only n/p can be non-zero
+				if (((n / p) & 1) != 0) {
+					factors[count++] = p;
+				}
+				continue;
+			}
+			long power = 1;
+			for (int q = n / p; q > 0; q /= p) {
+				if ((q & 1) != 0) {
+					power *= p;
+				}
+			}
+			if (power > 1) {
+				factors[count++] = power;
+			}
+		}
+		return ProductTree.productOf(Arrays.copyOf(factors, count));
+	}
+
+	static BigInteger binomial(int n, int k) throws IllegalArgumentException {
+		if (n < 0) {
+			throw new IllegalArgumentException("Binomial coefficient of a negative number: " + n);
+		}
+		if (k < 0 || k > n) {
+			return new BigInteger();
+		}
+		k = Math.min(k, n - k);
+		if (k == 0) {
+			return BigInteger.valueOf(1);
+		}
+
+		int[] primes = primesUpTo(n);
+		long[] factors = new long[primes.length];
+		int count = 0;
+		for (int p : primes) {
+			if (p > n - k) {
+				//k < p <= n: p divides the numerator once and the denominator not at all
+				factors[count++] = p;
+				continue;
+			}
+			long power = 1;
+			for (long pk = p; pk <= n; pk *= p) {
+				if (n / pk - k / pk - (n - k) / pk != 0) {
+					power *= p;
+				}
+			}
+			if (power > 1) {
+				factors[count++] = power;
+			}
+		}
+		return ProductTree.productOf(Arrays.copyOf(factors, count));
+	}
+
+	/**
+	 * Returns the primes up to n in increasing order, by the sieve of Eratosthenes
+	 * over the odd numbers.
+	 */
+	static int[] primesUpTo(int n) {
+		if (n < 2) {
+			return new int[0];
+		}
+		//composite[i] is true if 2i + 1 is composite
+		boolean[] composite = new boolean[n / 2 + 1];
+		for (long i = 3; i * i <= n; i += 2) {
+			if (!composite[(int) (i / 2)]) {
+				for (long j = i * i; j <= n; j += 2 * i) {
+					composite[(int) (j / 2)] = true;
+				}
+			}
+		}
+		int[] primes = new int[n / 2 + 1];
+		int count = 0;
+		primes[count++] = 2;
+		for (int i = 1; 2L * i + 1 <= n; i++) {
+			if (!composite[i]) {
+				primes[count++] = 2 * i + 1;
+			}
+		}
+		return Arrays.copyOf(primes, count);
+	}
+}
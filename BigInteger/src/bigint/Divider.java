@@ -0,0 +1,257 @@
+package bigint;
+
+import java.util.Arrays;
+
+/**
+ * Division of BigInteger magnitudes.
+ *
+ *    divisor of one limb                                  short division, O(n)
+ *    divisor below bigint.burnikelZieglerThreshold limbs  Knuth algorithm D, O(n*m)
+ *    anything larger                                      Burnikel-Ziegler, about 2*M(n) log n
+ *
+ * Burnikel-Ziegler recursive division splits the division into two half-size
+ * divisions of a 3n by 2n limb number, each of which costs one half-size division
+ * and one half-size multiplication, so large divisions keep pace with the fast
+ * multiply tiers. Its base case is Knuth algorithm D. The threshold counts
+ * base 10^9 limbs and can be set with -Dbigint.burnikelZieglerThreshold=...
+ */
+final class Divider {
+
+	/**
+	 * Below this many limbs in the divisor, Knuth algorithm D is used
+	 */
+	static final int BURNIKEL_ZIEGLER_THRESHOLD =
+			Math.max(4, Integer.getInteger("bigint.burnikelZieglerThreshold", 80));
+
+	/**
+	 * Burnikel-Ziegler only pays off when the quotient is at least this many limbs long
+	 */
+	static final int BURNIKEL_ZIEGLER_OFFSET = 40;
+
+	private Divider() {
+	}
+
+	/**
+	 * Divides magnitude a by the non-zero magnitude b.
+	 *
+	 * @return {quotient, remainder}, both as non-negative BigIntegers
+	 */
+	static BigInteger[] divideAndRemainder(int[] a, int alen, int[] b, int blen) {
+		if (Limbs.compare(a, alen, b, blen) < 0) {
+			return new BigInteger[] {new BigInteger(), new BigInteger(false, a, alen)};
+		}
+		if (blen == 1) {
+			int[] quotient = new int[alen];
+			int rem = Limbs.divideSmall(a, alen, b[0], quotient);
+			return new BigInteger[] {new BigInteger(false, quotient, alen),
+					new BigInteger(false, new int[] {rem}, 1)};
+		}
+		if (blen < BURNIKEL_ZIEGLER_THRESHOLD || alen - blen < BURNIKEL_ZIEGLER_OFFSET) {
+			return divideKnuth(a, alen, b, blen);
+		}
+		return divideBurnikelZiegler(new BigInteger(false, a, alen), new BigInteger(false, b, blen));
+	}
+
+	/**
+	 * Knuth's algorithm D (TAOCP vol. 2, 4.3.1) in base 10^9. The divisor must have
+	 * at least two limbs and must not be greater than the dividend.
+	 */
+	static BigInteger[] divideKnuth(int[] a, int alen, int[] b, int blen) {
+		final long base = Limbs.BASE;
+
+		//normalize so the top divisor limb is at least BASE/2, which keeps the
+		//quotient digit estimate at most two too large
+		int d = (int) (base / (b[blen - 1] + 1L));
+		int[] u = Limbs.multiply(a, alen, new int[] {d}, 1);
+		int[] v = Limbs.multiply(b, blen, new int[] {d}, 1);
+		int n = blen;
+		int m = alen - blen;
+		long vTop = v[n - 1];
+		long vNext = v[n - 2];
+
+		int[] q = new int[m + 1];
+		for (int j = m; j >= 0; j--) {
+			long num = u[j + n] * base + u[j + n - 1];
+			long qhat = num / vTop;
+			long rhat = num - qhat * vTop;
+			while (qhat >= base || qhat * vNext > rhat * base + u[j + n - 2]) {
+				qhat--;
+				rhat += vTop;
+				if (rhat >= base) {
+					break;
+				}
+			}
+
+			//u[j..j+n] -= qhat * v
+			long carry = 0;
+			int borrow = 0;
+			for (int i = 0; i < n; i++) {
+				long p = qhat * v[i] + carry;
+				carry = p / base;
+				long sub = u[i + j] - (p - carry * base) - borrow;
+				borrow = sub < 0 ? 1 : 0;
+				u[i + j] = (int) (sub + borrow * base);
+			}
+			long top = u[j + n] - carry - borrow;
+
+			if (top < 0) {
+				//qhat was one too large: add v back
+				qhat--;
+				int c = 0;
+				for (int i = 0; i < n; i++) {
+					int s = u[i + j] + v[i] + c;
+					c = s >= base ? 1 : 0;
+					u[i + j] = s - (int) (c * base);
+				}
+				top += c;
+			}
+			u[j + n] = (int) top;
+			q[j] = (int) qhat;
+		}
+
+		//the remainder is the low n limbs of u, scaled back down by d
+		Limbs.divideSmall(u, n, d, u);
+		return new BigInteger[] {new BigInteger(false, q, q.length), new BigInteger(false, u, n)};
+	}
+
+	/**
+	 * Burnikel-Ziegler division ("Fast Recursive Division", MPI-I-98-1-022) of a by
+	 * a divisor of at least BURNIKEL_ZIEGLER_THRESHOLD limbs.
+	 */
+	private static BigInteger[] divideBurnikelZiegler(BigInteger a, BigInteger b) {
+		int s = b.len;
+
+		//block size n = j * 2^k with j at most the threshold, so the recursion
+		//halves cleanly down to the Knuth base case
+		int m = 1;
+		while (m * BURNIKEL_ZIEGLER_THRESHOLD < s) {
+			m <<= 1;
+		}
+		int j = (s + m - 1) / m;
+		int n = j * m;
+
+		//normalize the divisor to exactly n limbs with its top limb at least BASE/2
+		int sigma = n - s;
+		int d = (int) (Limbs.BASE / (b.mag[s - 1] + 1L));
+		b = shiftLimbs(timesSmall(b, d), sigma);
+		a = shiftLimbs(timesSmall(a, d), sigma);
+
+		//t blocks of n limbs; the top block is shorter than n, so it is below b
+		int t = a.len / n + 1;
+		BigInteger z = BigInteger.addValues(shiftLimbs(block(a, t - 1, n), n), block(a, t - 2, n));
+		MutableBigInteger quotient = new MutableBigInteger(a.len - n + 2);
+		BigInteger r = null;
+		for (int i = t - 2; i >= 0; i--) {
+			BigInteger[] qr = divide2n1n(z, b, n);
+			quotient.addMagnitude(qr[0].mag, qr[0].len, i * n);
+			r = qr[1];
+			if (i > 0) {
+				z = BigInteger.addValues(shiftLimbs(r, n), block(a, i - 1, n));
+			}
+		}
+
+		//undo the normalization on the remainder: r = r' / (d * BASE^sigma)
+		int[] rem = Arrays.copyOfRange(r.mag, Math.min(sigma, r.len), r.len);
+		Limbs.divideSmall(rem, rem.length, d, rem);
+		return new BigInteger[] {quotient.toBigInteger(), new BigInteger(false, rem, rem.length)};
+	}
+
+	/**
+	 * Divides a 2n-limb number a by the normalized n-limb b, where a < b * BASE^n.
+	 */
+	private static BigInteger[] divide2n1n(BigInteger a, BigInteger b, int n) {
+		if (n % 2 != 0 || n < BURNIKEL_ZIEGLER_THRESHOLD) {
+			if (Limbs.compare(a.mag, a.len, b.mag, b.len) < 0) {
+				return new BigInteger[] {new BigInteger(), a};
+			}
+			return divideKnuth(a.mag, a.len, b.mag, b.len);
+		}
+		int half = n / 2;
+
+		//a = [a1, a2, a3, a4] in half-size blocks: divide [a1, a2, a3] first, then
+		//bring down a4 next to the remainder
+		BigInteger[] qr1 = divide3n2n(high(a, half), b, half);
+		BigInteger[] qr2 = divide3n2n(BigInteger.addValues(shiftLimbs(qr1[1], half), low(a, half)), b, half);
+		return new BigInteger[] {BigInteger.addValues(shiftLimbs(qr1[0], half), qr2[0]), qr2[1]};
+	}
+
+	/**
+	 * Divides a 3n-limb number a by the normalized 2n-limb b, where a < b * BASE^n.
+	 */
+	private static BigInteger[] divide3n2n(BigInteger a, BigInteger b, int n) {
+		BigInteger a1 = high(a, 2 * n);
+		BigInteger a12 = high(a, n);
+		BigInteger b1 = high(b, n);
+		BigInteger b2 = low(b, n);
+
+		BigInteger q;
+		BigInteger r1;
+		if (Limbs.compare(a1.mag, a1.len, b1.mag, b1.len) < 0) {
+			BigInteger[] qr = divide2n1n(a12, b1, n);
+			q = qr[0];
+			r1 = qr[1];
+		} else {
+			//the quotient estimate saturates at BASE^n - 1
+			q = ones(n);
+			r1 = BigInteger.addValues(BigInteger.addValues(a12, shiftLimbs(b1, n).negate()), b1);
+		}
+
+		BigInteger r = BigInteger.addValues(BigInteger.addValues(shiftLimbs(r1, n), low(a, n)),
+				BigInteger.multiplyValues(q, b2).negate());
+		BigInteger one = new BigInteger(false, new int[] {1}, 1);
+		while (r.negative) {
+			r = BigInteger.addValues(r, b);
+			q = BigInteger.addValues(q, one.negate());
+		}
+		return new BigInteger[] {q, r};
+	}
+
+	/**
+	 * Returns limb block i (of n limbs each) of x.
+	 */
+	private static BigInteger block(BigInteger x, int i, int n) {
+		int from = Math.min(x.len, i * n);
+		int to = Math.min(x.len, from + n);
+		return new BigInteger(false, Arrays.copyOfRange(x.mag, from, to), to - from);
+	}
+
+	/**
+	 * Returns the low n limbs of x.
+	 */
+	private static BigInteger low(BigInteger x, int n) {
+		return block(x, 0, n);
+	}
+
+	/**
+	 * Returns x with its low n limbs dropped.
+	 */
+	private static BigInteger high(BigInteger x, int n) {
+		if (x.len <= n) {
+			return new BigInteger();
+		}
+		return new BigInteger(x.negative, Arrays.copyOfRange(x.mag, n, x.len), x.len - n);
+	}
+
+	/**
+	 * Returns x * BASE^n.
+	 */
+	static BigInteger shiftLimbs(BigInteger x, int n) {
+		if (x.len == 0 || n == 0) {
+			return x;
+		}
+		int[] shifted = new int[x.len + n];
+		System.arraycopy(x.mag, 0, shifted, n, x.len);
+		return new BigInteger(x.negative, shifted, shifted.length);
+	}
+
+	private static BigInteger timesSmall(BigInteger x, int factor) {
+		int[] product = Limbs.multiply(x.mag, x.len, new int[] {factor}, 1);
+		return new BigInteger(x.negative, product, product.length);
+	}
+
+	private static BigInteger ones(int n) {
+		int[] nines = new int[n];
+		Arrays.fill(nines, Limbs.BASE - 1);
+		return new BigInteger(false, nines, n);
+	}
+}
@@ -0,0 +1,66 @@
+package bigint;
+
+/**
+ * A node of a parsed Expression. Nodes are built only through ExpressionParser,
+ * which interns them: two nodes for the same subexpression (up to the order of
+ * terms in a sum or factors in a product) are the same object, and a node always
+ * has a larger id than its operands.
+ */
+final class ExprNode {
+
+	static final int CONSTANT = 0;
+	static final int VARIABLE = 1;
+
+	/**
+	 * Sum of any number of terms, each added or subtracted
+	 */
+	static final int SUM = 2;
+
+	/**
+	 * Product of any number of factors
+	 */
+	static final int PRODUCT = 3;
+	static final int DIVIDE = 4;
+	static final int REMAINDER = 5;
+	static final int POWER = 6;
+
+	final int kind;
+
+	/**
+	 * Position in the order of creation
+	 */
+	final int id;
+
+	/**
+	 * Value of a CONSTANT
+	 */
+	final BigInteger value;
+
+	/**
+	 * Name of a VARIABLE
+	 */
+	final String name;
+
+	/**
+	 * Operands of the other kinds; for DIVIDE, REMAINDER and POWER exactly two
+	 */
+	final ExprNode[] operands;
+
+	/**
+	 * For a SUM, true for each term that is subtracted
+	 */
+	final boolean[] negated;
+
+	ExprNode(int kind, int id, BigInteger value, String name, ExprNode[] operands, boolean[] negated) {
+		this.kind = kind;
+		this.id = id;
+		this.value = value;
+		this.name = name;
+		this.operands = operands;
+		this.negated = negated;
+	}
+
+	boolean isConstant() {
+		return kind == CONSTANT;
+	}
+}
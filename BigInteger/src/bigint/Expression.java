@@ -0,0 +1,287 @@
+package bigint;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A formula over BigIntegers, parsed and compiled once and then evaluated any
+ * number of times with different values for its variables:
+ *
+ *    Expression e = Expression.parse("(a + b) * (a + b) - 3 * c % 7");
+ *    BigInteger r = e.evaluate(a, b, c);
+ *
+ * Formulas use + - * / % ^ on integers and variables, with parentheses, and the
+ * usual precedence; / and % truncate like BigInteger.divide and remainder, and ^
+ * is a power with a non-negative exponent. Parsing simplifies the formula (see
+ * ExpressionParser) and merges identical subexpressions, so in the formula above
+ * a + b is computed once and the product is a square.
+ *
+ * The compiled form is a straight-line program with one register per distinct
+ * subexpression. An Expression is immutable and can be evaluated from several
+ * threads at once.
+ */
+public final class Expression {
+
+	private final String formula;
+	private final String[] variables;
+
+	/**
+	 * Per register: kind of node (ExprNode constants), registers of its operands,
+	 * subtracted terms of a sum, value of a constant and index of a variable
+	 */
+	private final int[] kinds;
+	private final int[][] operands;
+	private final boolean[][] negated;
+	private final BigInteger[] constants;
+	private final int[] variableIndices;
+
+	private Expression(String formula, ExprNode root, List<String> variables) {
+		this.formula = formula;
+		this.variables = variables.toArray(new String[0]);
+
+		//collect the nodes the root depends on; folding leaves some nodes unused
+		ExprNode[] program = new ExprNode[root.id + 1];
+		collect(root, program);
+		int[] register = new int[root.id + 1];
+		int count = 0;
+		for (int id = 0; id <= root.id; id++) {
+			if (program[id] != null) {
+				register[id] = count;
+				program[count++] = program[id];
+			}
+		}
+
+		//operands have smaller ids, so registers in id order are in evaluation order
+		kinds = new int[count];
+		operands = new int[count][];
+		negated = new boolean[count][];
+		constants = new BigInteger[count];
+		variableIndices = new int[count];
+		for (int i = 0; i < count; i++) {
+			ExprNode node = program[i];
+			kinds[i] = node.kind;
+			constants[i] = node.value;
+			negated[i] = node.negated;
+			if (node.kind == ExprNode.VARIABLE) {
+				variableIndices[i] = variables.indexOf(node.name);
+			}
+			if (node.operands != null) {
+				operands[i] = new int[node.operands.length];
+				for (int j = 0; j < node.operands.length; j++) {
+					operands[i][j] = register[node.operands[j].id];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stores every used node at the index of its id.
+	 */
+	private static void collect(ExprNode node, ExprNode[] nodes) {
+		if (nodes[node.id] != null) {
+			return;
+		}
+		nodes[node.id] = node;
+		if (node.operands != null) {
+			for (ExprNode operand : node.operands) {
+				collect(operand, nodes);
+			}
+		}
+	}
+
+	/**
+	 * Parses and compiles a formula.
+	 *
+	 * @param formula Formula such as "x^2 - 4*x*y + 7"
+	 * @return Compiled expression
+	 * @throws IllegalArgumentException If the formula is incorrectly formatted
+	 */
+	public static Expression parse(String formula) throws IllegalArgumentException {
+		ExpressionParser parser = new ExpressionParser(formula);
+		ExprNode root = parser.parse();
+		return new Expression(formula, root, parser.variables());
+	}
+
+	/**
+	 * Returns the names of the variables in the formula, in order of first
+	 * appearance, which is the order evaluate(BigInteger...) takes their values in.
+	 * Variables that simplification removed, such as x in "x - x", are still listed.
+	 *
+	 * @return Unmodifiable list of variable names
+	 */
+	public List<String> variables() {
+		return Collections.unmodifiableList(Arrays.asList(variables));
+	}
+
+	/**
+	 * Returns the number of operations a single evaluation performs, after
+	 * simplification and merging of identical subexpressions.
+	 *
+	 * @return Number of sums, products, divisions, remainders and powers
+	 */
+	public int operationCount() {
+		int n = 0;
+		for (int kind : kinds) {
+			if (kind != ExprNode.CONSTANT && kind != ExprNode.VARIABLE) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Evaluates the formula with the variables bound by name.
+	 *
+	 * @param bindings Value of each variable; extra entries are ignored
+	 * @return Value of the formula
+	 * @throws IllegalArgumentException If a variable of the formula has no value
+	 * @throws ArithmeticException If the formula divides by zero or raises to a
+	 *         negative power
+	 */
+	public BigInteger evaluate(Map<String, BigInteger> bindings)
+			throws IllegalArgumentException, ArithmeticException {
+		BigInteger[] values = new BigInteger[variables.length];
+		for (int i = 0; i < variables.length; i++) {
+			values[i] = bindings.get(variables[i]);
+			if (values[i] == null) {
+				throw new IllegalArgumentException("No value for variable " + variables[i]);
+			}
+		}
+		return evaluate(values);
+	}
+
+	/**
+	 * Evaluates the formula with the variables bound in the order of variables().
+	 *
+	 * @param values One value per variable
+	 * @return Value of the formula
+	 * @throws IllegalArgumentException If the number of values is wrong or one is null
+	 * @throws ArithmeticException If the formula divides by zero or raises to a
+	 *         negative power
+	 */
+	public BigInteger evaluate(BigInteger... values) throws IllegalArgumentException, ArithmeticException {
+		return run(values, new BigInteger[kinds.length], new MutableBigInteger());
+	}
+
+	/**
+	 * Evaluates the formula once per row of values, reusing the registers and
+	 * scratch space of one evaluation for the next.
+	 *
+	 * @param bindings One row per evaluation, each bound like evaluate(BigInteger...)
+	 * @return Value of the formula for each row
+	 * @throws IllegalArgumentException If a row has the wrong number of values or a null
+	 * @throws ArithmeticException If the formula divides by zero or raises to a
+	 *         negative power for some row
+	 */
+	public BigInteger[] evaluateAll(BigInteger[][] bindings) throws IllegalArgumentException, ArithmeticException {
+		BigInteger[] registers = new BigInteger[kinds.length];
+		MutableBigInteger acc = new MutableBigInteger();
+		BigInteger[] results = new BigInteger[bindings.length];
+		for (int i = 0; i < bindings.length; i++) {
+			results[i] = run(bindings[i], registers, acc);
+		}
+		return results;
+	}
+
+	private BigInteger run(BigInteger[] values, BigInteger[] registers, MutableBigInteger acc) {
+		if (values.length != variables.length) {
+			throw new IllegalArgumentException("Expected " + variables.length + " values, got " + values.length);
+		}
+		for (int i = 0; i < kinds.length; i++) {
+			int[] ops = operands[i];
+			switch (kinds[i]) {
+			case ExprNode.CONSTANT:
+				registers[i] = constants[i];
+				break;
+			case ExprNode.VARIABLE:
+				registers[i] = values[variableIndices[i]];
+				if (registers[i] == null) {
+					throw new IllegalArgumentException("No value for variable " + variables[variableIndices[i]]);
+				}
+				break;
+			case ExprNode.SUM:
+				registers[i] = sum(ops, negated[i], registers, acc);
+				break;
+			case ExprNode.PRODUCT:
+				registers[i] = product(ops, registers);
+				break;
+			case ExprNode.DIVIDE:
+				registers[i] = BigInteger.divide(registers[ops[0]], registers[ops[1]]);
+				break;
+			case ExprNode.REMAINDER:
+				registers[i] = BigInteger.remainder(registers[ops[0]], registers[ops[1]]);
+				break;
+			default:
+				registers[i] = power(registers[ops[0]], registers[ops[1]]);
+				break;
+			}
+		}
+		BigInteger result = registers[kinds.length - 1];
+		//drop references to this evaluation's values
+		Arrays.fill(registers, null);
+		return result;
+	}
+
+	private static BigInteger sum(int[] ops, boolean[] negated, BigInteger[] registers, MutableBigInteger acc) {
+		if (ops.length == 2) {
+			BigInteger a = registers[ops[0]];
+			BigInteger b = registers[ops[1]];
+			if (negated[0]) {
+				return negated[1] ? BigInteger.add(a, b).negate() : BigInteger.add(a.negate(), b);
+			}
+			return BigInteger.add(a, negated[1] ? b.negate() : b);
+		}
+		if (ops.length == 1) {
+			BigInteger a = registers[ops[0]];
+			return negated[0] ? a.negate() : a;
+		}
+		//accumulate in place instead of building a BigInteger per term
+		acc.clear();
+		for (int j = 0; j < ops.length; j++) {
+			if (negated[j]) {
+				acc.subtractInPlace(registers[ops[j]]);
+			} else {
+				acc.addInPlace(registers[ops[j]]);
+			}
+		}
+		return acc.toBigInteger();
+	}
+
+	private static BigInteger product(int[] ops, BigInteger[] registers) {
+		if (ops.length > 3) {
+			BigInteger[] factors = new BigInteger[ops.length];
+			for (int j = 0; j < ops.length; j++) {
+				factors[j] = registers[ops[j]];
+			}
+			return ProductTree.productOf(factors, factors.length);
+		}
+		BigInteger p = registers[ops[0]];
+		for (int j = 1; j < ops.length; j++) {
+			p = BigInteger.multiply(p, registers[ops[j]]);
+		}
+		return p;
+	}
+
+	private static BigInteger power(BigInteger base, BigInteger exponent) {
+		if (exponent.negative) {
+			throw new ArithmeticException("BigInteger negative exponent");
+		}
+		if (exponent.compact == BigInteger.INFLATED || exponent.compact > Integer.MAX_VALUE) {
+			//only 0, 1 and -1 have powers this large that fit in memory
+			if (base.len == 0 || (base.len == 1 && base.mag[0] == 1)) {
+				return base.negative && (exponent.mag[0] & 1) == 0 ? base.negate() : base;
+			}
+			throw new ArithmeticException("BigInteger exponent too large");
+		}
+		return base.pow((int) exponent.compact);
+	}
+
+	/**
+	 * Returns the formula this expression was parsed from.
+	 */
+	public String toString() {
+		return formula;
+	}
+}
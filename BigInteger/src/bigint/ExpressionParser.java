@@ -0,0 +1,359 @@
+package bigint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recursive descent parser for Expression formulas, which simplifies the tree as
+ * it builds it:
+ *
+ *    - sums and products are flattened, so a - (b - c) is one sum of three terms
+ *    - constant terms and factors are folded into one constant, and operations on
+ *      constants only are computed right away
+ *    - repeated terms and factors are counted, so x + x becomes 2*x, x - x vanishes
+ *      and x*x becomes x^2 (which is evaluated as a square)
+ *    - x*1, x+0, x/1, x^1 and x^0 are simplified; x*0 and x%1 become 0 without x
+ *      being evaluated
+ *    - every node is interned, so identical subexpressions, including sums and
+ *      products written in a different order, are one node that is evaluated once
+ *
+ * Grammar, loosest binding first; ^ is right associative and binds tighter than
+ * a unary sign, so -2^2 is -4:
+ *
+ *    sum      := product (('+' | '-') product)*
+ *    product  := unary (('*' | '/' | '%') unary)*
+ *    unary    := ('+' | '-') unary | power
+ *    power    := primary ('^' unary)?
+ *    primary  := integer | variable | '(' sum ')'
+ */
+final class ExpressionParser {
+
+	/**
+	 * Powers of constants are only folded when the result has at most about this
+	 * many digits; larger ones are left to the evaluation
+	 */
+	private static final long MAX_FOLDED_DIGITS = 100000;
+
+	private static final BigInteger ZERO = BigInteger.valueOf(0);
+	private static final BigInteger ONE = BigInteger.valueOf(1);
+
+	private final String formula;
+	private int pos;
+
+	/**
+	 * Nodes by key, and in order of creation
+	 */
+	private final Map<String, ExprNode> interned = new HashMap<String, ExprNode>();
+	private final List<ExprNode> nodes = new ArrayList<ExprNode>();
+
+	/**
+	 * Variable names in order of first appearance
+	 */
+	private final List<String> variables = new ArrayList<String>();
+
+	ExpressionParser(String formula) {
+		this.formula = formula;
+	}
+
+	/**
+	 * Parses the whole formula.
+	 *
+	 * @return Root of the simplified tree
+	 * @throws IllegalArgumentException If the formula is incorrectly formatted
+	 */
+	ExprNode parse() throws IllegalArgumentException {
+		ExprNode root = parseSum();
+		skipSpaces();
+		if (pos < formula.length()) {
+			throw unexpected();
+		}
+		return root;
+	}
+
+	List<String> variables() {
+		return variables;
+	}
+
+	private ExprNode parseSum() {
+		ExprNode node = parseProduct();
+		for (char c = peek(); c == '+' || c == '-'; c = peek()) {
+			pos++;
+			node = sum(node, parseProduct(), c == '-');
+		}
+		return node;
+	}
+
+	private ExprNode parseProduct() {
+		ExprNode node = parseUnary();
+		for (char c = peek(); c == '*' || c == '/' || c == '%'; c = peek()) {
+			pos++;
+			ExprNode right = parseUnary();
+			if (c == '*') {
+				node = product(node, right);
+			} else if (c == '/') {
+				node = divide(node, right);
+			} else {
+				node = remainder(node, right);
+			}
+		}
+		return node;
+	}
+
+	private ExprNode parseUnary() {
+		char c = peek();
+		if (c == '-') {
+			pos++;
+			return sum(constant(ZERO), parseUnary(), true);
+		}
+		if (c == '+') {
+			pos++;
+			return parseUnary();
+		}
+		return parsePower();
+	}
+
+	private ExprNode parsePower() {
+		ExprNode base = parsePrimary();
+		if (peek() == '^') {
+			pos++;
+			return power(base, parseUnary());
+		}
+		return base;
+	}
+
+	private ExprNode parsePrimary() {
+		char c = peek();
+		if (c == '(') {
+			pos++;
+			ExprNode node = parseSum();
+			if (peek() != ')') {
+				throw unexpected();
+			}
+			pos++;
+			return node;
+		}
+		int start = pos;
+		if (c >= '0' && c <= '9') {
+			while (pos < formula.length() && formula.charAt(pos) >= '0' && formula.charAt(pos) <= '9') {
+				pos++;
+			}
+			return constant(BigInteger.parseValues(formula.substring(start, pos), 10));
+		}
+		if (Character.isLetter(c) || c == '_') {
+			while (pos < formula.length()
+					&& (Character.isLetterOrDigit(formula.charAt(pos)) || formula.charAt(pos) == '_')) {
+				pos++;
+			}
+			return variable(formula.substring(start, pos));
+		}
+		throw unexpected();
+	}
+
+	/**
+	 * Skips spaces and returns the next character, or 0 at the end of the formula.
+	 */
+	private char peek() {
+		skipSpaces();
+		return pos < formula.length() ? formula.charAt(pos) : 0;
+	}
+
+	private void skipSpaces() {
+		while (pos < formula.length() && formula.charAt(pos) <= ' ') {
+			pos++;
+		}
+	}
+
+	private IllegalArgumentException unexpected() {
+		if (pos >= formula.length()) {
+			return new IllegalArgumentException("Unexpected end of formula \"" + formula + "\"");
+		}
+		return new IllegalArgumentException("Unexpected '" + formula.charAt(pos) + "' at position " + pos
+				+ " of formula \"" + formula + "\"");
+	}
+
+	private ExprNode constant(BigInteger value) {
+		String key = "c" + value;
+		ExprNode node = interned.get(key);
+		return node != null ? node : intern(key, ExprNode.CONSTANT, value, null, null, null);
+	}
+
+	private ExprNode variable(String name) {
+		String key = "v" + name;
+		ExprNode node = interned.get(key);
+		if (node != null) {
+			return node;
+		}
+		variables.add(name);
+		return intern(key, ExprNode.VARIABLE, null, name, null, null);
+	}
+
+	/**
+	 * Returns a + b, or a - b if subtract is true.
+	 */
+	private ExprNode sum(ExprNode a, ExprNode b, boolean subtract) {
+		//net count of each non-constant term, by id so the order is canonical
+		Map<ExprNode, Long> counts = new TreeMap<ExprNode, Long>((x, y) -> Integer.compare(x.id, y.id));
+		BigInteger[] constant = {ZERO};
+		addTerms(a, false, counts, constant);
+		addTerms(b, subtract, counts, constant);
+
+		List<ExprNode> terms = new ArrayList<ExprNode>();
+		List<Boolean> signs = new ArrayList<Boolean>();
+		if (constant[0].len != 0) {
+			terms.add(constant(constant[0]));
+			signs.add(false);
+		}
+		for (Map.Entry<ExprNode, Long> entry : counts.entrySet()) {
+			long count = entry.getValue();
+			if (count == 0) {
+				continue;
+			}
+			ExprNode term = entry.getKey();
+			if (Math.abs(count) > 1) {
+				term = product(constant(BigInteger.valueOf(Math.abs(count))), term);
+			}
+			terms.add(term);
+			signs.add(count < 0);
+		}
+		if (terms.isEmpty()) {
+			return constant(ZERO);
+		}
+		if (terms.size() == 1 && !signs.get(0)) {
+			return terms.get(0);
+		}
+
+		StringBuilder key = new StringBuilder("s");
+		ExprNode[] operands = terms.toArray(new ExprNode[0]);
+		boolean[] negated = new boolean[operands.length];
+		for (int i = 0; i < operands.length; i++) {
+			negated[i] = signs.get(i);
+			key.append(negated[i] ? '-' : '+').append(operands[i].id);
+		}
+		ExprNode node = interned.get(key.toString());
+		return node != null ? node : intern(key.toString(), ExprNode.SUM, null, null, operands, negated);
+	}
+
+	private static void addTerms(ExprNode x, boolean subtract, Map<ExprNode, Long> counts, BigInteger[] constant) {
+		if (x.kind == ExprNode.SUM) {
+			for (int i = 0; i < x.operands.length; i++) {
+				addTerm(x.operands[i], subtract != x.negated[i], counts, constant);
+			}
+		} else {
+			addTerm(x, subtract, counts, constant);
+		}
+	}
+
+	private static void addTerm(ExprNode x, boolean subtract, Map<ExprNode, Long> counts, BigInteger[] constant) {
+		if (x.isConstant()) {
+			constant[0] = BigInteger.addValues(constant[0], subtract ? x.value.negate() : x.value);
+		} else {
+			counts.merge(x, subtract ? -1L : 1L, Long::sum);
+		}
+	}
+
+	private ExprNode product(ExprNode a, ExprNode b) {
+		Map<ExprNode, Integer> counts = new TreeMap<ExprNode, Integer>((x, y) -> Integer.compare(x.id, y.id));
+		BigInteger[] constant = {ONE};
+		addFactors(a, counts, constant);
+		addFactors(b, counts, constant);
+		if (constant[0].len == 0) {
+			return constant(ZERO);
+		}
+
+		List<ExprNode> factors = new ArrayList<ExprNode>();
+		if (constant[0].compareTo(ONE) != 0) {
+			factors.add(constant(constant[0]));
+		}
+		for (Map.Entry<ExprNode, Integer> entry : counts.entrySet()) {
+			ExprNode factor = entry.getKey();
+			int count = entry.getValue();
+			factors.add(count == 1 ? factor : power(factor, constant(BigInteger.valueOf(count))));
+		}
+		if (factors.isEmpty()) {
+			return constant(ONE);
+		}
+		if (factors.size() == 1) {
+			return factors.get(0);
+		}
+
+		StringBuilder key = new StringBuilder("p");
+		ExprNode[] operands = factors.toArray(new ExprNode[0]);
+		for (ExprNode factor : operands) {
+			key.append(',').append(factor.id);
+		}
+		ExprNode node = interned.get(key.toString());
+		return node != null ? node : intern(key.toString(), ExprNode.PRODUCT, null, null, operands, null);
+	}
+
+	private static void addFactors(ExprNode x, Map<ExprNode, Integer> counts, BigInteger[] constant) {
+		if (x.kind != ExprNode.PRODUCT) {
+			addFactor(x, counts, constant);
+			return;
+		}
+		for (ExprNode factor : x.operands) {
+			addFactor(factor, counts, constant);
+		}
+	}
+
+	private static void addFactor(ExprNode x, Map<ExprNode, Integer> counts, BigInteger[] constant) {
+		if (x.isConstant()) {
+			constant[0] = BigInteger.multiplyValues(constant[0], x.value);
+		} else {
+			counts.merge(x, 1, Integer::sum);
+		}
+	}
+
+	private ExprNode divide(ExprNode a, ExprNode b) {
+		if (b.isConstant() && b.value.compareTo(ONE) == 0) {
+			return a;
+		}
+		if (a.isConstant() && b.isConstant() && b.value.len != 0) {
+			return constant(BigInteger.divideValues(a.value, b.value)[0]);
+		}
+		return binary(ExprNode.DIVIDE, "d", a, b);
+	}
+
+	private ExprNode remainder(ExprNode a, ExprNode b) {
+		if (b.isConstant() && b.value.len == 1 && b.value.mag[0] == 1) {
+			return constant(ZERO);
+		}
+		if (a.isConstant() && b.isConstant() && b.value.len != 0) {
+			return constant(BigInteger.divideValues(a.value, b.value)[1]);
+		}
+		return binary(ExprNode.REMAINDER, "r", a, b);
+	}
+
+	private ExprNode power(ExprNode a, ExprNode b) {
+		if (b.isConstant() && !b.value.negative && b.value.compact != BigInteger.INFLATED
+				&& b.value.compact <= Integer.MAX_VALUE) {
+			int exponent = (int) b.value.compact;
+			if (exponent == 0) {
+				return constant(ONE);
+			}
+			if (exponent == 1) {
+				return a;
+			}
+			if (a.isConstant() && (long) a.value.numDigits * exponent <= MAX_FOLDED_DIGITS) {
+				return constant(a.value.pow(exponent));
+			}
+		}
+		return binary(ExprNode.POWER, "^", a, b);
+	}
+
+	private ExprNode binary(int kind, String tag, ExprNode a, ExprNode b) {
+		String key = tag + a.id + "," + b.id;
+		ExprNode node = interned.get(key);
+		return node != null ? node : intern(key, kind, null, null, new ExprNode[] {a, b}, null);
+	}
+
+	private ExprNode intern(String key, int kind, BigInteger value, String name, ExprNode[] operands,
+			boolean[] negated) {
+		ExprNode node = new ExprNode(kind, nodes.size(), value, name, operands, negated);
+		nodes.add(node);
+		interned.put(key, node);
+		return node;
+	}
+}
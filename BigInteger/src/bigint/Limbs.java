@@ -0,0 +1,293 @@
+package bigint;
+
+/**
+ * Static helpers that work on the packed magnitude of a BigInteger: an array of
+ * base 10^9 limbs, stored with the Least Significant limb FIRST. Only the first
+ * <code>len</code> entries of an array are significant, and a normalized magnitude
+ * has no zero limb at index len-1.
+ *
+ * None of these methods look at signs - that is left to BigInteger.
+ */
+final class Limbs {
+
+	/**
+	 * Radix of a single limb
+	 */
+	static final int BASE = 1000000000;
+
+	/**
+	 * Number of decimal digits held by a full limb
+	 */
+	static final int BASE_DIGITS = 9;
+
+	/**
+	 * Powers of ten that fit in a limb, POW10[i] = 10^i
+	 */
+	static final int[] POW10 = {
+		1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+	};
+
+	/**
+	 * Shared magnitude of the zero valued integer
+	 */
+	static final int[] EMPTY = new int[0];
+
+	/**
+	 * True if add, subtract and multiplySmall use the SIMD loops of VectorLimbs. That
+	 * needs the incubating jdk.incubator.vector module, which is only there when the
+	 * JVM runs with --add-modules jdk.incubator.vector; otherwise, or with
+	 * -Dbigint.vector=false, the scalar loops are used and VectorLimbs is never loaded.
+	 */
+	static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+			&& !"false".equals(System.getProperty("bigint.vector"));
+
+	/**
+	 * Shortest operand, in limbs, for which the SIMD loops are used; below it the
+	 * scalar loop is as fast
+	 */
+	static final int VECTOR_THRESHOLD = Math.max(2, Integer.getInteger("bigint.vectorThreshold", 32));
+
+	private Limbs() {
+	}
+
+	/**
+	 * Returns the number of significant limbs in the first len entries of a,
+	 * i.e. len with the leading (most significant) zero limbs dropped.
+	 *
+	 * @param a Magnitude
+	 * @param len Number of limbs to consider
+	 * @return Normalized length
+	 */
+	static int normalize(int[] a, int len) {
+		while (len > 0 && a[len - 1] == 0) {
+			len--;
+		}
+		return len;
+	}
+
+	/**
+	 * Returns the number of decimal digits in a normalized magnitude.
+	 *
+	 * @param a Magnitude
+	 * @param len Number of significant limbs
+	 * @return Number of decimal digits, 0 for the zero magnitude
+	 */
+	static int digitCount(int[] a, int len) {
+		if (len == 0) {
+			return 0;
+		}
+		int top = a[len - 1];
+		int digits = 1;
+		while (digits < BASE_DIGITS && top >= POW10[digits]) {
+			digits++;
+		}
+		return (len - 1) * BASE_DIGITS + digits;
+	}
+
+	/**
+	 * Compares two normalized magnitudes.
+	 *
+	 * @return Negative, zero or positive as a is less than, equal to or greater than b
+	 */
+	static int compare(int[] a, int alen, int[] b, int blen) {
+		if (alen != blen) {
+			return alen < blen ? -1 : 1;
+		}
+		for (int i = alen - 1; i >= 0; i--) {
+			if (a[i] != b[i]) {
+				return a[i] < b[i] ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds two magnitudes into a new array of max(alen, blen)+1 limbs. The top limb
+	 * of the result holds the final carry and may be zero.
+	 */
+	static int[] add(int[] a, int alen, int[] b, int blen) {
+		if (alen < blen) {
+			int[] t = a; a = b; b = t;
+			int tl = alen; alen = blen; blen = tl;
+		}
+		if (VECTOR && blen >= VECTOR_THRESHOLD) {
+			return VectorLimbs.add(a, alen, b, blen);
+		}
+		int[] sum = new int[alen + 1];
+		int carry = 0;
+		int i = 0;
+		for (; i < blen; i++) {
+			int s = a[i] + b[i] + carry;
+			carry = s >= BASE ? 1 : 0;
+			sum[i] = s - (carry * BASE);
+		}
+		for (; i < alen; i++) {
+			int s = a[i] + carry;
+			carry = s >= BASE ? 1 : 0;
+			sum[i] = s - (carry * BASE);
+		}
+		sum[alen] = carry;
+		return sum;
+	}
+
+	/**
+	 * Subtracts magnitude b from magnitude a into a new array of alen limbs.
+	 * The caller must make sure that a >= b.
+	 */
+	static int[] subtract(int[] a, int alen, int[] b, int blen) {
+		if (VECTOR && blen >= VECTOR_THRESHOLD) {
+			return VectorLimbs.subtract(a, alen, b, blen);
+		}
+		int[] diff = new int[alen];
+		int borrow = 0;
+		int i = 0;
+		for (; i < blen; i++) {
+			int d = a[i] - b[i] - borrow;
+			borrow = d < 0 ? 1 : 0;
+			diff[i] = d + (borrow * BASE);
+		}
+		for (; i < alen; i++) {
+			int d = a[i] - borrow;
+			borrow = d < 0 ? 1 : 0;
+			diff[i] = d + (borrow * BASE);
+		}
+		return diff;
+	}
+
+	/**
+	 * Multiplies a magnitude by a factor in [0, 10^9) into a new array of alen+1
+	 * limbs. The top limb of the result may be zero.
+	 */
+	static int[] multiplySmall(int[] a, int alen, int factor) {
+		if (VECTOR && alen >= VECTOR_THRESHOLD) {
+			return VectorLimbs.multiplySmall(a, alen, factor);
+		}
+		int[] product = new int[alen + 1];
+		long carry = 0;
+		for (int i = 0; i < alen; i++) {
+			long t = (long) a[i] * factor + carry;
+			carry = t / BASE;
+			product[i] = (int) (t - carry * BASE);
+		}
+		product[alen] = (int) carry;
+		return product;
+	}
+
+	/**
+	 * Schoolbook product of two magnitudes into a new array of alen+blen limbs.
+	 * The top limb of the result may be zero.
+	 */
+	static int[] multiply(int[] a, int alen, int[] b, int blen) {
+		if (blen == 1) {
+			return multiplySmall(a, alen, b[0]);
+		}
+		if (alen == 1) {
+			return multiplySmall(b, blen, a[0]);
+		}
+		int[] product = new int[alen + blen];
+		for (int i = 0; i < alen; i++) {
+			long ai = a[i];
+			if (ai == 0) {
+				continue;
+			}
+			long carry = 0;
+			for (int j = 0; j < blen; j++) {
+				long t = ai * b[j] + product[i + j] + carry;
+				carry = t / BASE;
+				product[i + j] = (int) (t - carry * BASE);
+			}
+			product[i + blen] = (int) carry;
+		}
+		return product;
+	}
+
+	/**
+	 * Schoolbook square of a magnitude into a new array of 2*alen limbs. Each cross
+	 * product a[i]*a[j], i < j, is computed once and doubled, then the squares
+	 * a[i]^2 are added on the diagonal - about half the limb products of multiply.
+	 * The top limb of the result may be zero.
+	 */
+	static int[] square(int[] a, int alen) {
+		int[] product = new int[2 * alen];
+		for (int i = 0; i < alen - 1; i++) {
+			long ai = a[i];
+			if (ai == 0) {
+				continue;
+			}
+			long carry = 0;
+			for (int j = i + 1; j < alen; j++) {
+				long t = ai * a[j] + product[i + j] + carry;
+				carry = t / BASE;
+				product[i + j] = (int) (t - carry * BASE);
+			}
+			product[i + alen] = (int) carry;
+		}
+
+		long carry = 0;
+		for (int i = 0; i < alen; i++) {
+			long sq = (long) a[i] * a[i];
+			long high = sq / BASE;
+			long t = 2L * product[2 * i] + (sq - high * BASE) + carry;
+			carry = t / BASE;
+			product[2 * i] = (int) (t - carry * BASE);
+			t = 2L * product[2 * i + 1] + high + carry;
+			carry = t / BASE;
+			product[2 * i + 1] = (int) (t - carry * BASE);
+		}
+		return product;
+	}
+
+	/**
+	 * Adds magnitude b, shifted up by offset limbs, into the first rlen limbs of r
+	 * in place. The caller must make sure the sum fits in rlen limbs.
+	 */
+	static void addShifted(int[] r, int rlen, int[] b, int blen, int offset) {
+		int carry = 0;
+		int i = 0;
+		for (; i < blen; i++) {
+			int s = r[offset + i] + b[i] + carry;
+			carry = s >= BASE ? 1 : 0;
+			r[offset + i] = s - (carry * BASE);
+		}
+		for (i += offset; carry != 0 && i < rlen; i++) {
+			int s = r[i] + carry;
+			carry = s >= BASE ? 1 : 0;
+			r[i] = s - (carry * BASE);
+		}
+	}
+
+	/**
+	 * Subtracts magnitude b from the first alen limbs of a in place. The caller
+	 * must make sure that a >= b.
+	 */
+	static void subtractInPlace(int[] a, int alen, int[] b, int blen) {
+		int borrow = 0;
+		int i = 0;
+		for (; i < blen; i++) {
+			int d = a[i] - b[i] - borrow;
+			borrow = d < 0 ? 1 : 0;
+			a[i] = d + (borrow * BASE);
+		}
+		for (; borrow != 0 && i < alen; i++) {
+			int d = a[i] - borrow;
+			borrow = d < 0 ? 1 : 0;
+			a[i] = d + (borrow * BASE);
+		}
+	}
+
+	/**
+	 * Divides the first len limbs of a by a small positive divisor, writing the
+	 * quotient into q (which may be a itself).
+	 *
+	 * @return The remainder
+	 */
+	static int divideSmall(int[] a, int len, int divisor, int[] q) {
+		long rem = 0;
+		for (int i = len - 1; i >= 0; i--) {
+			long cur = rem * BASE + a[i];
+			q[i] = (int) (cur / divisor);
+			rem = cur - (long) q[i] * divisor;
+		}
+		return (int) rem;
+	}
+}
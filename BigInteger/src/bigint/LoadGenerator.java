@@ -0,0 +1,166 @@
+package bigint;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Load generator for CalculatorServer. Opens a number of connections, each sending
+ * random requests with up to a given number outstanding (the pipeline depth), and
+ * reports throughput and response latency percentiles:
+ *
+ *    java -cp BigInteger/target/classes bigint.LoadGenerator [port] [connections]
+ *        [requests per connection] [pipeline depth] [digits] [operation]
+ *
+ * The operation is add, multiply, divide, remainder or square (multiply by
+ * default), and operands have the given number of digits. A latency is measured
+ * from writing a request to reading its response, so with a deep pipeline it
+ * includes the time spent queued behind earlier requests.
+ */
+public final class LoadGenerator {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private LoadGenerator() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : CalculatorServer.DEFAULT_PORT;
+		int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+		int depth = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+		int digits = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+		String op = args.length > 5 ? args[5] : "multiply";
+
+		//a pool of request lines to cycle through, so generating them costs nothing
+		Random random = new Random(1);
+		String[] lines = new String[256];
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = op.equals("square") || op.equals("s") ? op + " " + randomDigits(random, digits)
+					: op + " " + randomDigits(random, digits) + " " + randomDigits(random, digits);
+		}
+
+		long[][] latencies = new long[connections][];
+		long[] errors = new long[connections];
+		Exception[] failures = new Exception[connections];
+		List<Thread> threads = new ArrayList<Thread>();
+		long start = System.nanoTime();
+		for (int c = 0; c < connections; c++) {
+			int id = c;
+			threads.add(Thread.ofVirtual().start(() -> {
+				try {
+					latencies[id] = run(port, lines, requests, depth, errors, id);
+				} catch (IOException | InterruptedException e) {
+					failures[id] = e;
+				}
+			}));
+		}
+		for (Thread t : threads) {
+			t.join();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		//a failed connection counts all its requests as errors, and has no latencies
+		long[] all = new long[connections * requests];
+		int count = 0;
+		long failed = 0;
+		for (int c = 0; c < connections; c++) {
+			if (failures[c] != null) {
+				System.err.println("Connection " + c + " failed: " + failures[c]);
+				failed += requests;
+				continue;
+			}
+			System.arraycopy(latencies[c], 0, all, count, requests);
+			count += requests;
+			failed += errors[c];
+		}
+		all = Arrays.copyOf(all, count);
+		Arrays.sort(all);
+		double seconds = elapsed / 1e9;
+		System.out.printf("%d requests (%d errors) over %d connections, depth %d, %d digits: %.3f s, %.0f req/s%n",
+				connections * requests, failed, connections, depth, digits, seconds, all.length / seconds);
+		System.out.printf("latency p50 %.1f us, p99 %.1f us, max %.1f us%n", percentile(all, 0.50) / 1e3,
+				percentile(all, 0.99) / 1e3, percentile(all, 1.0) / 1e3);
+	}
+
+	/**
+	 * Runs one connection: a virtual thread writes requests while this one reads the
+	 * responses. A queue of send times, as long as the pipeline is deep, holds the
+	 * writer back when too many requests are outstanding.
+	 *
+	 * @return Latency of each request, in nanoseconds
+	 */
+	private static long[] run(int port, String[] lines, int requests, int depth, long[] errors, int id)
+			throws IOException, InterruptedException {
+		long[] latencies = new long[requests];
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), BUFFER_SIZE);
+			BufferedWriter out = new BufferedWriter(
+					new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), BUFFER_SIZE);
+			BlockingQueue<Long> sent = new ArrayBlockingQueue<Long>(depth);
+
+			Thread writer = Thread.ofVirtual().start(() -> {
+				try {
+					for (int i = 0; i < requests; i++) {
+						//flush before blocking, so the server sees what is queued
+						if (sent.remainingCapacity() == 0) {
+							out.flush();
+						}
+						sent.put(System.nanoTime());
+						out.write(lines[(id + i) % lines.length]);
+						out.newLine();
+					}
+					out.flush();
+				} catch (IOException | InterruptedException e) {
+					//the reader fails too and reports it
+				}
+			});
+
+			for (int i = 0; i < requests; i++) {
+				String response = in.readLine();
+				if (response == null) {
+					throw new IOException("Server closed the connection");
+				}
+				latencies[i] = System.nanoTime() - sent.take();
+				if (response.startsWith("error")) {
+					errors[id]++;
+				}
+			}
+			writer.join();
+			out.write("quit");
+			out.newLine();
+			out.flush();
+		}
+		return latencies;
+	}
+
+	private static String randomDigits(Random random, int digits) {
+		char[] c = new char[digits];
+		c[0] = (char) ('1' + random.nextInt(9));
+		for (int i = 1; i < digits; i++) {
+			c[i] = (char) ('0' + random.nextInt(10));
+		}
+		return new String(c);
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(p * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+}
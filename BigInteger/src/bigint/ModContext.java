@@ -0,0 +1,278 @@
+package bigint;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed state for arithmetic modulo one fixed modulus, so that repeated
+ * modular exponentiations under the same modulus pay the setup cost once.
+ *
+ * For odd moduli, products are reduced with Montgomery multiplication. The modulus
+ * and the working residues are converted once to 32-bit binary words, where the
+ * reduction needs no divisions at all: with R = 2^(32n) for an n-word modulus,
+ * residues are kept as x*R mod m and each product is reduced by n word-sized
+ * steps. Even moduli fall back to multiplying and taking the remainder.
+ *
+ * Exponentiation scans the exponent bits with a sliding window of odd powers.
+ *
+ * A context is immutable once built and can be shared between threads.
+ *
+ * @see BigInteger#modPow(BigInteger, BigInteger, BigInteger)
+ */
+public final class ModContext {
+
+	/**
+	 * Exponent bit lengths at which the sliding window grows by one bit
+	 */
+	private static final int[] WINDOW_THRESHOLDS = {7, 25, 81, 241, 673, 1793};
+
+	private static final long MASK = 0xffffffffL;
+
+	private final BigInteger modulus;
+
+	/**
+	 * True if products are reduced the Montgomery way
+	 */
+	private final boolean montgomery;
+
+	/**
+	 * Modulus as exactly n binary words (Montgomery) or n decimal limbs (otherwise)
+	 */
+	private final int[] m;
+	private final int n;
+
+	/**
+	 * -m^-1 mod 2^32, for Montgomery reduction
+	 */
+	private final int mPrime;
+
+	/**
+	 * R^2 mod m, to bring residues into Montgomery form
+	 */
+	private final int[] rSquared;
+
+	/**
+	 * 1 in the working representation: R mod m for Montgomery, 1 otherwise
+	 */
+	private final int[] one;
+
+	/**
+	 * Builds the context for a positive modulus.
+	 *
+	 * @param modulus Modulus, must be positive
+	 * @throws ArithmeticException If the modulus is not positive
+	 */
+	public ModContext(BigInteger modulus) throws ArithmeticException {
+		if (modulus.len == 0 || modulus.negative) {
+			throw new ArithmeticException("BigInteger modulus not positive");
+		}
+		this.modulus = modulus;
+		montgomery = (modulus.mag[0] & 1) != 0;
+		if (montgomery) {
+			m = RadixConversion.toWords(modulus.mag, modulus.len);
+			n = m.length;
+			mPrime = -inverseModWord(m[0]);
+			rSquared = toResidue(reduce(powerOfTwo(64 * n)));
+			one = toResidue(reduce(powerOfTwo(32 * n)));
+		} else {
+			n = modulus.len;
+			m = Arrays.copyOf(modulus.mag, n);
+			mPrime = 0;
+			rSquared = null;
+			one = toResidue(new BigInteger(false, new int[] {1}, 1));
+		}
+	}
+
+	/**
+	 * Returns the modulus of this context.
+	 *
+	 * @return Modulus
+	 */
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * Returns base raised to exponent, modulo the modulus of this context.
+	 * DOES NOT MODIFY the input big integers.
+	 *
+	 * @param base Base, may be negative
+	 * @param exponent Exponent, must not be negative
+	 * @return A new BigInteger in [0, modulus)
+	 * @throws ArithmeticException If the exponent is negative
+	 */
+	public BigInteger modPow(BigInteger base, BigInteger exponent) throws ArithmeticException {
+		if (exponent.negative) {
+			throw new ArithmeticException("BigInteger negative exponent");
+		}
+
+		int[] bits = RadixConversion.toWords(exponent.mag, exponent.len);
+		int bitLength = bits.length == 0 ? 0
+				: bits.length * 32 - Integer.numberOfLeadingZeros(bits[bits.length - 1]);
+		long[] scratch = new long[n + 2];
+		int[] x = toResidue(reduce(base));
+		if (montgomery) {
+			x = multiply(x, rSquared, scratch);
+		}
+
+		//odd powers x, x^3, x^5, ... x^(2^window - 1)
+		int window = 1;
+		while (window <= WINDOW_THRESHOLDS.length && bitLength > WINDOW_THRESHOLDS[window - 1]) {
+			window++;
+		}
+		int[][] table = new int[1 << (window - 1)][];
+		table[0] = x;
+		if (table.length > 1) {
+			int[] x2 = multiply(x, x, scratch);
+			for (int i = 1; i < table.length; i++) {
+				table[i] = multiply(table[i - 1], x2, scratch);
+			}
+		}
+
+		//left to right sliding window over the exponent bits
+		int[] result = one;
+		boolean isOne = true;
+		int i = bitLength - 1;
+		while (i >= 0) {
+			if (!testBit(bits, i)) {
+				if (!isOne) {
+					result = multiply(result, result, scratch);
+				}
+				i--;
+				continue;
+			}
+			int l = Math.max(i - window + 1, 0);
+			while (!testBit(bits, l)) {
+				l++;
+			}
+			int w = 0;
+			for (int b = i; b >= l; b--) {
+				w = (w << 1) | (testBit(bits, b) ? 1 : 0);
+			}
+			if (isOne) {
+				result = table[w >> 1];
+				isOne = false;
+			} else {
+				for (int b = i; b >= l; b--) {
+					result = multiply(result, result, scratch);
+				}
+				result = multiply(result, table[w >> 1], scratch);
+			}
+			i = l - 1;
+		}
+
+		if (!montgomery) {
+			return new BigInteger(false, Arrays.copyOf(result, n), n);
+		}
+		int[] unit = new int[n];
+		unit[0] = 1;
+		result = multiply(result, unit, scratch);
+		int[] mag = RadixConversion.fromWords(result, n);
+		return new BigInteger(false, mag, mag.length);
+	}
+
+	/**
+	 * Multiplies two residues of n words or limbs each, in the working representation.
+	 */
+	private int[] multiply(int[] a, int[] b, long[] scratch) {
+		if (!montgomery) {
+			BigInteger product = BigInteger.multiplyValues(new BigInteger(false, a, n), new BigInteger(false, b, n));
+			return toResidue(reduce(product));
+		}
+
+		//CIOS Montgomery multiplication, t = (a * b + u * m) / R, on unsigned words
+		long[] t = scratch;
+		Arrays.fill(t, 0);
+		long m0 = m[0] & MASK;
+		long mp = mPrime & MASK;
+		for (int i = 0; i < n; i++) {
+			long ai = a[i] & MASK;
+			long c = 0;
+			for (int j = 0; j < n; j++) {
+				long s = t[j] + ai * (b[j] & MASK) + c;
+				t[j] = s & MASK;
+				c = s >>> 32;
+			}
+			long s = t[n] + c;
+			t[n] = s & MASK;
+			t[n + 1] += s >>> 32;
+
+			long u = (t[0] * mp) & MASK;
+			c = (t[0] + u * m0) >>> 32;
+			for (int j = 1; j < n; j++) {
+				s = t[j] + u * (m[j] & MASK) + c;
+				t[j - 1] = s & MASK;
+				c = s >>> 32;
+			}
+			s = t[n] + c;
+			t[n - 1] = s & MASK;
+			t[n] = t[n + 1] + (s >>> 32);
+			t[n + 1] = 0;
+		}
+
+		//t < 2m, so at most one subtraction brings it into range
+		int[] r = new int[n];
+		for (int j = 0; j < n; j++) {
+			r[j] = (int) t[j];
+		}
+		if (t[n] != 0 || compareWords(r, m) >= 0) {
+			long borrow = 0;
+			for (int j = 0; j < n; j++) {
+				long d = (r[j] & MASK) - (m[j] & MASK) - borrow;
+				r[j] = (int) d;
+				borrow = d < 0 ? 1 : 0;
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Returns x mod m, in [0, m) even for negative x.
+	 */
+	private BigInteger reduce(BigInteger x) {
+		BigInteger r = BigInteger.divideValues(x, modulus)[1];
+		if (r.negative) {
+			r = BigInteger.addValues(r, modulus);
+		}
+		return r;
+	}
+
+	/**
+	 * Returns a reduced value as exactly n words or limbs, whichever the context uses.
+	 */
+	private int[] toResidue(BigInteger x) {
+		int[] digits = montgomery ? RadixConversion.toWords(x.mag, x.len) : x.mag;
+		return Arrays.copyOf(digits, n);
+	}
+
+	private static BigInteger powerOfTwo(int exponent) {
+		int[] words = new int[exponent / 32 + 1];
+		words[exponent / 32] = 1 << (exponent % 32);
+		int[] mag = RadixConversion.fromWords(words, words.length);
+		return new BigInteger(false, mag, mag.length);
+	}
+
+	/**
+	 * Returns the inverse of an odd word modulo 2^32, by Newton iteration: each step
+	 * x = x * (2 - a * x) doubles the number of correct bits.
+	 */
+	private static int inverseModWord(int a) {
+		int x = a;
+		for (int i = 0; i < 5; i++) {
+			x *= 2 - a * x;
+		}
+		return x;
+	}
+
+	private static int compareWords(int[] a, int[] b) {
+		for (int i = a.length - 1; i >= 0; i--) {
+			if (a[i] != b[i]) {
+				return Integer.compareUnsigned(a[i], b[i]);
+			}
+		}
+		return 0;
+	}
+
+	private static boolean testBit(int[] words, int bit) {
+		return (words[bit >>> 5] >>> (bit & 31) & 1) != 0;
+	}
+}
@@ -0,0 +1,340 @@
+package bigint;
+
+import java.util.Arrays;
+
+import bigint.BigIntegerMetrics.Tier;
+
+/**
+ * Multiplication of BigInteger magnitudes, choosing an algorithm by operand size:
+ *
+ *    smaller operand below bigint.karatsubaThreshold limbs     schoolbook, O(n^2)
+ *    smaller operand below bigint.toomCookThreshold limbs      Karatsuba, O(n^1.585)
+ *    smaller operand below bigint.nttThreshold limbs           Toom-Cook 3, O(n^1.465)
+ *    anything larger                                           NTT, O(n log n)
+ *
+ * The thresholds count base 10^9 limbs (9 decimal digits each) and can be set with
+ * system properties, e.g. -Dbigint.karatsubaThreshold=48 -Dbigint.toomCookThreshold=160.
+ * Operands of very different lengths are cut into blocks of the shorter length first,
+ * so every tier only ever sees balanced inputs.
+ *
+ * Squares have tiers of their own (square), where every split reuses the one
+ * operand: the schoolbook square takes each cross product a[i]*a[j] once and
+ * doubles it, Karatsuba and Toom-Cook square their pieces recursively, and the NTT
+ * transforms the operand once. Since the schoolbook square does about half the work,
+ * its cutoffs are separate: bigint.karatsubaSquareThreshold and
+ * bigint.toomCookSquareThreshold.
+ */
+final class Multiplier {
+
+	/**
+	 * Below this many limbs in the smaller operand, schoolbook multiplication is used
+	 */
+	static final int KARATSUBA_THRESHOLD =
+			Math.max(4, Integer.getInteger("bigint.karatsubaThreshold", 40));
+
+	/**
+	 * Below this many limbs in the smaller operand, Karatsuba multiplication is used
+	 */
+	static final int TOOM_COOK_THRESHOLD =
+			Math.max(Math.max(9, KARATSUBA_THRESHOLD), Integer.getInteger("bigint.toomCookThreshold", 120));
+
+	/**
+	 * From this many limbs in the smaller operand on, NTT multiplication is used
+	 */
+	static final int NTT_THRESHOLD =
+			Math.max(TOOM_COOK_THRESHOLD, Integer.getInteger("bigint.nttThreshold", 4000));
+
+	/**
+	 * Below this many limbs, squares are taken the schoolbook way
+	 */
+	static final int KARATSUBA_SQUARE_THRESHOLD =
+			Math.max(4, Integer.getInteger("bigint.karatsubaSquareThreshold", 40));
+
+	/**
+	 * Below this many limbs, squares are taken with Karatsuba
+	 */
+	static final int TOOM_COOK_SQUARE_THRESHOLD = Math.max(Math.max(9, KARATSUBA_SQUARE_THRESHOLD),
+			Integer.getInteger("bigint.toomCookSquareThreshold", 200));
+
+	private Multiplier() {
+	}
+
+	/**
+	 * Multiplies two magnitudes.
+	 *
+	 * @return Product limbs, least significant first; leading limbs may be zero
+	 */
+	static int[] multiply(int[] a, int alen, int[] b, int blen) {
+		return multiply(tier(a, alen, b, blen), a, alen, b, blen);
+	}
+
+	/**
+	 * Multiplies two magnitudes with the algorithm tier(a, alen, b, blen) chose, so a
+	 * caller can record the tier it ran.
+	 *
+	 * @return Product limbs, least significant first; leading limbs may be zero
+	 */
+	static int[] multiply(Tier tier, int[] a, int alen, int[] b, int blen) {
+		if (alen < blen) {
+			int[] t = a; a = b; b = t;
+			int tl = alen; alen = blen; blen = tl;
+		}
+		if (blen == 0) {
+			return Limbs.EMPTY;
+		}
+		switch (tier) {
+		case SCHOOLBOOK:
+			return Limbs.multiply(a, alen, b, blen);
+		case NTT:
+			return NttMultiplier.multiply(a, alen, b, blen);
+		case KARATSUBA:
+		case TOOM_COOK_3:
+			if (2 * blen <= alen) {
+				return multiplyUnbalanced(a, alen, b, blen);
+			}
+			if (tier == Tier.KARATSUBA) {
+				return multiplyKaratsuba(a, alen, b, blen);
+			}
+			return multiplyToomCook3(a, alen, b, blen);
+		default:
+			return square(tier, a, alen);
+		}
+	}
+
+	/**
+	 * Returns the algorithm multiply uses for magnitudes of alen and blen limbs: one
+	 * of the square tiers for the same limbs twice, otherwise the tier for the
+	 * shorter length. Operands of very different lengths are cut into blocks that
+	 * are all multiplied with that tier.
+	 */
+	static Tier tier(int[] a, int alen, int[] b, int blen) {
+		if (a == b && alen == blen) {
+			return squareTier(alen);
+		}
+		int n = Math.min(alen, blen);
+		return n < KARATSUBA_THRESHOLD ? Tier.SCHOOLBOOK
+				: n >= NTT_THRESHOLD ? Tier.NTT
+				: n < TOOM_COOK_THRESHOLD ? Tier.KARATSUBA : Tier.TOOM_COOK_3;
+	}
+
+	/**
+	 * Squares a magnitude.
+	 *
+	 * @return Square limbs, least significant first; leading limbs may be zero
+	 */
+	static int[] square(int[] a, int alen) {
+		return square(squareTier(alen), a, alen);
+	}
+
+	/**
+	 * Squares a magnitude with the algorithm squareTier(alen) chose.
+	 *
+	 * @return Square limbs, least significant first; leading limbs may be zero
+	 */
+	static int[] square(Tier tier, int[] a, int alen) {
+		if (alen == 0) {
+			return Limbs.EMPTY;
+		}
+		switch (tier) {
+		case SQUARE_SCHOOLBOOK:
+			return Limbs.square(a, alen);
+		case SQUARE_NTT:
+			return NttMultiplier.multiply(a, alen, a, alen);
+		case SQUARE_KARATSUBA:
+			return squareKaratsuba(a, alen);
+		case SQUARE_TOOM_COOK_3:
+			return squareToomCook3(a, alen);
+		default:
+			throw new IllegalArgumentException("Not a square tier: " + tier);
+		}
+	}
+
+	/**
+	 * Returns the algorithm square uses for a magnitude of alen limbs.
+	 */
+	static Tier squareTier(int alen) {
+		return alen < KARATSUBA_SQUARE_THRESHOLD ? Tier.SQUARE_SCHOOLBOOK
+				: alen >= NTT_THRESHOLD ? Tier.SQUARE_NTT
+				: alen < TOOM_COOK_SQUARE_THRESHOLD ? Tier.SQUARE_KARATSUBA : Tier.SQUARE_TOOM_COOK_3;
+	}
+
+	/**
+	 * Multiplies a long operand by a much shorter one, one block of blen limbs of
+	 * a at a time.
+	 */
+	private static int[] multiplyUnbalanced(int[] a, int alen, int[] b, int blen) {
+		MutableBigInteger product = new MutableBigInteger(alen + blen + 1);
+		int[] block = new int[blen];
+		for (int offset = 0; offset < alen; offset += blen) {
+			int blockLen = Math.min(blen, alen - offset);
+			System.arraycopy(a, offset, block, 0, blockLen);
+			int[] partial = multiply(block, Limbs.normalize(block, blockLen), b, blen);
+			product.addMagnitude(partial, Limbs.normalize(partial, partial.length), offset);
+		}
+		return product.value;
+	}
+
+	/**
+	 * Karatsuba multiplication: with a = a1*B^h + a0 and b = b1*B^h + b0,
+	 *    a*b = z2*B^2h + (z1 - z2 - z0)*B^h + z0
+	 * where z0 = a0*b0, z2 = a1*b1 and z1 = (a0+a1)*(b0+b1).
+	 */
+	private static int[] multiplyKaratsuba(int[] a, int alen, int[] b, int blen) {
+		int half = (alen + 1) / 2;
+
+		int[] a0 = low(a, alen, half), a1 = high(a, alen, half);
+		int[] b0 = low(b, blen, half), b1 = high(b, blen, half);
+		int a0len = Limbs.normalize(a0, a0.length), a1len = a1.length;
+		int b0len = Limbs.normalize(b0, b0.length), b1len = Limbs.normalize(b1, b1.length);
+
+		int[] z0 = multiply(a0, a0len, b0, b0len);
+		int[] z2 = multiply(a1, a1len, b1, b1len);
+
+		int[] sa = Limbs.add(a0, a0len, a1, a1len);
+		int[] sb = Limbs.add(b0, b0len, b1, b1len);
+		int[] z1 = multiply(sa, Limbs.normalize(sa, sa.length), sb, Limbs.normalize(sb, sb.length));
+		return combineKaratsuba(z0, z1, z2, half, alen + blen);
+	}
+
+	/**
+	 * Karatsuba squaring: z0 = a0^2, z2 = a1^2 and z1 = (a0+a1)^2.
+	 */
+	private static int[] squareKaratsuba(int[] a, int alen) {
+		int half = (alen + 1) / 2;
+
+		int[] a0 = low(a, alen, half), a1 = high(a, alen, half);
+		int a0len = Limbs.normalize(a0, a0.length), a1len = a1.length;
+
+		int[] z0 = square(a0, a0len);
+		int[] z2 = square(a1, a1len);
+		int[] sa = Limbs.add(a0, a0len, a1, a1len);
+		int[] z1 = square(sa, Limbs.normalize(sa, sa.length));
+		return combineKaratsuba(z0, z1, z2, half, 2 * alen);
+	}
+
+	/**
+	 * Lays out z2*B^2h + (z1 - z2 - z0)*B^h + z0 in a product of rlen limbs. z1 is
+	 * overwritten. ParallelMultiplier combines its forked sub-products with this too.
+	 */
+	static int[] combineKaratsuba(int[] z0, int[] z1, int[] z2, int half, int rlen) {
+		int z0len = Limbs.normalize(z0, z0.length);
+		int z2len = Limbs.normalize(z2, z2.length);
+		int z1len = Limbs.normalize(z1, z1.length);
+		Limbs.subtractInPlace(z1, z1len, z0, z0len);
+		Limbs.subtractInPlace(z1, z1len, z2, z2len);
+		z1len = Limbs.normalize(z1, z1len);
+
+		MutableBigInteger product = new MutableBigInteger(rlen + 1);
+		product.addMagnitude(z0, z0len, 0);
+		product.addMagnitude(z2, z2len, 2 * half);
+		product.addMagnitude(z1, z1len, half);
+		return product.value;
+	}
+
+	/**
+	 * Toom-Cook 3-way multiplication. Each operand is split into three pieces of k
+	 * limbs, the pieces are evaluated at 0, 1, -1, 2 and infinity, the five point
+	 * products are taken recursively, and the result is interpolated back following
+	 * Bodrato's sequence (the same one java.math.BigInteger uses).
+	 */
+	private static int[] multiplyToomCook3(int[] a, int alen, int[] b, int blen) {
+		int k = (alen + 2) / 3;
+
+		BigInteger a0 = slice(a, alen, 0, k), a1 = slice(a, alen, k, 2 * k), a2 = slice(a, alen, 2 * k, alen);
+		BigInteger b0 = slice(b, blen, 0, k), b1 = slice(b, blen, k, 2 * k), b2 = slice(b, blen, 2 * k, blen);
+
+		BigInteger v0 = times(a0, b0);
+		BigInteger da1 = BigInteger.addValues(a2, a0);
+		BigInteger db1 = BigInteger.addValues(b2, b0);
+		BigInteger vm1 = times(BigInteger.addValues(da1, a1.negate()), BigInteger.addValues(db1, b1.negate()));
+		da1 = BigInteger.addValues(da1, a1);
+		db1 = BigInteger.addValues(db1, b1);
+		BigInteger v1 = times(da1, db1);
+		BigInteger v2 = times(
+				BigInteger.addValues(timesSmall(BigInteger.addValues(da1, a2), 2), a0.negate()),
+				BigInteger.addValues(timesSmall(BigInteger.addValues(db1, b2), 2), b0.negate()));
+		BigInteger vinf = times(a2, b2);
+		return interpolateToomCook3(v0, vm1, v1, v2, vinf, k, alen + blen);
+	}
+
+	/**
+	 * Toom-Cook 3-way squaring: the same evaluation points as multiplyToomCook3,
+	 * with one operand and five recursive squares.
+	 */
+	private static int[] squareToomCook3(int[] a, int alen) {
+		int k = (alen + 2) / 3;
+
+		BigInteger a0 = slice(a, alen, 0, k), a1 = slice(a, alen, k, 2 * k), a2 = slice(a, alen, 2 * k, alen);
+
+		BigInteger v0 = squared(a0);
+		BigInteger da1 = BigInteger.addValues(a2, a0);
+		BigInteger vm1 = squared(BigInteger.addValues(da1, a1.negate()));
+		da1 = BigInteger.addValues(da1, a1);
+		BigInteger v1 = squared(da1);
+		BigInteger v2 = squared(BigInteger.addValues(timesSmall(BigInteger.addValues(da1, a2), 2), a0.negate()));
+		BigInteger vinf = squared(a2);
+		return interpolateToomCook3(v0, vm1, v1, v2, vinf, k, 2 * alen);
+	}
+
+	/**
+	 * Interpolates the Toom-Cook 3 point products (at 0, -1, 1, 2 and infinity)
+	 * into a product of rlen limbs, for pieces of k limbs.
+	 */
+	private static int[] interpolateToomCook3(BigInteger v0, BigInteger vm1, BigInteger v1, BigInteger v2,
+			BigInteger vinf, int k, int rlen) {
+		BigInteger t2 = exactDivideSmall(BigInteger.addValues(v2, vm1.negate()), 3);
+		BigInteger tm1 = exactDivideSmall(BigInteger.addValues(v1, vm1.negate()), 2);
+		BigInteger t1 = BigInteger.addValues(v1, v0.negate());
+		t2 = exactDivideSmall(BigInteger.addValues(t2, t1.negate()), 2);
+		t1 = BigInteger.addValues(BigInteger.addValues(t1, tm1.negate()), vinf.negate());
+		t2 = BigInteger.addValues(t2, timesSmall(vinf, 2).negate());
+		tm1 = BigInteger.addValues(tm1, t2.negate());
+
+		//every coefficient is non-negative now, so they can be laid out by limb offset
+		MutableBigInteger product = new MutableBigInteger(rlen + 1);
+		product.addMagnitude(v0.mag, v0.len, 0);
+		product.addMagnitude(tm1.mag, tm1.len, k);
+		product.addMagnitude(t1.mag, t1.len, 2 * k);
+		product.addMagnitude(t2.mag, t2.len, 3 * k);
+		product.addMagnitude(vinf.mag, vinf.len, 4 * k);
+		return product.value;
+	}
+
+	static int[] low(int[] a, int alen, int n) {
+		return Arrays.copyOf(a, Math.min(alen, n));
+	}
+
+	static int[] high(int[] a, int alen, int n) {
+		return alen <= n ? Limbs.EMPTY : Arrays.copyOfRange(a, n, alen);
+	}
+
+	private static BigInteger slice(int[] a, int alen, int from, int to) {
+		to = Math.min(to, alen);
+		if (from >= to) {
+			return new BigInteger();
+		}
+		int[] piece = Arrays.copyOfRange(a, from, to);
+		return new BigInteger(false, piece, piece.length);
+	}
+
+	private static BigInteger times(BigInteger x, BigInteger y) {
+		int[] product = multiply(x.mag, x.len, y.mag, y.len);
+		return new BigInteger(x.negative != y.negative, product, product.length);
+	}
+
+	private static BigInteger squared(BigInteger x) {
+		int[] square = square(x.mag, x.len);
+		return new BigInteger(false, square, square.length);
+	}
+
+	private static BigInteger timesSmall(BigInteger x, int factor) {
+		int[] product = Limbs.multiplySmall(x.mag, x.len, factor);
+		return new BigInteger(x.negative, product, product.length);
+	}
+
+	private static BigInteger exactDivideSmall(BigInteger x, int divisor) {
+		int[] quotient = new int[x.len];
+		Limbs.divideSmall(x.mag, x.len, divisor, quotient);
+		return new BigInteger(x.negative, quotient, quotient.length);
+	}
+}
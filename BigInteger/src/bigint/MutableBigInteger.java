@@ -0,0 +1,183 @@
+package bigint;
+
+import java.util.Arrays;
+
+/**
+ * A signed integer that is changed in place, for loops that would otherwise build
+ * a new BigInteger on every step (running sums, product accumulation, digit by
+ * digit conversion).
+ *
+ * The magnitude lives in a growable buffer of base 10^9 limbs, least significant
+ * first, laid out exactly like BigInteger.mag. The buffer only ever grows, so once
+ * it is large enough the in-place operations allocate nothing.
+ *
+ * Instances are not thread safe; toBigInteger takes an independent snapshot.
+ */
+final class MutableBigInteger {
+
+	/**
+	 * Limb buffer; only the first len entries are significant
+	 */
+	int[] value;
+
+	/**
+	 * Number of significant limbs, 0 when this is zero
+	 */
+	int len;
+
+	/**
+	 * True if this is a negative integer; never true when len is 0
+	 */
+	boolean negative;
+
+	/**
+	 * Initializes this accumulator to zero, with room for a few limbs.
+	 */
+	MutableBigInteger() {
+		this(8);
+	}
+
+	/**
+	 * Initializes this accumulator to zero, with room for capacity limbs.
+	 *
+	 * @param capacity Initial buffer size in limbs
+	 */
+	MutableBigInteger(int capacity) {
+		value = new int[Math.max(1, capacity)];
+	}
+
+	/**
+	 * Resets this accumulator to zero, keeping its buffer.
+	 */
+	void clear() {
+		Arrays.fill(value, 0, len, 0);
+		len = 0;
+		negative = false;
+	}
+
+	/**
+	 * Adds a BigInteger to this one in place; either may be negative.
+	 */
+	void addInPlace(BigInteger x) {
+		addSigned(x.mag, x.len, x.negative);
+	}
+
+	/**
+	 * Subtracts a BigInteger from this one in place; either may be negative.
+	 */
+	void subtractInPlace(BigInteger x) {
+		addSigned(x.mag, x.len, !x.negative);
+	}
+
+	private void addSigned(int[] b, int blen, boolean bNegative) {
+		if (blen == 0) {
+			return;
+		}
+		if (len == 0 || negative == bNegative) {
+			negative = bNegative;
+			addMagnitude(b, blen, 0);
+			return;
+		}
+		int cmp = Limbs.compare(value, len, b, blen);
+		if (cmp >= 0) {
+			subtractMagnitude(b, blen);
+		} else {
+			//|b| > |this|: this = b - this, keeping the sign of b
+			ensureCapacity(blen);
+			int borrow = 0;
+			for (int i = 0; i < blen; i++) {
+				int d = b[i] - value[i] - borrow;
+				borrow = d < 0 ? 1 : 0;
+				value[i] = d + (borrow * Limbs.BASE);
+			}
+			len = Limbs.normalize(value, blen);
+			negative = bNegative;
+		}
+	}
+
+	/**
+	 * Adds magnitude b, shifted up by offset limbs, to the magnitude of this
+	 * accumulator, ignoring both signs.
+	 */
+	void addMagnitude(int[] b, int blen, int offset) {
+		if (blen == 0) {
+			return;
+		}
+		int top = Math.max(len, offset + blen) + 1;
+		ensureCapacity(top);
+		Limbs.addShifted(value, top, b, blen, offset);
+		len = Limbs.normalize(value, top);
+	}
+
+	/**
+	 * Subtracts magnitude b from the magnitude of this accumulator, ignoring both
+	 * signs. The caller must make sure that |this| >= b.
+	 */
+	void subtractMagnitude(int[] b, int blen) {
+		Limbs.subtractInPlace(value, len, b, blen);
+		len = Limbs.normalize(value, len);
+		if (len == 0) {
+			negative = false;
+		}
+	}
+
+	/**
+	 * Replaces the magnitude of this accumulator with |this| * factor + addend.
+	 * Both factor and addend must be in [0, 10^9).
+	 */
+	void multiplyAddSmall(int factor, int addend) {
+		ensureCapacity(len + 1);
+		long carry = addend;
+		for (int i = 0; i < len; i++) {
+			long t = (long) value[i] * factor + carry;
+			carry = t / Limbs.BASE;
+			value[i] = (int) (t - carry * Limbs.BASE);
+		}
+		value[len] = (int) carry;
+		len = Limbs.normalize(value, len + 1);
+		if (len == 0) {
+			negative = false;
+		}
+	}
+
+	/**
+	 * Multiplies this accumulator by 10^n, n >= 0.
+	 */
+	void shiftDigits(int n) {
+		shiftLimbs(n / Limbs.BASE_DIGITS);
+		int rest = n % Limbs.BASE_DIGITS;
+		if (rest != 0) {
+			multiplyAddSmall(Limbs.POW10[rest], 0);
+		}
+	}
+
+	/**
+	 * Multiplies this accumulator by (10^9)^n, n >= 0.
+	 */
+	void shiftLimbs(int n) {
+		if (len == 0 || n == 0) {
+			return;
+		}
+		ensureCapacity(len + n);
+		System.arraycopy(value, 0, value, n, len);
+		Arrays.fill(value, 0, n, 0);
+		len += n;
+	}
+
+	/**
+	 * Returns the current value as a new, independent BigInteger.
+	 */
+	BigInteger toBigInteger() {
+		return new BigInteger(negative, Arrays.copyOf(value, len), len);
+	}
+
+	/**
+	 * Grows the buffer, if needed, so it holds at least capacity limbs. Limbs past
+	 * len are always zero.
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > value.length) {
+			value = Arrays.copyOf(value, Math.max(capacity, value.length + (value.length >> 1)));
+		}
+	}
+}
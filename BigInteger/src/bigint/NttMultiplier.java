@@ -0,0 +1,368 @@
+package bigint;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multiplication of BigInteger magnitudes with a number-theoretic transform.
+ *
+ * The limbs of both operands are convolved modulo three NTT-friendly primes, and the
+ * exact convolution is recovered limb by limb with the Chinese Remainder Theorem
+ * (Garner's method). The product of the three primes is about 5.9 * 10^25, enough
+ * for a convolution term summing up to 5.9 * 10^7 limb products of (10^9)^2 - well
+ * beyond the 2^24 point transform the first prime allows. Products too long for one
+ * transform are done in blocks.
+ *
+ * The cost is O(n log n), so this beats Toom-Cook once operands reach a few
+ * thousand limbs. Squares (the same limbs passed as both operands) need only one
+ * forward transform per prime instead of two. multiplyParallel runs the three
+ * primes, the forward transforms and the butterflies of large transforms as
+ * ForkJoin tasks.
+ */
+final class NttMultiplier {
+
+	/**
+	 * The primes, each of the form c * 2^k + 1, and a primitive root of each
+	 */
+	private static final int[] PRIMES = {754974721, 167772161, 469762049};
+	private static final int[] ROOTS = {11, 3, 3};
+
+	/**
+	 * Largest transform size supported by all three primes (754974721 = 45 * 2^24 + 1)
+	 */
+	static final int MAX_TRANSFORM = 1 << 24;
+
+	/**
+	 * Transform blocks and butterfly ranges up to this size are not split into
+	 * further tasks
+	 */
+	private static final int PARALLEL_GRAIN = 1 << 14;
+
+	private static final long M1 = PRIMES[0];
+	private static final long M2 = PRIMES[1];
+	private static final long M3 = PRIMES[2];
+	private static final long M1_INV_MOD_M2 = power(M1 % M2, M2 - 2, M2);
+	private static final long M1_MOD_M3 = M1 % M3;
+	private static final long M1M2_INV_MOD_M3 = power((M1 * M2) % M3, M3 - 2, M3);
+
+	/**
+	 * M1*M2 split into limbs, for the carry step of the recombination
+	 */
+	private static final long M1M2_HIGH = (M1 * M2) / Limbs.BASE;
+	private static final long M1M2_LOW = (M1 * M2) % Limbs.BASE;
+
+	private NttMultiplier() {
+	}
+
+	/**
+	 * Multiplies two magnitudes.
+	 *
+	 * @return Product limbs, least significant first; leading limbs may be zero
+	 */
+	static int[] multiply(int[] a, int alen, int[] b, int blen) {
+		return multiply(a, alen, b, blen, false);
+	}
+
+	/**
+	 * Multiplies two magnitudes, running the transforms as ForkJoin tasks. Must be
+	 * called from a ForkJoinPool worker.
+	 *
+	 * @return Product limbs, least significant first; leading limbs may be zero
+	 */
+	static int[] multiplyParallel(int[] a, int alen, int[] b, int blen) {
+		return multiply(a, alen, b, blen, true);
+	}
+
+	private static int[] multiply(int[] a, int alen, int[] b, int blen, boolean parallel) {
+		if (alen < blen) {
+			int[] t = a; a = b; b = t;
+			int tl = alen; alen = blen; blen = tl;
+		}
+		if (blen == 0) {
+			return Limbs.EMPTY;
+		}
+		if (alen + blen - 1 <= MAX_TRANSFORM) {
+			return convolve(a, 0, alen, b, 0, blen, parallel);
+		}
+
+		//too long for a single transform: multiply block by block
+		int block = MAX_TRANSFORM / 2;
+		MutableBigInteger product = new MutableBigInteger(alen + blen + 1);
+		for (int aoff = 0; aoff < alen; aoff += block) {
+			for (int boff = 0; boff < blen; boff += block) {
+				int[] partial = convolve(a, aoff, Math.min(block, alen - aoff),
+						b, boff, Math.min(block, blen - boff), parallel);
+				product.addMagnitude(partial, Limbs.normalize(partial, partial.length), aoff + boff);
+			}
+		}
+		return product.value;
+	}
+
+	/**
+	 * Multiplies alen limbs of a, starting at aoff, by blen limbs of b, starting at boff.
+	 */
+	private static int[] convolve(final int[] a, final int aoff, final int alen,
+			final int[] b, final int boff, final int blen, final boolean parallel) {
+		int size = 1;
+		while (size < alen + blen - 1) {
+			size <<= 1;
+		}
+		final int n = size;
+		final boolean square = a == b && aoff == boff && alen == blen;
+
+		final int[][] residues = new int[PRIMES.length][];
+		RecursiveAction[] primes = new RecursiveAction[PRIMES.length];
+		for (int p = 0; p < PRIMES.length; p++) {
+			final int mod = PRIMES[p];
+			final int root = ROOTS[p];
+			final int index = p;
+			primes[p] = new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					final int[] fa = new int[n];
+					for (int i = 0; i < alen; i++) {
+						fa[i] = a[aoff + i] % mod;
+					}
+					if (square) {
+						transform(fa, mod, root, false, parallel);
+						for (int i = 0; i < n; i++) {
+							fa[i] = (int) ((long) fa[i] * fa[i] % mod);
+						}
+						transform(fa, mod, root, true, parallel);
+						residues[index] = fa;
+						return;
+					}
+					final int[] fb = new int[n];
+					for (int i = 0; i < blen; i++) {
+						fb[i] = b[boff + i] % mod;
+					}
+					if (parallel) {
+						invokeAll(new TransformTask(fa, mod, root, false), new TransformTask(fb, mod, root, false));
+					} else {
+						transform(fa, mod, root, false, false);
+						transform(fb, mod, root, false, false);
+					}
+					for (int i = 0; i < n; i++) {
+						fa[i] = (int) ((long) fa[i] * fb[i] % mod);
+					}
+					transform(fa, mod, root, true, parallel);
+					residues[index] = fa;
+				}
+			};
+		}
+		if (parallel) {
+			ForkJoinTask.invokeAll(primes);
+		} else {
+			for (RecursiveAction prime : primes) {
+				prime.invoke();
+			}
+		}
+
+		return recombine(residues[0], residues[1], residues[2], alen + blen);
+	}
+
+	/**
+	 * Rebuilds the exact convolution from its residues and propagates the carries
+	 * into base 10^9 limbs.
+	 */
+	private static int[] recombine(int[] r1, int[] r2, int[] r3, int len) {
+		int[] result = new int[len];
+		long carry = 0;
+		for (int i = 0; i < len - 1; i++) {
+			long t1 = r1[i];
+			long t2 = (r2[i] - t1 % M2 + M2) % M2 * M1_INV_MOD_M2 % M2;
+			long t3 = ((r3[i] - t1 % M3 + M3) % M3 - t2 * M1_MOD_M3 % M3 + M3) % M3 * M1M2_INV_MOD_M3 % M3;
+
+			//x = t1 + t2*M1 + t3*M1*M2, with the last term split around the limb base
+			long low = t1 + t2 * M1 + t3 * M1M2_LOW + carry;
+			result[i] = (int) (low % Limbs.BASE);
+			carry = low / Limbs.BASE + t3 * M1M2_HIGH;
+		}
+		result[len - 1] = (int) carry;
+		return result;
+	}
+
+	/**
+	 * In-place NTT of a power-of-two length array, or its inverse (including the
+	 * division by the length). In parallel mode the butterflies run as ForkJoin
+	 * tasks.
+	 */
+	private static void transform(int[] f, int mod, int root, boolean inverse, boolean parallel) {
+		int n = f.length;
+		for (int i = 1, j = 0; i < n; i++) {
+			int bit = n >> 1;
+			for (; (j & bit) != 0; bit >>= 1) {
+				j ^= bit;
+			}
+			j ^= bit;
+			if (i < j) {
+				int t = f[i]; f[i] = f[j]; f[j] = t;
+			}
+		}
+
+		//twiddle factors w^0 .. w^(n/2 - 1) for the full length
+		long w = power(root, (mod - 1) / n, mod);
+		if (inverse) {
+			w = power(w, mod - 2, mod);
+		}
+		int[] twiddle = new int[Math.max(1, n / 2)];
+		twiddle[0] = 1;
+		for (int i = 1; i < n / 2; i++) {
+			twiddle[i] = (int) (twiddle[i - 1] * w % mod);
+		}
+
+		if (parallel && n > PARALLEL_GRAIN) {
+			new ButterflyTask(f, 0, n, mod, twiddle).invoke();
+		} else {
+			butterflies(f, 0, n, mod, twiddle);
+		}
+
+		if (inverse) {
+			long nInv = power(n, mod - 2, mod);
+			for (int i = 0; i < n; i++) {
+				f[i] = (int) (f[i] * nInv % mod);
+			}
+		}
+	}
+
+	/**
+	 * Runs every butterfly stage that stays within the block f[off, off+size), on
+	 * bit-reversed input. The twiddle table is the one for the full transform.
+	 */
+	private static void butterflies(int[] f, int off, int size, int mod, int[] twiddle) {
+		for (int len = 2; len <= size; len <<= 1) {
+			for (int start = off; start < off + size; start += len) {
+				stage(f, start, len, 0, len >> 1, mod, twiddle);
+			}
+		}
+	}
+
+	/**
+	 * Runs butterflies k in [from, to) of the stage that merges the two halves of
+	 * the block f[start, start+len).
+	 */
+	private static void stage(int[] f, int start, int len, int from, int to, int mod, int[] twiddle) {
+		int half = len >> 1;
+		int stride = 2 * twiddle.length / len;
+		for (int k = from; k < to; k++) {
+			int u = f[start + k];
+			int v = (int) ((long) f[start + k + half] * twiddle[k * stride] % mod);
+			int s = u + v;
+			f[start + k] = s >= mod ? s - mod : s;
+			int d = u - v;
+			f[start + k + half] = d < 0 ? d + mod : d;
+		}
+	}
+
+	/**
+	 * Transform of a whole array as a task; see transform.
+	 */
+	private static final class TransformTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] f;
+		private final int mod;
+		private final int root;
+		private final boolean inverse;
+
+		TransformTask(int[] f, int mod, int root, boolean inverse) {
+			this.f = f;
+			this.mod = mod;
+			this.root = root;
+			this.inverse = inverse;
+		}
+
+		@Override
+		protected void compute() {
+			transform(f, mod, root, inverse, true);
+		}
+	}
+
+	/**
+	 * Butterflies of the block f[off, off+size): both halves are transformed as
+	 * separate tasks, then the final stage is split into k ranges.
+	 */
+	private static final class ButterflyTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] f;
+		private final int off;
+		private final int size;
+		private final int mod;
+		private final int[] twiddle;
+
+		ButterflyTask(int[] f, int off, int size, int mod, int[] twiddle) {
+			this.f = f;
+			this.off = off;
+			this.size = size;
+			this.mod = mod;
+			this.twiddle = twiddle;
+		}
+
+		@Override
+		protected void compute() {
+			if (size <= PARALLEL_GRAIN) {
+				butterflies(f, off, size, mod, twiddle);
+				return;
+			}
+			int half = size >> 1;
+			invokeAll(new ButterflyTask(f, off, half, mod, twiddle),
+					new ButterflyTask(f, off + half, half, mod, twiddle));
+			new StageTask(f, off, size, 0, half, mod, twiddle).invoke();
+		}
+	}
+
+	/**
+	 * A range of butterflies of one stage, split until it is small enough.
+	 */
+	private static final class StageTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] f;
+		private final int start;
+		private final int len;
+		private final int from;
+		private final int to;
+		private final int mod;
+		private final int[] twiddle;
+
+		StageTask(int[] f, int start, int len, int from, int to, int mod, int[] twiddle) {
+			this.f = f;
+			this.start = start;
+			this.len = len;
+			this.from = from;
+			this.to = to;
+			this.mod = mod;
+			this.twiddle = twiddle;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_GRAIN) {
+				stage(f, start, len, from, to, mod, twiddle);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new StageTask(f, start, len, from, mid, mod, twiddle),
+					new StageTask(f, start, len, mid, to, mod, twiddle));
+		}
+	}
+
+	private static long power(long base, long exp, long mod) {
+		long result = 1;
+		base %= mod;
+		while (exp > 0) {
+			if ((exp & 1) != 0) {
+				result = result * base % mod;
+			}
+			base = base * base % mod;
+			exp >>= 1;
+		}
+		return result;
+	}
+}
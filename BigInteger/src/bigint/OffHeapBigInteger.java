@@ -0,0 +1,491 @@
+package bigint;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A positive or negative integer whose limbs live outside the Java heap, in a
+ * MemorySegment, for numbers so large that even one int[] of limbs strains the
+ * heap and the collector.
+ *
+ * The limbs are laid out exactly like BigInteger.mag (base 10^9, least significant
+ * first). Addition, digit output and parsing from a file work on the segments
+ * directly. Multiplication works through blocks of at most bigint.offHeapBlock limbs
+ * (default 2^18, about 2.4 million digits): each pair of blocks is copied to the
+ * heap, multiplied with the usual tiers of Multiplier, and added into the product
+ * segment, so the heap working set of a product is bounded by the block size and
+ * not by the size of the numbers.
+ *
+ * Every value belongs to an Arena. Factories without an Arena argument create a
+ * shared arena owned by the value, which close() frees; if the factory fails, it
+ * closes that arena before throwing. Values created in an arena supplied by the
+ * caller are freed when the caller closes that arena, and their close() does
+ * nothing. Using a value after its memory is freed throws IllegalStateException.
+ *
+ * This class uses the java.lang.foreign API, a preview API in Java 21, so code that
+ * uses it must run with --enable-preview. BigInteger itself does not depend on it.
+ */
+public final class OffHeapBigInteger implements AutoCloseable {
+
+	/**
+	 * Limbs copied to the heap at a time when multiplying
+	 */
+	static final int BLOCK_LIMBS =
+			Math.max(Multiplier.KARATSUBA_THRESHOLD, Integer.getInteger("bigint.offHeapBlock", 1 << 18));
+
+	/**
+	 * Size of the buffer writeTo fills before handing digits to the stream
+	 */
+	private static final int WRITE_CHUNK = 8192;
+
+	private static final ValueLayout.OfInt LIMB = ValueLayout.JAVA_INT;
+
+	/**
+	 * Arena this value owns and frees on close, or null if it belongs to the caller
+	 */
+	private final Arena owned;
+
+	/**
+	 * Limbs, least significant first; only the first len are significant
+	 */
+	private final MemorySegment limbs;
+	private final long len;
+	private final boolean negative;
+
+	private OffHeapBigInteger(Arena owned, MemorySegment limbs, long len, boolean negative) {
+		while (len > 0 && limbs.getAtIndex(LIMB, len - 1) == 0) {
+			len--;
+		}
+		this.owned = owned;
+		this.limbs = limbs;
+		this.len = len;
+		this.negative = len != 0 && negative;
+	}
+
+	/**
+	 * Copies a BigInteger into a new arena owned by the result.
+	 *
+	 * @param x Integer to copy
+	 * @return Off-heap copy of x
+	 */
+	public static OffHeapBigInteger valueOf(BigInteger x) {
+		Arena arena = Arena.ofShared();
+		try {
+			return valueOf(x, arena, arena);
+		} catch (RuntimeException | Error e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Copies a BigInteger into the given arena.
+	 *
+	 * @param x Integer to copy
+	 * @param arena Arena to allocate in, owned by the caller
+	 * @return Off-heap copy of x
+	 */
+	public static OffHeapBigInteger valueOf(BigInteger x, Arena arena) {
+		return valueOf(x, arena, null);
+	}
+
+	private static OffHeapBigInteger valueOf(BigInteger x, Arena arena, Arena owned) {
+		MemorySegment limbs = allocate(arena, x.len);
+		MemorySegment.copy(x.mag, 0, limbs, LIMB, 0, x.len);
+		return new OffHeapBigInteger(owned, limbs, x.len, x.negative);
+	}
+
+	/**
+	 * Parses a decimal integer stored in a file into a new arena owned by the result.
+	 * The format rules are those of BigInteger.parse(String), in any byte encoding
+	 * that agrees with ASCII on digits, signs and spaces. The file is memory-mapped
+	 * for the duration of the call and the digits are packed straight from the
+	 * mapping into the limb segment, so neither the text nor the limbs touch the heap.
+	 *
+	 * @param file File holding the integer
+	 * @return Integer read from the file
+	 * @throws IOException If the file cannot be read
+	 * @throws IllegalArgumentException If input is incorrectly formatted
+	 */
+	public static OffHeapBigInteger parse(Path file) throws IOException, IllegalArgumentException {
+		Arena arena = Arena.ofShared();
+		try {
+			return parse(file, arena, arena);
+		} catch (IOException | RuntimeException | Error e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Parses a decimal integer stored in a file into the given arena; see parse(Path).
+	 *
+	 * @param file File holding the integer
+	 * @param arena Arena to allocate in, owned by the caller
+	 * @return Integer read from the file
+	 * @throws IOException If the file cannot be read
+	 * @throws IllegalArgumentException If input is incorrectly formatted
+	 */
+	public static OffHeapBigInteger parse(Path file, Arena arena) throws IOException, IllegalArgumentException {
+		return parse(file, arena, null);
+	}
+
+	private static OffHeapBigInteger parse(Path file, Arena arena, Arena owned)
+	throws IOException, IllegalArgumentException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+				Arena mapping = Arena.ofConfined()) {
+			long size = channel.size();
+			MemorySegment text = size == 0 ? MemorySegment.NULL
+					: channel.map(FileChannel.MapMode.READ_ONLY, 0, size, mapping);
+
+			//leading and trailing spaces, as String.trim would drop them
+			long start = 0;
+			long end = size;
+			while (start < end && (text.get(ValueLayout.JAVA_BYTE, start) & 0xff) <= ' ') {
+				start++;
+			}
+			while (end > start && (text.get(ValueLayout.JAVA_BYTE, end - 1) & 0xff) <= ' ') {
+				end--;
+			}
+
+			boolean negative = false;
+			if (start < end) {
+				byte sign = text.get(ValueLayout.JAVA_BYTE, start);
+				if (sign == '-' || sign == '+') {
+					negative = sign == '-';
+					start++;
+				}
+			}
+			if (start == end) {
+				throw new IllegalArgumentException("No digits in input");
+			}
+			while (start < end - 1 && text.get(ValueLayout.JAVA_BYTE, start) == '0') {
+				start++;
+			}
+
+			//nine digits per limb, starting from the right end
+			long count = (end - start + Limbs.BASE_DIGITS - 1) / Limbs.BASE_DIGITS;
+			MemorySegment limbs = allocate(arena, count);
+			long pos = end;
+			for (long i = 0; i < count; i++) {
+				long from = Math.max(start, pos - Limbs.BASE_DIGITS);
+				int limb = 0;
+				for (long x = from; x < pos; x++) {
+					byte c = text.get(ValueLayout.JAVA_BYTE, x);
+					int d = c - '0';
+					if (d < 0 || d > 9) {
+						throw new IllegalArgumentException("Not a digit: '" + (char) (c & 0xff) + "'");
+					}
+					limb = limb * 10 + d;
+				}
+				limbs.setAtIndex(LIMB, i, limb);
+				pos = from;
+			}
+			return new OffHeapBigInteger(owned, limbs, count, negative);
+		}
+	}
+
+	/**
+	 * Adds two off-heap integers into a new arena owned by the result. Either or both
+	 * may be negative. DOES NOT MODIFY the inputs.
+	 *
+	 * @param first First integer
+	 * @param second Second integer
+	 * @return Sum
+	 */
+	public static OffHeapBigInteger add(OffHeapBigInteger first, OffHeapBigInteger second) {
+		Arena arena = Arena.ofShared();
+		try {
+			return add(first, second, arena, arena);
+		} catch (RuntimeException | Error e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Adds two off-heap integers into the given arena. Either or both may be
+	 * negative. DOES NOT MODIFY the inputs.
+	 *
+	 * @param first First integer
+	 * @param second Second integer
+	 * @param arena Arena to allocate the sum in, owned by the caller
+	 * @return Sum
+	 */
+	public static OffHeapBigInteger add(OffHeapBigInteger first, OffHeapBigInteger second, Arena arena) {
+		return add(first, second, arena, null);
+	}
+
+	private static OffHeapBigInteger add(OffHeapBigInteger first, OffHeapBigInteger second,
+			Arena arena, Arena owned) {
+		if (first.negative == second.negative) {
+			MemorySegment sum = allocate(arena, Math.max(first.len, second.len) + 1);
+			addMagnitudes(first.limbs, first.len, second.limbs, second.len, sum);
+			return new OffHeapBigInteger(owned, sum, Math.max(first.len, second.len) + 1, first.negative);
+		}
+
+		//the smaller magnitude is taken from the larger one, which decides the sign
+		int cmp = compareMagnitudes(first, second);
+		OffHeapBigInteger big = cmp >= 0 ? first : second;
+		OffHeapBigInteger small = cmp >= 0 ? second : first;
+		MemorySegment diff = allocate(arena, big.len);
+		subtractMagnitudes(big.limbs, big.len, small.limbs, small.len, diff);
+		return new OffHeapBigInteger(owned, diff, big.len, big.negative);
+	}
+
+	/**
+	 * Multiplies two off-heap integers into a new arena owned by the result.
+	 * DOES NOT MODIFY the inputs.
+	 *
+	 * @param first First integer
+	 * @param second Second integer
+	 * @return Product
+	 */
+	public static OffHeapBigInteger multiply(OffHeapBigInteger first, OffHeapBigInteger second) {
+		Arena arena = Arena.ofShared();
+		try {
+			return multiply(first, second, arena, arena);
+		} catch (RuntimeException | Error e) {
+			arena.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Multiplies two off-heap integers into the given arena. DOES NOT MODIFY the inputs.
+	 *
+	 * @param first First integer
+	 * @param second Second integer
+	 * @param arena Arena to allocate the product in, owned by the caller
+	 * @return Product
+	 */
+	public static OffHeapBigInteger multiply(OffHeapBigInteger first, OffHeapBigInteger second, Arena arena) {
+		return multiply(first, second, arena, null);
+	}
+
+	private static OffHeapBigInteger multiply(OffHeapBigInteger first, OffHeapBigInteger second,
+			Arena arena, Arena owned) {
+		long rlen = first.len == 0 || second.len == 0 ? 0 : first.len + second.len;
+		MemorySegment product = allocate(arena, rlen);
+		product.fill((byte) 0);
+		for (long j = 0; j < second.len && rlen > 0; j += BLOCK_LIMBS) {
+			int blen = (int) Math.min(BLOCK_LIMBS, second.len - j);
+			int[] b = toHeap(second.limbs, j, blen);
+			for (long i = 0; i < first.len; i += BLOCK_LIMBS) {
+				int alen = (int) Math.min(BLOCK_LIMBS, first.len - i);
+				int[] a = toHeap(first.limbs, i, alen);
+				int[] p = Multiplier.multiply(a, Limbs.normalize(a, alen), b, Limbs.normalize(b, blen));
+				addInto(product, rlen, p, Limbs.normalize(p, p.length), i + j);
+			}
+		}
+		return new OffHeapBigInteger(owned, product, rlen, first.negative != second.negative);
+	}
+
+	/**
+	 * Copies this integer back to the heap.
+	 *
+	 * @return BigInteger with the same value
+	 * @throws ArithmeticException If the value has too many limbs for an int[]
+	 */
+	public BigInteger toBigInteger() throws ArithmeticException {
+		if (len > Integer.MAX_VALUE - 8) {
+			throw new ArithmeticException("Too many limbs for a BigInteger: " + len);
+		}
+		return new BigInteger(negative, toHeap(limbs, 0, (int) len), (int) len);
+	}
+
+	/**
+	 * Returns the number of decimal digits of this integer, 0 for zero.
+	 *
+	 * @return Number of digits, not counting the sign
+	 */
+	public long digitCount() {
+		if (len == 0) {
+			return 0;
+		}
+		return (len - 1) * Limbs.BASE_DIGITS + topDigits();
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		long chars = digitCount() + (negative ? 1 : 0);
+		if (chars > Integer.MAX_VALUE - 8) {
+			throw new ArithmeticException("Too many digits for a String: " + chars + "; use writeTo");
+		}
+		StringWriter out = new StringWriter((int) Math.max(1, chars));
+		try {
+			writeTo(out);
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Writes the decimal representation of this integer, the same characters toString
+	 * returns, to a Writer, straight from the limb segment through a small buffer.
+	 * The writer is neither flushed nor closed.
+	 *
+	 * @param out Writer to write to
+	 * @throws IOException If the writer fails
+	 */
+	public void writeTo(Writer out) throws IOException {
+		if (len == 0) {
+			out.write('0');
+			return;
+		}
+		char[] buf = new char[WRITE_CHUNK];
+		int n = 0;
+		if (negative) {
+			buf[n++] = '-';
+		}
+		int top = topDigits();
+		RadixConversion.putDigits(limbs.getAtIndex(LIMB, len - 1), top, buf, n);
+		n += top;
+		for (long i = len - 2; i >= 0; i--) {
+			if (n + Limbs.BASE_DIGITS > buf.length) {
+				out.write(buf, 0, n);
+				n = 0;
+			}
+			RadixConversion.putDigits(limbs.getAtIndex(LIMB, i), Limbs.BASE_DIGITS, buf, n);
+			n += Limbs.BASE_DIGITS;
+		}
+		out.write(buf, 0, n);
+	}
+
+	/**
+	 * Writes the decimal representation of this integer to an OutputStream as ASCII
+	 * bytes, straight from the limb segment through a small buffer. The stream is
+	 * neither flushed nor closed.
+	 *
+	 * @param out Stream to write to
+	 * @throws IOException If the stream fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		if (len == 0) {
+			out.write('0');
+			return;
+		}
+		byte[] buf = new byte[WRITE_CHUNK];
+		int n = 0;
+		if (negative) {
+			buf[n++] = '-';
+		}
+		int top = topDigits();
+		RadixConversion.putDigits(limbs.getAtIndex(LIMB, len - 1), top, buf, n);
+		n += top;
+		for (long i = len - 2; i >= 0; i--) {
+			if (n + Limbs.BASE_DIGITS > buf.length) {
+				out.write(buf, 0, n);
+				n = 0;
+			}
+			RadixConversion.putDigits(limbs.getAtIndex(LIMB, i), Limbs.BASE_DIGITS, buf, n);
+			n += Limbs.BASE_DIGITS;
+		}
+		out.write(buf, 0, n);
+	}
+
+	/**
+	 * Frees the memory of this integer if it owns its arena; otherwise does nothing,
+	 * and the memory is freed when the caller closes the arena.
+	 */
+	@Override
+	public void close() {
+		if (owned != null) {
+			owned.close();
+		}
+	}
+
+	private int topDigits() {
+		int top = limbs.getAtIndex(LIMB, len - 1);
+		int digits = 1;
+		while (digits < Limbs.BASE_DIGITS && top >= Limbs.POW10[digits]) {
+			digits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * Allocates a segment of count limbs, at least one.
+	 */
+	private static MemorySegment allocate(Arena arena, long count) {
+		return arena.allocate(Math.max(1, count) * LIMB.byteSize(), LIMB.byteAlignment());
+	}
+
+	private static int[] toHeap(MemorySegment limbs, long from, int count) {
+		int[] a = new int[count];
+		MemorySegment.copy(limbs, LIMB, from * LIMB.byteSize(), a, 0, count);
+		return a;
+	}
+
+	private static int compareMagnitudes(OffHeapBigInteger a, OffHeapBigInteger b) {
+		if (a.len != b.len) {
+			return a.len < b.len ? -1 : 1;
+		}
+		for (long i = a.len - 1; i >= 0; i--) {
+			int x = a.limbs.getAtIndex(LIMB, i);
+			int y = b.limbs.getAtIndex(LIMB, i);
+			if (x != y) {
+				return x < y ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * r = a + b, r having room for max(alen, blen) + 1 limbs.
+	 */
+	private static void addMagnitudes(MemorySegment a, long alen, MemorySegment b, long blen, MemorySegment r) {
+		if (alen < blen) {
+			MemorySegment t = a; a = b; b = t;
+			long tl = alen; alen = blen; blen = tl;
+		}
+		int carry = 0;
+		for (long i = 0; i < alen; i++) {
+			int s = a.getAtIndex(LIMB, i) + (i < blen ? b.getAtIndex(LIMB, i) : 0) + carry;
+			carry = s >= Limbs.BASE ? 1 : 0;
+			r.setAtIndex(LIMB, i, s - carry * Limbs.BASE);
+		}
+		r.setAtIndex(LIMB, alen, carry);
+	}
+
+	/**
+	 * r = a - b, where a >= b.
+	 */
+	private static void subtractMagnitudes(MemorySegment a, long alen, MemorySegment b, long blen, MemorySegment r) {
+		int borrow = 0;
+		for (long i = 0; i < alen; i++) {
+			int d = a.getAtIndex(LIMB, i) - (i < blen ? b.getAtIndex(LIMB, i) : 0) - borrow;
+			borrow = d < 0 ? 1 : 0;
+			r.setAtIndex(LIMB, i, d + borrow * Limbs.BASE);
+		}
+	}
+
+	/**
+	 * Adds p, shifted up by offset limbs, into the rlen-limb segment r. The sum must fit.
+	 */
+	private static void addInto(MemorySegment r, long rlen, int[] p, int plen, long offset) {
+		int carry = 0;
+		long i = offset;
+		for (int k = 0; k < plen; k++, i++) {
+			int s = r.getAtIndex(LIMB, i) + p[k] + carry;
+			carry = s >= Limbs.BASE ? 1 : 0;
+			r.setAtIndex(LIMB, i, s - carry * Limbs.BASE);
+		}
+		for (; carry != 0 && i < rlen; i++) {
+			int s = r.getAtIndex(LIMB, i) + carry;
+			carry = s >= Limbs.BASE ? 1 : 0;
+			r.setAtIndex(LIMB, i, s - carry * Limbs.BASE);
+		}
+	}
+}
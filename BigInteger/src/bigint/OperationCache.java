@@ -0,0 +1,256 @@
+package bigint;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded memo of expensive results, for workloads that compute the same large
+ * products, quotients or modular powers over and over:
+ *
+ *    OperationCache cache = new OperationCache(1 << 20, 100);
+ *    BigInteger p = cache.multiply(a, b);    //computed
+ *    BigInteger q = cache.multiply(b, a);    //same product, from the cache
+ *
+ * Only operations whose operands are both at least minLimbs limbs long go through
+ * the cache; smaller ones are cheaper to recompute than to look up, and are passed
+ * straight to BigInteger.
+ *
+ * The cache is bounded by weight rather than by entry count: an entry weighs the
+ * limbs of its result and operands, all of which it keeps alive. When the total
+ * weight goes over the capacity, the least recently used entries are evicted.
+ *
+ * A cache can be shared between threads. Results are computed outside its lock, so
+ * two threads asking for the same missing result at once may both compute it.
+ */
+public final class OperationCache {
+
+	private static final int MULTIPLY = 0;
+	private static final int DIVIDE = 1;
+	private static final int MOD_POW = 2;
+
+	private final long capacity;
+	private final int minLimbs;
+
+	/**
+	 * Entries in access order, least recently used first
+	 */
+	private final LinkedHashMap<Key, BigInteger> entries = new LinkedHashMap<Key, BigInteger>(16, 0.75f, true);
+
+	private long weight;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Initializes an empty cache.
+	 *
+	 * @param capacity Total weight, in limbs, of the entries to keep
+	 * @param minLimbs Size, in limbs, both operands must reach for an operation to be cached
+	 * @throws IllegalArgumentException If capacity or minLimbs is negative
+	 */
+	public OperationCache(long capacity, int minLimbs) throws IllegalArgumentException {
+		if (capacity < 0 || minLimbs < 0) {
+			throw new IllegalArgumentException("Negative cache capacity or threshold");
+		}
+		this.capacity = capacity;
+		this.minLimbs = minLimbs;
+	}
+
+	/**
+	 * Returns the product of two integers, from the cache if it was computed before
+	 * in either order.
+	 *
+	 * @param first First factor
+	 * @param second Second factor
+	 * @return Product, as BigInteger.multiply
+	 */
+	public BigInteger multiply(BigInteger first, BigInteger second) {
+		if (first.len < minLimbs || second.len < minLimbs) {
+			return BigInteger.multiply(first, second);
+		}
+		//multiplication commutes, so order the operands to share one entry
+		Key key = first.compareTo(second) <= 0 ? new Key(MULTIPLY, first, second, null)
+				: new Key(MULTIPLY, second, first, null);
+		BigInteger result = get(key);
+		if (result == null) {
+			result = BigInteger.multiply(first, second);
+			put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the quotient of two integers, from the cache if it was computed before.
+	 *
+	 * @param first Dividend
+	 * @param second Divisor
+	 * @return Quotient, as BigInteger.divide
+	 * @throws ArithmeticException If the divisor is zero
+	 */
+	public BigInteger divide(BigInteger first, BigInteger second) throws ArithmeticException {
+		if (first.len < minLimbs || second.len < minLimbs) {
+			return BigInteger.divide(first, second);
+		}
+		Key key = new Key(DIVIDE, first, second, null);
+		BigInteger result = get(key);
+		if (result == null) {
+			result = BigInteger.divide(first, second);
+			put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns base^exponent mod modulus, from the cache if it was computed before.
+	 * The base and modulus must reach the size threshold; the exponent need not.
+	 *
+	 * @param base Base
+	 * @param exponent Exponent, must not be negative
+	 * @param modulus Modulus, must be positive
+	 * @return Modular power, as BigInteger.modPow
+	 * @throws ArithmeticException If the exponent is negative or the modulus is not positive
+	 */
+	public BigInteger modPow(BigInteger base, BigInteger exponent, BigInteger modulus)
+			throws ArithmeticException {
+		if (base.len < minLimbs || modulus.len < minLimbs) {
+			return BigInteger.modPow(base, exponent, modulus);
+		}
+		Key key = new Key(MOD_POW, base, exponent, modulus);
+		BigInteger result = get(key);
+		if (result == null) {
+			result = BigInteger.modPow(base, exponent, modulus);
+			put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of lookups that found their result in the cache.
+	 */
+	public synchronized long hitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups that had to compute their result.
+	 */
+	public synchronized long missCount() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of entries evicted to stay within the capacity.
+	 */
+	public synchronized long evictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Returns the fraction of lookups that were hits, 0 if there were none.
+	 */
+	public synchronized double hitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Returns the number of entries in the cache.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the total weight, in limbs, of the entries in the cache.
+	 */
+	public synchronized long weight() {
+		return weight;
+	}
+
+	/**
+	 * Removes every entry. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public synchronized String toString() {
+		return "OperationCache[size=" + entries.size() + ", weight=" + weight + "/" + capacity
+				+ ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+	}
+
+	private synchronized BigInteger get(Key key) {
+		BigInteger result = entries.get(key);
+		if (result != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return result;
+	}
+
+	private synchronized void put(Key key, BigInteger result) {
+		long w = key.weight() + result.len;
+		if (w > capacity) {
+			return;
+		}
+		BigInteger old = entries.put(key, result);
+		if (old != null) {
+			//another thread computed the same result meanwhile
+			weight -= key.weight() + old.len;
+		}
+		weight += w;
+		Iterator<Map.Entry<Key, BigInteger>> eldest = entries.entrySet().iterator();
+		while (weight > capacity) {
+			Map.Entry<Key, BigInteger> entry = eldest.next();
+			weight -= entry.getKey().weight() + entry.getValue().len;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * An operation and its operands; the third operand is only used by MOD_POW
+	 */
+	private static final class Key {
+
+		final int op;
+		final BigInteger a;
+		final BigInteger b;
+		final BigInteger c;
+		final int hash;
+
+		Key(int op, BigInteger a, BigInteger b, BigInteger c) {
+			this.op = op;
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			int h = 31 * (31 * op + a.hashCode()) + b.hashCode();
+			this.hash = c == null ? h : 31 * h + c.hashCode();
+		}
+
+		long weight() {
+			return (long) a.len + b.len + (c == null ? 0 : c.len);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return op == other.op && hash == other.hash && a.equals(other.a) && b.equals(other.b)
+					&& (c == null ? other.c == null : c.equals(other.c));
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+}
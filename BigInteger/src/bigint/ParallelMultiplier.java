@@ -0,0 +1,147 @@
+package bigint;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multiplication of BigInteger magnitudes spread over a ForkJoinPool.
+ *
+ * Operands in the NTT range run the transforms themselves as tasks (see
+ * NttMultiplier.multiplyParallel). Below it, balanced operands are split the
+ * Karatsuba way and the three half-size products run as separate tasks, while
+ * unbalanced operands are cut into blocks of the shorter length, one task per block.
+ * Splitting stops below bigint.parallelThreshold limbs (default 1500), where each
+ * task hands over to the sequential tiers in Multiplier.
+ * The arithmetic is exact, so the result is the same as the sequential one.
+ *
+ * Tasks run in the pool of the calling thread when it is already a ForkJoinPool
+ * worker, so nested calls never add threads. Otherwise they run in the common pool,
+ * or in a dedicated pool of -Dbigint.parallelism=N threads if that is set.
+ */
+final class ParallelMultiplier {
+
+	/**
+	 * Below this many limbs in the smaller operand, products are not split any further
+	 */
+	static final int PARALLEL_THRESHOLD =
+			Math.max(Multiplier.KARATSUBA_THRESHOLD, Integer.getInteger("bigint.parallelThreshold", 1500));
+
+	/**
+	 * Threads in the dedicated pool, or 0 to use the common pool
+	 */
+	static final int PARALLELISM = Integer.getInteger("bigint.parallelism", 0);
+
+	private ParallelMultiplier() {
+	}
+
+	/**
+	 * Multiplies two magnitudes.
+	 *
+	 * @return Product limbs, least significant first; leading limbs may be zero
+	 */
+	static int[] multiply(int[] a, int alen, int[] b, int blen) {
+		MultiplyTask task = new MultiplyTask(a, alen, b, blen);
+		if (ForkJoinTask.inForkJoinPool()) {
+			return task.invoke();
+		}
+		return pool().invoke(task);
+	}
+
+	/**
+	 * Returns the pool that parallel work starts in when the caller is not already
+	 * a ForkJoinPool worker.
+	 */
+	static ForkJoinPool pool() {
+		return PARALLELISM > 0 ? DedicatedPool.POOL : ForkJoinPool.commonPool();
+	}
+
+	/**
+	 * Holder for the dedicated pool, so it is only created when first used
+	 */
+	private static final class DedicatedPool {
+		static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+	}
+
+	/**
+	 * One product, split into sub-products while they are large enough
+	 */
+	private static final class MultiplyTask extends RecursiveTask<int[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] a;
+		private final int alen;
+		private final int[] b;
+		private final int blen;
+
+		MultiplyTask(int[] a, int alen, int[] b, int blen) {
+			if (alen < blen) {
+				int[] t = a; a = b; b = t;
+				int tl = alen; alen = blen; blen = tl;
+			}
+			this.a = a;
+			this.alen = alen;
+			this.b = b;
+			this.blen = blen;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (blen < PARALLEL_THRESHOLD) {
+				return Multiplier.multiply(a, alen, b, blen);
+			}
+			if (blen >= Multiplier.NTT_THRESHOLD) {
+				return NttMultiplier.multiplyParallel(a, alen, b, blen);
+			}
+			if (2 * blen <= alen) {
+				return computeBlocks();
+			}
+			return computeKaratsuba();
+		}
+
+		/**
+		 * One task per block of blen limbs of a.
+		 */
+		private int[] computeBlocks() {
+			int blocks = (alen + blen - 1) / blen;
+			MultiplyTask[] tasks = new MultiplyTask[blocks];
+			for (int i = 0; i < blocks; i++) {
+				int from = i * blen;
+				int[] block = Arrays.copyOfRange(a, from, Math.min(alen, from + blen));
+				tasks[i] = new MultiplyTask(block, Limbs.normalize(block, block.length), b, blen);
+			}
+			invokeAll(tasks);
+
+			MutableBigInteger product = new MutableBigInteger(alen + blen + 1);
+			for (int i = 0; i < blocks; i++) {
+				int[] partial = tasks[i].join();
+				product.addMagnitude(partial, Limbs.normalize(partial, partial.length), i * blen);
+			}
+			return product.value;
+		}
+
+		/**
+		 * Karatsuba split with the three half-size products as tasks; see
+		 * Multiplier.multiplyKaratsuba.
+		 */
+		private int[] computeKaratsuba() {
+			int half = (alen + 1) / 2;
+
+			int[] a0 = Multiplier.low(a, alen, half), a1 = Multiplier.high(a, alen, half);
+			int[] b0 = Multiplier.low(b, blen, half), b1 = Multiplier.high(b, blen, half);
+			int a0len = Limbs.normalize(a0, a0.length), a1len = a1.length;
+			int b0len = Limbs.normalize(b0, b0.length), b1len = Limbs.normalize(b1, b1.length);
+			int[] sa = Limbs.add(a0, a0len, a1, a1len);
+			int[] sb = Limbs.add(b0, b0len, b1, b1len);
+
+			MultiplyTask low = new MultiplyTask(a0, a0len, b0, b0len);
+			MultiplyTask high = new MultiplyTask(a1, a1len, b1, b1len);
+			MultiplyTask middle = new MultiplyTask(sa, Limbs.normalize(sa, sa.length),
+					sb, Limbs.normalize(sb, sb.length));
+			invokeAll(low, high, middle);
+			return Multiplier.combineKaratsuba(low.join(), middle.join(), high.join(), half, alen + blen);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package bigint;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Products of many factors, multiplied up a balanced binary tree.
+ *
+ * Folding n factors left to right multiplies an ever growing partial product by one
+ * small factor at a time, which keeps every multiplication in the unbalanced,
+ * quadratic case. Pairing neighbours instead keeps the operands of each
+ * multiplication about the same size, so the large products at the top of the tree
+ * reach the fast multiply tiers.
+ *
+ * Subtrees of at least bigint.parallelThreshold limbs in total are evaluated as
+ * ForkJoin tasks, in the pool ParallelMultiplier uses; smaller ones are multiplied
+ * out on the calling thread.
+ */
+final class ProductTree {
+
+	/**
+	 * Below this many factors, a subtree is folded left to right
+	 */
+	private static final int LEAF_FACTORS = 4;
+
+	private ProductTree() {
+	}
+
+	/**
+	 * Returns the product of the first count factors, 1 if there are none.
+	 */
+	static BigInteger productOf(BigInteger[] factors, int count) {
+		if (count == 0) {
+			return BigInteger.valueOf(1);
+		}
+
+		//prefix[i] = limbs in factors[0, i), to size subtrees in constant time
+		long[] prefix = new long[count + 1];
+		for (int i = 0; i < count; i++) {
+			if (factors[i].len == 0) {
+				return new BigInteger();
+			}
+			prefix[i + 1] = prefix[i] + factors[i].len;
+		}
+		if (prefix[count] < ParallelMultiplier.PARALLEL_THRESHOLD) {
+			return product(factors, 0, count);
+		}
+		ProductTask task = new ProductTask(factors, prefix, 0, count);
+		if (ForkJoinTask.inForkJoinPool()) {
+			return task.invoke();
+		}
+		return ParallelMultiplier.pool().invoke(task);
+	}
+
+	/**
+	 * Returns the product of the values, packing as many neighbouring values as fit
+	 * into each long leaf before building the tree.
+	 */
+	static BigInteger productOf(long[] values) {
+		BigInteger[] leaves = new BigInteger[values.length + 1];
+		int count = 0;
+		long leaf = 1;
+		for (long v : values) {
+			long product = leaf * v;
+			if (Math.multiplyHigh(leaf, v) == product >> 63) {
+				leaf = product;
+			} else {
+				leaves[count++] = BigInteger.valueOf(leaf);
+				leaf = v;
+			}
+		}
+		leaves[count++] = BigInteger.valueOf(leaf);
+		return productOf(leaves, count);
+	}
+
+	/**
+	 * Sequential product of factors[from, to).
+	 */
+	private static BigInteger product(BigInteger[] factors, int from, int to) {
+		if (to - from <= LEAF_FACTORS) {
+			BigInteger product = factors[from];
+			for (int i = from + 1; i < to; i++) {
+				product = BigInteger.multiplyValues(product, factors[i]);
+			}
+			return product;
+		}
+		int mid = (from + to) >>> 1;
+		return BigInteger.multiplyValues(product(factors, from, mid), product(factors, mid, to));
+	}
+
+	/**
+	 * Product of factors[from, to), with the left half forked while the subtree is
+	 * large enough
+	 */
+	private static final class ProductTask extends RecursiveTask<BigInteger> {
+
+		private static final long serialVersionUID = 1L;
+
+		//tasks are never serialized; BigInteger is not Serializable
+		private final transient BigInteger[] factors;
+		private final transient long[] prefix;
+		private final int from;
+		private final int to;
+
+		ProductTask(BigInteger[] factors, long[] prefix, int from, int to) {
+			this.factors = factors;
+			this.prefix = prefix;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BigInteger compute() {
+			if (to - from <= LEAF_FACTORS || prefix[to] - prefix[from] < ParallelMultiplier.PARALLEL_THRESHOLD) {
+				return product(factors, from, to);
+			}
+			int mid = (from + to) >>> 1;
+			ProductTask left = new ProductTask(factors, prefix, from, mid);
+			left.fork();
+			BigInteger right = new ProductTask(factors, prefix, mid, to).compute();
+			return BigInteger.multiplyParallelValues(left.join(), right);
+		}
+	}
+}
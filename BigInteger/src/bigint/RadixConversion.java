@@ -0,0 +1,518 @@
+package bigint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conversion between digit strings and BigInteger magnitudes.
+ *
+ * Decimal strings map straight onto base 10^9 limbs, nine characters per limb.
+ * Other radices are read in chunks of as many digits as fit in one limb, and the
+ * chunks are then combined pairwise up a balanced tree, so that the expensive
+ * steps are a few large multiplications rather than one small one per digit.
+ *
+ * Power-of-two radices go through binary words instead: digits map onto bits in
+ * linear time, and only the conversion between words and limbs is left, which is
+ * done by the same kind of divide and conquer (toWords and fromWords).
+ */
+final class RadixConversion {
+
+	/**
+	 * Number of limb-sized chunks of digits combined by Horner's rule before the
+	 * product tree takes over
+	 */
+	private static final int LEAF_CHUNKS = 32;
+
+	/**
+	 * Below this many limbs, toString in a radix other than 10 uses short division only
+	 */
+	private static final int SCHOOL_TO_STRING_LIMBS = 40;
+
+	/**
+	 * Below this many words (or limbs), fromWords and toWords convert by Horner's
+	 * rule and short division instead of splitting
+	 */
+	private static final int LEAF_WORDS = 32;
+
+	private RadixConversion() {
+	}
+
+	/**
+	 * Converts the digits in s[start, end) to a magnitude, validating every character
+	 * on the way. Leading zeros are allowed.
+	 *
+	 * @param s Characters to convert
+	 * @param start Index of the first digit
+	 * @param end Index after the last digit
+	 * @param radix Radix of the digits, 2 to 36
+	 * @return Magnitude, least significant limb first; leading limbs may be zero
+	 * @throws IllegalArgumentException If a character is not a digit in the given radix
+	 */
+	static int[] parse(CharSequence s, int start, int end, int radix)
+	throws IllegalArgumentException {
+		while (start < end && s.charAt(start) == '0') {
+			start++;
+		}
+		if (start == end) {
+			return Limbs.EMPTY;
+		}
+		if (radix == 10) {
+			return parseDecimal(s, start, end);
+		}
+		if ((radix & (radix - 1)) == 0) {
+			return parsePowerOfTwo(s, start, end, radix);
+		}
+
+		//leaves of LEAF_CHUNKS chunks of k digits, taken from the right so only the
+		//top leaf can be short; each leaf is built by Horner's rule in place
+		int k = chunkDigits(radix);
+		int chunkBase = 1;
+		for (int i = 0; i < k; i++) {
+			chunkBase *= radix;
+		}
+		int leafDigits = k * LEAF_CHUNKS;
+		int count = (end - start + leafDigits - 1) / leafDigits;
+		BigInteger[] level = new BigInteger[count];
+		MutableBigInteger leaf = new MutableBigInteger(LEAF_CHUNKS);
+		int pos = end;
+		for (int i = 0; i < count; i++) {
+			int from = Math.max(start, pos - leafDigits);
+			leaf.clear();
+			int x = from;
+			for (int chunkEnd = from + (pos - from) % k; x < pos; chunkEnd = x + k) {
+				int chunk = 0;
+				for (; x < chunkEnd; x++) {
+					chunk = chunk * radix + digit(s.charAt(x), radix);
+				}
+				leaf.multiplyAddSmall(chunkBase, chunk);
+			}
+			level[i] = leaf.toBigInteger();
+			pos = from;
+		}
+
+		leaf.clear();
+		leaf.multiplyAddSmall(chunkBase, 1);
+		for (int i = 0; i < LEAF_CHUNKS; i++) {
+			leaf.multiplyAddSmall(chunkBase, 0);
+		}
+		BigInteger power = leaf.toBigInteger();
+		while (count > 1) {
+			int pairs = count / 2;
+			for (int i = 0; i < pairs; i++) {
+				level[i] = BigInteger.addValues(BigInteger.multiplyValues(level[2 * i + 1], power), level[2 * i]);
+			}
+			if (count % 2 != 0) {
+				level[pairs] = level[count - 1];
+			}
+			count = (count + 1) / 2;
+			if (count > 1) {
+				power = BigInteger.multiplyValues(power, power);
+			}
+		}
+		return level[0].mag;
+	}
+
+	/**
+	 * Packs decimal digits into limbs, nine at a time starting from the right end.
+	 */
+	private static int[] parseDecimal(CharSequence s, int start, int end) {
+		int[] mag = new int[(end - start + Limbs.BASE_DIGITS - 1) / Limbs.BASE_DIGITS];
+		int pos = end;
+		for (int i = 0; i < mag.length; i++) {
+			int from = Math.max(start, pos - Limbs.BASE_DIGITS);
+			int limb = 0;
+			for (int x = from; x < pos; x++) {
+				int d = s.charAt(x) - '0';
+				if (d < 0 || d > 9) {
+					throw new IllegalArgumentException("Not a digit: '" + s.charAt(x) + "'");
+				}
+				limb = limb * 10 + d;
+			}
+			mag[i] = limb;
+			pos = from;
+		}
+		return mag;
+	}
+
+	/**
+	 * Packs digits of a power-of-two radix into binary words, starting from the
+	 * right end, and converts the words to limbs.
+	 */
+	private static int[] parsePowerOfTwo(CharSequence s, int start, int end, int radix) {
+		int bits = Integer.numberOfTrailingZeros(radix);
+		int[] words = new int[(int) (((long) (end - start) * bits + 31) / 32)];
+		long pending = 0;
+		int pendingBits = 0;
+		int count = 0;
+		for (int x = end - 1; x >= start; x--) {
+			pending |= (long) digit(s.charAt(x), radix) << pendingBits;
+			pendingBits += bits;
+			if (pendingBits >= 32) {
+				words[count++] = (int) pending;
+				pending >>>= 32;
+				pendingBits -= 32;
+			}
+		}
+		if (pendingBits > 0) {
+			words[count++] = (int) pending;
+		}
+		return fromWords(words, count);
+	}
+
+	/**
+	 * Writes the magnitude in decimal into the first digitCount(mag, len) chars of
+	 * dst, starting at off. The magnitude must not be zero.
+	 */
+	static void toDecimal(int[] mag, int len, char[] dst, int off) {
+		int pos = off + Limbs.digitCount(mag, len);
+		for (int i = 0; i < len - 1; i++) {
+			pos -= Limbs.BASE_DIGITS;
+			putDigits(mag[i], Limbs.BASE_DIGITS, dst, pos);
+		}
+		putDigits(mag[len - 1], pos - off, dst, off);
+	}
+
+	/**
+	 * Writes the low digits decimal digits of value, zero padded, into dst at pos.
+	 */
+	static void putDigits(int value, int digits, char[] dst, int pos) {
+		for (int i = pos + digits - 1; i >= pos; i--) {
+			int q = value / 10;
+			dst[i] = (char) ('0' + (value - q * 10));
+			value = q;
+		}
+	}
+
+	/**
+	 * Writes the low digits decimal digits of value, zero padded, into dst at pos
+	 * as ASCII bytes.
+	 */
+	static void putDigits(int value, int digits, byte[] dst, int pos) {
+		for (int i = pos + digits - 1; i >= pos; i--) {
+			int q = value / 10;
+			dst[i] = (byte) ('0' + (value - q * 10));
+			value = q;
+		}
+	}
+
+	/**
+	 * Returns the digits of a non-zero magnitude in a radix other than 10, most
+	 * significant first.
+	 *
+	 * Large values are split recursively around the powers radix^(k * 2^i), k being
+	 * chunkDigits(radix), using the fast division; the pieces that are left are
+	 * cut into limb-sized chunks of digits by short division.
+	 */
+	static String toString(int[] mag, int len, int radix) {
+		if ((radix & (radix - 1)) == 0) {
+			return toStringPowerOfTwo(mag, len, radix);
+		}
+		StringBuilder digits = new StringBuilder();
+		int k = chunkDigits(radix);
+		if (len < SCHOOL_TO_STRING_LIMBS) {
+			appendSmall(mag, len, radix, k, 0, digits);
+			return digits.toString();
+		}
+
+		//powers[i] = radix^(k * 2^i), up to about the square root of the value
+		List<BigInteger> powers = new ArrayList<BigInteger>();
+		int chunkBase = 1;
+		for (int i = 0; i < k; i++) {
+			chunkBase *= radix;
+		}
+		powers.add(new BigInteger(false, new int[] {chunkBase}, 1));
+		while (powers.get(powers.size() - 1).len * 2 <= len) {
+			BigInteger top = powers.get(powers.size() - 1);
+			powers.add(BigInteger.multiplyValues(top, top));
+		}
+		appendRecursive(new BigInteger(false, mag, len), radix, k, 0, powers, digits);
+		return digits.toString();
+	}
+
+	/**
+	 * Returns the digits of a non-zero magnitude in a power-of-two radix, read off
+	 * the bits of its binary words.
+	 */
+	private static String toStringPowerOfTwo(int[] mag, int len, int radix) {
+		int bits = Integer.numberOfTrailingZeros(radix);
+		int[] words = toWords(mag, len);
+		long bitLength = 32L * words.length - Integer.numberOfLeadingZeros(words[words.length - 1]);
+		char[] digits = new char[(int) ((bitLength + bits - 1) / bits)];
+		int mask = radix - 1;
+		for (int i = 0; i < digits.length; i++) {
+			//digit i from the right holds bits [i * bits, (i + 1) * bits)
+			long bit = (long) i * bits;
+			int w = (int) (bit >>> 5);
+			long pair = words[w] & 0xffffffffL;
+			if (w + 1 < words.length) {
+				pair |= (long) words[w + 1] << 32;
+			}
+			digits[digits.length - 1 - i] = Character.forDigit((int) (pair >>> (bit & 31)) & mask, radix);
+		}
+		return new String(digits);
+	}
+
+	/**
+	 * Appends the digits of x to out, left padded with zeros to padTo digits.
+	 */
+	private static void appendRecursive(BigInteger x, int radix, int k, int padTo,
+			List<BigInteger> powers, StringBuilder out) {
+		if (x.len < SCHOOL_TO_STRING_LIMBS) {
+			appendSmall(x.mag, x.len, radix, k, padTo, out);
+			return;
+		}
+		int i = powers.size() - 1;
+		while (powers.get(i).len * 2 > x.len + 1) {
+			i--;
+		}
+		int lowDigits = k << i;
+		BigInteger[] qr = BigInteger.divideValues(x, powers.get(i));
+		appendRecursive(qr[0], radix, k, Math.max(0, padTo - lowDigits), powers, out);
+		appendRecursive(qr[1], radix, k, lowDigits, powers, out);
+	}
+
+	/**
+	 * Appends the digits of a small magnitude to out, left padded with zeros to padTo
+	 * digits, peeling off k digits at a time by short division.
+	 */
+	private static void appendSmall(int[] mag, int len, int radix, int k, int padTo, StringBuilder out) {
+		int chunkBase = 1;
+		for (int i = 0; i < k; i++) {
+			chunkBase *= radix;
+		}
+
+		int[] rest = Arrays.copyOf(mag, len);
+		int restLen = Limbs.normalize(rest, len);
+		StringBuilder reversed = new StringBuilder();
+		while (restLen > 0) {
+			int chunk = Limbs.divideSmall(rest, restLen, chunkBase, rest);
+			restLen = Limbs.normalize(rest, restLen);
+			for (int i = 0; i < k && (restLen > 0 || chunk != 0); i++) {
+				reversed.append(Character.forDigit(chunk % radix, radix));
+				chunk /= radix;
+			}
+		}
+		for (int i = reversed.length(); i < padTo; i++) {
+			out.append('0');
+		}
+		out.append(reversed.reverse());
+	}
+
+	/**
+	 * Converts a magnitude to unsigned 32-bit binary words, least significant first.
+	 *
+	 * Large magnitudes are split by dividing by powers 2^(32 * LEAF_WORDS * 2^i), so
+	 * the cost is a few large divisions rather than a short division per word; the
+	 * pieces that are left are cut into words by short division by 2^16.
+	 *
+	 * @return Words, with no zero word at the top
+	 */
+	static int[] toWords(int[] mag, int len) {
+		len = Limbs.normalize(mag, len);
+		int[] words = new int[(len * 30 + 31) / 32 + 1];
+		if (len < LEAF_WORDS) {
+			toWordsSmall(mag, len, words, 0);
+		} else {
+			BigInteger x = new BigInteger(false, mag, len);
+			toWordsRecursive(x, wordPowers(words.length), words, 0);
+		}
+		return Arrays.copyOf(words, Limbs.normalize(words, words.length));
+	}
+
+	/**
+	 * Writes the words of x into words, starting at off.
+	 */
+	private static void toWordsRecursive(BigInteger x, List<BigInteger> powers, int[] words, int off) {
+		if (x.len <= powers.get(0).len) {
+			toWordsSmall(x.mag, x.len, words, off);
+			return;
+		}
+		int i = powers.size() - 1;
+		while (i > 0 && powers.get(i).len * 2 > x.len + 1) {
+			i--;
+		}
+		BigInteger[] qr = BigInteger.divideValues(x, powers.get(i));
+		toWordsRecursive(qr[1], powers, words, off);
+		toWordsRecursive(qr[0], powers, words, off + (LEAF_WORDS << i));
+	}
+
+	/**
+	 * Writes the words of a small magnitude into words, starting at off, by repeated
+	 * short division by 2^16.
+	 */
+	private static void toWordsSmall(int[] mag, int len, int[] words, int off) {
+		int[] rest = Arrays.copyOf(mag, len);
+		int restLen = Limbs.normalize(rest, len);
+		while (restLen > 0) {
+			int low = Limbs.divideSmall(rest, restLen, 1 << 16, rest);
+			restLen = Limbs.normalize(rest, restLen);
+			int high = Limbs.divideSmall(rest, restLen, 1 << 16, rest);
+			restLen = Limbs.normalize(rest, restLen);
+			words[off++] = (high << 16) | low;
+		}
+	}
+
+	/**
+	 * Converts unsigned 32-bit binary words, least significant first, to a magnitude.
+	 *
+	 * Large inputs are split in two around a power 2^(32 * LEAF_WORDS * 2^i), both
+	 * halves are converted, and the high one is multiplied back up; the pieces that
+	 * are left are converted by Horner's rule, 16 bits at a time.
+	 *
+	 * @return Magnitude, least significant limb first; leading limbs may be zero
+	 */
+	static int[] fromWords(int[] words, int wlen) {
+		if (wlen <= LEAF_WORDS) {
+			return fromWordsSmall(words, 0, wlen);
+		}
+		BigInteger x = fromWordsRecursive(words, 0, wlen, wordPowers(wlen));
+		return Arrays.copyOf(x.mag, x.len);
+	}
+
+	private static BigInteger fromWordsRecursive(int[] words, int off, int wlen, List<BigInteger> powers) {
+		while (wlen > 0 && words[off + wlen - 1] == 0) {
+			wlen--;
+		}
+		if (wlen <= LEAF_WORDS) {
+			int[] mag = fromWordsSmall(words, off, wlen);
+			return new BigInteger(false, mag, mag.length);
+		}
+		//the largest split LEAF_WORDS * 2^i below wlen
+		int i = 0;
+		while ((LEAF_WORDS << (i + 1)) < wlen) {
+			i++;
+		}
+		int half = LEAF_WORDS << i;
+		BigInteger low = fromWordsRecursive(words, off, half, powers);
+		BigInteger high = fromWordsRecursive(words, off + half, wlen - half, powers);
+		return BigInteger.addValues(BigInteger.multiplyValues(high, powers.get(i)), low);
+	}
+
+	private static int[] fromWordsSmall(int[] words, int off, int wlen) {
+		MutableBigInteger value = new MutableBigInteger(wlen * 32 / 29 + 2);
+		for (int i = off + wlen - 1; i >= off; i--) {
+			value.multiplyAddSmall(1 << 16, words[i] >>> 16);
+			value.multiplyAddSmall(1 << 16, words[i] & 0xffff);
+		}
+		return Arrays.copyOf(value.value, value.len);
+	}
+
+	/**
+	 * Returns the powers 2^(32 * LEAF_WORDS * 2^i) needed to split wlen words.
+	 */
+	private static List<BigInteger> wordPowers(int wlen) {
+		//2^(32 * LEAF_WORDS) by squaring 2^32, LEAF_WORDS being a power of two
+		BigInteger leaf = BigInteger.valueOf(1L << 32);
+		for (int w = 1; w < LEAF_WORDS; w *= 2) {
+			leaf = BigInteger.multiplyValues(leaf, leaf);
+		}
+		List<BigInteger> powers = new ArrayList<BigInteger>();
+		powers.add(leaf);
+		while ((LEAF_WORDS << powers.size()) < wlen) {
+			BigInteger top = powers.get(powers.size() - 1);
+			powers.add(BigInteger.multiplyValues(top, top));
+		}
+		return powers;
+	}
+
+	/**
+	 * Returns the minimal big-endian two's complement bytes of a signed magnitude,
+	 * as java.math.BigInteger.toByteArray does.
+	 */
+	static byte[] toBytes(boolean negative, int[] mag, int len) {
+		int[] words = toWords(mag, len);
+		//one more word than the magnitude needs, for the sign
+		int n = words.length + 1;
+		words = Arrays.copyOf(words, n);
+		if (negative) {
+			negate(words, n);
+		}
+		byte[] bytes = new byte[n * 4];
+		for (int i = 0; i < n; i++) {
+			int w = words[n - 1 - i];
+			bytes[i * 4] = (byte) (w >>> 24);
+			bytes[i * 4 + 1] = (byte) (w >>> 16);
+			bytes[i * 4 + 2] = (byte) (w >>> 8);
+			bytes[i * 4 + 3] = (byte) w;
+		}
+		//drop leading bytes that only repeat the sign of the next one
+		int start = 0;
+		while (start < bytes.length - 1
+				&& (bytes[start] == 0 && bytes[start + 1] >= 0 || bytes[start] == -1 && bytes[start + 1] < 0)) {
+			start++;
+		}
+		return Arrays.copyOfRange(bytes, start, bytes.length);
+	}
+
+	/**
+	 * Returns the magnitude of a big-endian two's complement number; it is negative
+	 * if the top bit of bytes[0] is set.
+	 *
+	 * @return Magnitude, least significant limb first; leading limbs may be zero
+	 */
+	static int[] fromBytes(byte[] bytes) {
+		int n = (bytes.length + 3) / 4;
+		int[] words = new int[n];
+		for (int i = 0; i < bytes.length; i++) {
+			int shift = (i & 3) * 8;
+			words[i >>> 2] |= (bytes[bytes.length - 1 - i] & 0xff) << shift;
+		}
+		if (bytes[0] < 0) {
+			//sign extend the top word, then take the absolute value
+			int used = bytes.length - (n - 1) * 4;
+			if (used < 4) {
+				words[n - 1] |= -1 << (used * 8);
+			}
+			negate(words, n);
+		}
+		return fromWords(words, n);
+	}
+
+	/**
+	 * Replaces words with their two's complement negation.
+	 */
+	private static void negate(int[] words, int n) {
+		long carry = 1;
+		for (int i = 0; i < n; i++) {
+			long t = (~words[i] & 0xffffffffL) + carry;
+			words[i] = (int) t;
+			carry = t >>> 32;
+		}
+	}
+
+	/**
+	 * Returns the number of digits in the given radix that always fit in one limb.
+	 */
+	static int chunkDigits(int radix) {
+		int k = 0;
+		long value = 1;
+		while (value * radix < Limbs.BASE) {
+			value *= radix;
+			k++;
+		}
+		return k;
+	}
+
+	/**
+	 * Returns the value of an ASCII digit or letter in the given radix.
+	 *
+	 * @throws IllegalArgumentException If c is not a digit in the radix
+	 */
+	static int digit(char c, int radix) {
+		int d;
+		if (c >= '0' && c <= '9') {
+			d = c - '0';
+		} else if (c >= 'a' && c <= 'z') {
+			d = c - 'a' + 10;
+		} else if (c >= 'A' && c <= 'Z') {
+			d = c - 'A' + 10;
+		} else {
+			d = radix;
+		}
+		if (d >= radix) {
+			throw new IllegalArgumentException("Not a digit in radix " + radix + ": '" + c + "'");
+		}
+		return d;
+	}
+}
@@ -0,0 +1,171 @@
+package bigint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Decimal parsing for input that is not held in a String: characters from a Reader,
+ * bytes from an InputStream, or a memory-mapped file.
+ *
+ * The digits arrive most significant first, before their count is known, so they
+ * are packed nine at a time into limbs in arrival order. At the end the limbs are
+ * reversed into place and the last short group of digits is folded in by one
+ * multiply-add pass. The only buffer that grows with the input is the limb array,
+ * about 0.45 bytes per digit.
+ *
+ * The format rules are those of BigInteger.parse(String): leading and trailing
+ * whitespace (any character up to ' ') is skipped, an optional sign comes first,
+ * and at least one digit is required.
+ */
+final class StreamParser {
+
+	/**
+	 * Characters read from a Reader or bytes from an InputStream per call
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Largest part of a file mapped at one time
+	 */
+	private static final long MAP_SEGMENT = 1L << 30;
+
+	private static final int LEADING = 0;
+	private static final int SIGN = 1;
+	private static final int DIGITS = 2;
+	private static final int TRAILING = 3;
+
+	private int state = LEADING;
+	private boolean negative;
+	private boolean sawDigit;
+
+	/**
+	 * Whitespace character that ended the digits, reported if more digits follow
+	 */
+	private char space;
+
+	/**
+	 * Full groups of nine digits, most significant first
+	 */
+	private int[] groups;
+	private int count;
+
+	/**
+	 * Digits of the group being filled, and how many there are
+	 */
+	private int group;
+	private int groupDigits;
+
+	private StreamParser(int capacity) {
+		groups = new int[Math.max(1, capacity)];
+	}
+
+	static BigInteger parse(Reader in) throws IOException, IllegalArgumentException {
+		StreamParser parser = new StreamParser(16);
+		char[] buffer = new char[BUFFER_SIZE];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			for (int i = 0; i < n; i++) {
+				parser.accept(buffer[i]);
+			}
+		}
+		return parser.finish();
+	}
+
+	static BigInteger parse(InputStream in) throws IOException, IllegalArgumentException {
+		StreamParser parser = new StreamParser(16);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			for (int i = 0; i < n; i++) {
+				parser.accept((char) (buffer[i] & 0xff));
+			}
+		}
+		return parser.finish();
+	}
+
+	static BigInteger parse(Path file) throws IOException, IllegalArgumentException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			StreamParser parser = new StreamParser((int) Math.min(Integer.MAX_VALUE - 8, size / Limbs.BASE_DIGITS + 1));
+			for (long position = 0; position < size; position += MAP_SEGMENT) {
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(MAP_SEGMENT, size - position));
+				int limit = segment.limit();
+				for (int i = 0; i < limit; i++) {
+					parser.accept((char) (segment.get(i) & 0xff));
+				}
+			}
+			return parser.finish();
+		}
+	}
+
+	private void accept(char c) {
+		int d = c - '0';
+		if (d >= 0 && d <= 9 && state != TRAILING) {
+			state = DIGITS;
+			sawDigit = true;
+			if (groupDigits == 0 && count == 0 && d == 0) {
+				return;
+			}
+			group = group * 10 + d;
+			if (++groupDigits == Limbs.BASE_DIGITS) {
+				if (count == groups.length) {
+					groups = Arrays.copyOf(groups, count + (count >> 1) + 1);
+				}
+				groups[count++] = group;
+				group = 0;
+				groupDigits = 0;
+			}
+			return;
+		}
+		if (c <= ' ') {
+			if (state != LEADING && state != TRAILING) {
+				state = TRAILING;
+				space = c;
+			}
+			return;
+		}
+		if (state == TRAILING) {
+			throw new IllegalArgumentException("Not a digit: '" + space + "'");
+		}
+		if (state == LEADING && (c == '-' || c == '+')) {
+			state = SIGN;
+			negative = c == '-';
+			return;
+		}
+		throw new IllegalArgumentException("Not a digit: '" + c + "'");
+	}
+
+	private BigInteger finish() {
+		if (!sawDigit) {
+			throw new IllegalArgumentException("No digits in input");
+		}
+
+		//flip the full groups into limb order, least significant first, then
+		//append the short last group: value = groups * 10^groupDigits + group
+		int[] mag = count < groups.length ? groups : Arrays.copyOf(groups, count + 1);
+		for (int i = 0, j = count - 1; i < j; i++, j--) {
+			int t = mag[i];
+			mag[i] = mag[j];
+			mag[j] = t;
+		}
+		int len = count;
+		if (groupDigits > 0) {
+			long factor = Limbs.POW10[groupDigits];
+			long carry = group;
+			for (int i = 0; i < len; i++) {
+				long t = mag[i] * factor + carry;
+				carry = t / Limbs.BASE;
+				mag[i] = (int) (t - carry * Limbs.BASE);
+			}
+			mag[len++] = (int) carry;
+		}
+		return new BigInteger(negative, mag, len);
+	}
+}
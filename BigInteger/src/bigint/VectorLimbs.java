@@ -0,0 +1,226 @@
+package bigint;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD versions of the linear Limbs loops, on the jdk.incubator.vector API. Only
+ * loaded when Limbs.VECTOR is true, i.e. when the JVM was started with
+ * --add-modules jdk.incubator.vector; every method has the same contract as its
+ * scalar counterpart in Limbs.
+ *
+ * A scalar carry loop cannot be vectorized as written, since each limb waits for
+ * the carry out of the one below. Here each lane instead computes its limb from
+ * its own pair of limbs and the pair just below it, which is loaded again one
+ * limb lower: the carry a pair generates is known without the carry coming into
+ * it. What this misses is a carry that ripples through a limb summing to exactly
+ * 999999999 - about one limb in 10^9 - which leaves that limb at 10^9 instead of
+ * 0. Such limbs are flagged and fixed afterwards in one scalar pass, which random
+ * operands essentially never need.
+ */
+final class VectorLimbs {
+
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+	private static final int LANES = INTS.length();
+
+	/**
+	 * For products, longs and doubles in the preferred shape, with as many ints in
+	 * the half-sized shape
+	 */
+	private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Integer> HALF_INTS =
+			VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+	private static final int LONG_LANES = LONGS.length();
+
+	private static final double INVERSE_BASE = 1.0 / Limbs.BASE;
+
+	private VectorLimbs() {
+	}
+
+	/**
+	 * See Limbs.add.
+	 */
+	static int[] add(int[] a, int alen, int[] b, int blen) {
+		if (alen < blen) {
+			int[] t = a; a = b; b = t;
+			int tl = alen; alen = blen; blen = tl;
+		}
+		int[] sum = new int[alen + 1];
+		if (blen == 0) {
+			System.arraycopy(a, 0, sum, 0, alen);
+			return sum;
+		}
+		int s0 = a[0] + b[0];
+		int carry = s0 >= Limbs.BASE ? 1 : 0;
+		sum[0] = s0 - carry * Limbs.BASE;
+
+		//limb i = a[i] + b[i] - BASE if that pair carries, + 1 if pair i-1 carries
+		boolean ripple = false;
+		int i = 1;
+		for (int upper = 1 + INTS.loopBound(blen - 1); i < upper; i += LANES) {
+			IntVector s = IntVector.fromArray(INTS, a, i).add(IntVector.fromArray(INTS, b, i));
+			IntVector below = IntVector.fromArray(INTS, a, i - 1).add(IntVector.fromArray(INTS, b, i - 1));
+			IntVector r = s.sub(Limbs.BASE, s.compare(VectorOperators.GE, Limbs.BASE))
+					.add(1, below.compare(VectorOperators.GE, Limbs.BASE));
+			ripple |= r.compare(VectorOperators.GE, Limbs.BASE).anyTrue();
+			r.intoArray(sum, i);
+		}
+		if (i > 1) {
+			carry = a[i - 1] + b[i - 1] >= Limbs.BASE ? 1 : 0;
+		}
+
+		//the rest the same way, one limb at a time
+		for (; i < blen; i++) {
+			int s = a[i] + b[i];
+			int generated = s >= Limbs.BASE ? 1 : 0;
+			int r = s - generated * Limbs.BASE + carry;
+			ripple |= r >= Limbs.BASE;
+			sum[i] = r;
+			carry = generated;
+		}
+		for (; i < alen; i++) {
+			int r = a[i] + carry;
+			ripple |= r >= Limbs.BASE;
+			sum[i] = r;
+			carry = 0;
+		}
+		sum[alen] = carry;
+
+		if (ripple) {
+			for (int j = 0; j < alen; j++) {
+				if (sum[j] >= Limbs.BASE) {
+					sum[j] -= Limbs.BASE;
+					sum[j + 1]++;
+				}
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * See Limbs.subtract.
+	 */
+	static int[] subtract(int[] a, int alen, int[] b, int blen) {
+		int[] diff = new int[alen];
+		if (blen == 0) {
+			System.arraycopy(a, 0, diff, 0, alen);
+			return diff;
+		}
+		int d0 = a[0] - b[0];
+		int borrow = d0 < 0 ? 1 : 0;
+		diff[0] = d0 + borrow * Limbs.BASE;
+
+		//limb i = a[i] - b[i] + BASE if that pair borrows, - 1 if pair i-1 borrows
+		boolean ripple = false;
+		int i = 1;
+		for (int upper = 1 + INTS.loopBound(blen - 1); i < upper; i += LANES) {
+			IntVector d = IntVector.fromArray(INTS, a, i).sub(IntVector.fromArray(INTS, b, i));
+			IntVector below = IntVector.fromArray(INTS, a, i - 1).sub(IntVector.fromArray(INTS, b, i - 1));
+			IntVector r = d.add(Limbs.BASE, d.compare(VectorOperators.LT, 0))
+					.sub(1, below.compare(VectorOperators.LT, 0));
+			ripple |= r.compare(VectorOperators.LT, 0).anyTrue();
+			r.intoArray(diff, i);
+		}
+		if (i > 1) {
+			borrow = a[i - 1] - b[i - 1] < 0 ? 1 : 0;
+		}
+
+		for (; i < blen; i++) {
+			int d = a[i] - b[i];
+			int generated = d < 0 ? 1 : 0;
+			int r = d + generated * Limbs.BASE - borrow;
+			ripple |= r < 0;
+			diff[i] = r;
+			borrow = generated;
+		}
+		for (; i < alen; i++) {
+			int r = a[i] - borrow;
+			ripple |= r < 0;
+			diff[i] = r;
+			borrow = 0;
+		}
+
+		if (ripple) {
+			for (int j = 0; j < alen - 1; j++) {
+				if (diff[j] < 0) {
+					diff[j] += Limbs.BASE;
+					diff[j + 1]--;
+				}
+			}
+		}
+		return diff;
+	}
+
+	/**
+	 * See Limbs.multiplySmall.
+	 */
+	static int[] multiplySmall(int[] a, int alen, int factor) {
+		int[] product = new int[alen + 1];
+		long carry = 0;
+		int i = 0;
+
+		//limb i = low part of a[i] * factor + high part of a[i-1] * factor; the
+		//quotient by BASE is estimated in double precision and then corrected. That
+		//sum often reaches BASE, so its carries are taken out and added one lane up
+		//right away; only a limb of 999999999 receiving one can still overflow
+		boolean ripple = false;
+		if (alen > LONG_LANES) {
+			long p0 = (long) a[0] * factor;
+			carry = p0 / Limbs.BASE;
+			product[0] = (int) (p0 - carry * Limbs.BASE);
+			i = 1;
+			LongVector f = LongVector.broadcast(LONGS, factor);
+			LongVector zero = LongVector.zero(LONGS);
+			LongVector carries = zero;
+			for (int upper = 1 + LONGS.loopBound(alen - 1); i < upper; i += LONG_LANES) {
+				LongVector p = widen(IntVector.fromArray(HALF_INTS, a, i)).mul(f);
+				LongVector pBelow = widen(IntVector.fromArray(HALF_INTS, a, i - 1)).mul(f);
+				LongVector r = p.sub(quotient(p).mul(Limbs.BASE)).add(quotient(pBelow));
+				VectorMask<Long> over = r.compare(VectorOperators.GE, Limbs.BASE);
+				LongVector out = zero.blend(1, over);
+				r = r.sub(Limbs.BASE, over).add(carries.slice(LONG_LANES - 1, out));
+				ripple |= r.compare(VectorOperators.GE, Limbs.BASE).anyTrue();
+				((IntVector) r.convertShape(VectorOperators.L2I, HALF_INTS, 0)).intoArray(product, i);
+				carries = out;
+			}
+			carry = (long) a[i - 1] * factor / Limbs.BASE + carries.lane(LONG_LANES - 1);
+		}
+		for (; i < alen; i++) {
+			long t = (long) a[i] * factor + carry;
+			carry = t / Limbs.BASE;
+			product[i] = (int) (t - carry * Limbs.BASE);
+		}
+		product[alen] = (int) carry;
+
+		if (ripple) {
+			for (int j = 0; j < alen; j++) {
+				if (product[j] >= Limbs.BASE) {
+					product[j] -= Limbs.BASE;
+					product[j + 1]++;
+				}
+			}
+		}
+		return product;
+	}
+
+	private static LongVector widen(IntVector x) {
+		return (LongVector) x.convertShape(VectorOperators.I2L, LONGS, 0);
+	}
+
+	/**
+	 * Returns p / BASE lane by lane, for 0 <= p < 2^60.
+	 */
+	private static LongVector quotient(LongVector p) {
+		//a double estimate is off by at most one either way
+		DoubleVector estimate = ((DoubleVector) p.convertShape(VectorOperators.L2D, DOUBLES, 0)).mul(INVERSE_BASE);
+		LongVector q = (LongVector) estimate.convertShape(VectorOperators.D2L, LONGS, 0);
+		LongVector r = p.sub(q.mul(Limbs.BASE));
+		return q.sub(1, r.compare(VectorOperators.LT, 0)).add(1, r.compare(VectorOperators.GE, Limbs.BASE));
+	}
+}
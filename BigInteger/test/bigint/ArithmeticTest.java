@@ -0,0 +1,105 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parsing, addition and comparison against java.math.BigInteger.
+ */
+class ArithmeticTest {
+
+	private static final long[] EDGES = {0, 1, -1, 999999999, 1000000000, -1000000000, Integer.MAX_VALUE,
+			Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1,
+			999999999999999999L, 1000000000000000000L, -1000000000000000000L};
+
+	@Test
+	void parseAcceptsTheDocumentedFormats() {
+		String[][] cases = {{"+0", "0"}, {"-0", "0"}, {"+123", "123"}, {"1023", "1023"}, {"0012", "12"},
+				{"0", "0"}, {"-123", "-123"}, {"-001", "-1"}, {"+000", "0"}, {"  +123  ", "123"},
+				{"\t-9\n", "-9"}, {"000000000000000000000000001", "1"},
+				{"-00000000000000000000000000000000000", "0"}};
+		for (String[] c : cases) {
+			assertEquals(c[1], BigInteger.parse(c[0]).toString(), c[0]);
+		}
+	}
+
+	@Test
+	void parseRejectsMalformedInput() {
+		for (String s : new String[] {"", " ", "+", "-", "12  345", "1-2", "--1", "+-1", "1a", "0x10",
+				"12345678901234567890x", "١٢٣"}) {
+			assertThrows(IllegalArgumentException.class, () -> BigInteger.parse(s), s);
+		}
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse("1", 1));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse("1", 37));
+	}
+
+	@Test
+	void negativeZeroIsZero() {
+		BigInteger zero = BigInteger.parse("-0");
+		assertEquals(new BigInteger(), zero);
+		assertEquals(0, zero.compareTo(BigInteger.valueOf(0)));
+		assertEquals("0", BigInteger.add(BigInteger.parse("-5"), BigInteger.parse("5")).toString());
+		assertEquals("-123456789012345678901234567890",
+				BigInteger.parse("123456789012345678901234567890").negate().toString());
+		assertSame(zero, zero.negate());
+	}
+
+	@Test
+	void longValuesAtTheEdges() {
+		for (long a : EDGES) {
+			assertEquals(Long.toString(a), BigInteger.valueOf(a).toString());
+			assertEquals(a, BigInteger.valueOf(a).longValueExact());
+			assertEquals(a, BigInteger.parse(Long.toString(a)).longValueExact());
+			for (long b : EDGES) {
+				java.math.BigInteger x = java.math.BigInteger.valueOf(a);
+				java.math.BigInteger y = java.math.BigInteger.valueOf(b);
+				assertValue(x.add(y), BigInteger.add(of(a), of(b)), a + " + " + b);
+				assertValue(x.subtract(y), BigInteger.add(of(a), of(b).negate()), a + " - " + b);
+				assertValue(x.multiply(y), BigInteger.multiply(of(a), of(b)), a + " * " + b);
+				assertEquals(Integer.signum(x.compareTo(y)), Integer.signum(of(a).compareTo(of(b))));
+			}
+		}
+		assertThrows(ArithmeticException.class,
+				() -> BigInteger.add(of(Long.MAX_VALUE), of(1)).longValueExact());
+		assertThrows(ArithmeticException.class,
+				() -> BigInteger.add(of(Long.MIN_VALUE), of(-1)).longValueExact());
+	}
+
+	@Test
+	void addMatchesJavaMath() {
+		Random random = new Random(1);
+		for (int i = 0; i < 3000; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(400));
+			java.math.BigInteger y = TestValues.randomSigned(random, random.nextInt(400));
+			assertValue(x.add(y), BigInteger.add(of(x), of(y)), x + " + " + y);
+			assertValue(x.subtract(y), BigInteger.add(of(x), of(y).negate()), x + " - " + y);
+		}
+	}
+
+	@Test
+	void compareEqualsAndHashCode() {
+		Random random = new Random(2);
+		for (int i = 0; i < 2000; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(60));
+			java.math.BigInteger y = random.nextInt(4) == 0 ? x : TestValues.randomSigned(random, random.nextInt(60));
+			BigInteger a = of(x);
+			BigInteger b = of(y);
+			assertEquals(Integer.signum(x.compareTo(y)), Integer.signum(a.compareTo(b)));
+			assertEquals(Integer.signum(x.abs().compareTo(y.abs())), Integer.signum(a.compareMagnitude(b)));
+			assertEquals(x.equals(y), a.equals(b));
+			if (x.equals(y)) {
+				assertEquals(a.hashCode(), b.hashCode());
+			}
+		}
+		assertNotEquals(of(5), of(-5));
+		assertNotEquals(of(5), "5");
+	}
+}
@@ -0,0 +1,130 @@
+package bigint;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Batch mode: splitting and running operation lines, and results written in input
+ * order by several workers.
+ */
+class BatchRunnerTest {
+
+	@Test
+	void splitsOnSpacesAndTabs() {
+		assertArrayEquals(new String[] {"add", "1", "-2"}, BatchRunner.split("add 1 -2"));
+		assertArrayEquals(new String[] {"m", "3", "4"}, BatchRunner.split("  m\t 3 \t\t4  "));
+		assertArrayEquals(new String[] {"s", "5#"}, BatchRunner.split("s 5#"));
+		assertNull(BatchRunner.split(""));
+		assertNull(BatchRunner.split(" \t "));
+		assertNull(BatchRunner.split("# add 1 2"));
+		assertNull(BatchRunner.split("  #comment"));
+	}
+
+	@Test
+	void evaluatesEveryOperation() {
+		assertEquals("-12", evaluate("parse -00012"));
+		assertEquals("-12", evaluate("p -12"));
+		assertEquals("1000000000", evaluate("add 999999999 1"));
+		assertEquals("1000000000", evaluate("a 999999999 1"));
+		assertEquals("-1000000000000000000", evaluate("multiply 1000000000 -1000000000"));
+		assertEquals("6", evaluate("M 2 3"));
+		assertEquals("-3", evaluate("divide -7 2"));
+		assertEquals("-3", evaluate("d -7 2"));
+		assertEquals("-1", evaluate("remainder -7 2"));
+		assertEquals("-1", evaluate("r -7 2"));
+		assertEquals("152415787532388367501905199875019052100", evaluate("square 12345678901234567890"));
+		assertEquals("49", evaluate("s -7"));
+		assertEquals(java.math.BigInteger.valueOf(3).pow(200).toString(), evaluate("pow 3 200"));
+		assertEquals("1", evaluate("pow 0 0"));
+	}
+
+	@Test
+	void rejectsBadLines() {
+		assertThrows(IllegalArgumentException.class, () -> evaluate("xor 1 2"));
+		assertThrows(IllegalArgumentException.class, () -> evaluate("add 1"));
+		assertThrows(IllegalArgumentException.class, () -> evaluate("add 1 2 3"));
+		assertThrows(IllegalArgumentException.class, () -> evaluate("square"));
+		assertThrows(IllegalArgumentException.class, () -> evaluate("parse 12a"));
+		assertThrows(IllegalArgumentException.class, () -> evaluate("pow 2 x"));
+		assertThrows(ArithmeticException.class, () -> evaluate("divide 1 0"));
+		assertThrows(ArithmeticException.class, () -> evaluate("remainder 1 0"));
+		assertThrows(ArithmeticException.class, () -> evaluate("pow 2 -1"));
+	}
+
+	@Test
+	void writesResultsInInputOrder() throws IOException {
+		Random random = new Random(220);
+		StringBuilder in = new StringBuilder("# generated\n");
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 2000; i++) {
+			//a mix of fast and slow lines, so workers finish out of order
+			java.math.BigInteger x = TestValues.randomSigned(random, 1 + random.nextInt(i % 10 == 0 ? 3000 : 30));
+			java.math.BigInteger y = TestValues.randomSigned(random, 1 + random.nextInt(30));
+			switch (i % 4) {
+			case 0:
+				in.append("multiply ").append(x).append(' ').append(y).append('\n');
+				expected.add(x.multiply(y).toString());
+				break;
+			case 1:
+				in.append("\t s ").append(x).append("\n\n");
+				expected.add(x.multiply(x).toString());
+				break;
+			case 2:
+				in.append("divide ").append(x).append(" 0\n");
+				expected.add("error: " + errorOf("divide " + x + " 0"));
+				break;
+			default:
+				in.append("add ").append(x).append(' ').append(y).append(" 1\n");
+				expected.add("error: add takes 2 operands, got 3");
+				break;
+			}
+		}
+		ByteArrayOutputStream report = new ByteArrayOutputStream();
+		StringWriter out = new StringWriter();
+		new BatchRunner(4, new PrintStream(report, true, StandardCharsets.UTF_8)).run(new StringReader(in.toString()),
+				out);
+
+		assertEquals(expected, List.of(out.toString().split(System.lineSeparator())));
+		assertTrue(report.toString(StandardCharsets.UTF_8).startsWith("2000 operations (1000 errors)"), report::toString);
+	}
+
+	@Test
+	void emptyInput() throws IOException {
+		StringWriter out = new StringWriter();
+		new BatchRunner(2, new PrintStream(new ByteArrayOutputStream())).run(new StringReader("\n# nothing\n"), out);
+		assertEquals("", out.toString());
+	}
+
+	@Test
+	void latencyBucketsBoundTheirLatencies() {
+		for (long nanos : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 100, 12345, 1L << 40, Long.MAX_VALUE}) {
+			int bucket = BatchRunner.latencyBucket(nanos);
+			assertTrue(nanos <= BatchRunner.latencyBound(bucket), "bound of " + nanos);
+			assertTrue(bucket == 0 || BatchRunner.latencyBound(bucket - 1) < nanos, "previous bound of " + nanos);
+			assertTrue(BatchRunner.latencyBound(bucket) - nanos <= nanos / 8, "width at " + nanos);
+		}
+	}
+
+	private static String evaluate(String line) {
+		return BatchRunner.evaluate(BatchRunner.split(line)).toString();
+	}
+
+	private static String errorOf(String line) {
+		return assertThrows(ArithmeticException.class, () -> evaluate(line)).getMessage();
+	}
+}
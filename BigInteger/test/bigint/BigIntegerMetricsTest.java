@@ -0,0 +1,162 @@
+package bigint;
+
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bigint.BigIntegerMetrics.Operation;
+import bigint.BigIntegerMetrics.Snapshot;
+import bigint.BigIntegerMetrics.Tier;
+
+/**
+ * Counters, size-class histograms and tier counts of BigIntegerMetrics. Surefire
+ * runs the tests with -Dbigint.metrics=true; MetricsDisabledTest covers the
+ * default.
+ */
+class BigIntegerMetricsTest {
+
+	private static final BigInteger LARGE = of(TestValues.random(new Random(120), 900));
+
+	@BeforeEach
+	void reset() {
+		assertTrue(BigIntegerMetrics.isEnabled(), "metrics come from the surefire configuration");
+		BigIntegerMetrics.reset();
+	}
+
+	private static long tierTotal(Snapshot s) {
+		long n = 0;
+		for (Tier tier : Tier.values()) {
+			n += s.multiplications(tier);
+		}
+		return n;
+	}
+
+	private static long sum(long[] histogram) {
+		long n = 0;
+		for (long c : histogram) {
+			n += c;
+		}
+		return n;
+	}
+
+	@Test
+	void oneMultiplyIsOneCallInItsSizeClassAndOneTier() {
+		BigInteger other = BigInteger.add(LARGE, of(1));
+		BigInteger product = BigInteger.multiply(LARGE, other);
+		Snapshot s = BigIntegerMetrics.snapshot();
+		//900 digits are 100 limbs, size class 64-127
+		int sizeClass = 7;
+		assertEquals("64-127", BigIntegerMetrics.sizeClassName(sizeClass));
+		assertEquals(1, s.calls(Operation.MULTIPLY));
+		assertEquals(1, s.calls(Operation.MULTIPLY, sizeClass));
+		assertEquals(1, sum(s.latencyHistogram(Operation.MULTIPLY, sizeClass)));
+		assertArrayEquals(s.latencyHistogram(Operation.MULTIPLY), s.latencyHistogram(Operation.MULTIPLY, sizeClass));
+		assertEquals(s.nanos(Operation.MULTIPLY), s.nanos(Operation.MULTIPLY, sizeClass));
+		assertTrue(s.latencyQuantile(Operation.MULTIPLY, sizeClass, 0.99) >= s.nanos(Operation.MULTIPLY) / 2);
+		assertEquals(product.len, s.allocatedLimbs(Operation.MULTIPLY));
+		assertEquals(1, s.multiplications(Tier.NTT));
+		assertEquals(1, tierTotal(s));
+		//add(LARGE, 1) above
+		assertEquals(1, s.calls(Operation.ADD));
+		assertEquals(0, s.calls(Operation.DIVIDE));
+	}
+
+	@Test
+	void squareCountsLikeMultiplyingByItself() {
+		LARGE.square();
+		Snapshot square = BigIntegerMetrics.snapshot();
+		BigIntegerMetrics.reset();
+		BigInteger.multiply(LARGE, LARGE);
+		Snapshot multiply = BigIntegerMetrics.snapshot();
+		for (Snapshot s : new Snapshot[] {square, multiply}) {
+			assertEquals(1, s.calls(Operation.MULTIPLY));
+			assertEquals(1, s.calls(Operation.MULTIPLY, 7));
+			assertEquals(1, s.multiplications(Tier.SQUARE_NTT));
+			assertEquals(1, tierTotal(s));
+		}
+
+		//the long fast path is counted too, as COMPACT
+		BigIntegerMetrics.reset();
+		of(3037000499L).square();
+		BigInteger.multiply(of(-3037000499L), of(3037000499L));
+		Snapshot compact = BigIntegerMetrics.snapshot();
+		assertEquals(2, compact.calls(Operation.MULTIPLY));
+		assertEquals(2, compact.calls(Operation.MULTIPLY, 2));
+		assertEquals(2, compact.multiplications(Tier.COMPACT));
+		assertEquals(2, tierTotal(compact));
+	}
+
+	@Test
+	void internalArithmeticIsNotCounted() {
+		BigInteger.divideAndRemainder(BigInteger.multiply(LARGE, LARGE), BigInteger.add(LARGE, of(7)));
+		Snapshot s = BigIntegerMetrics.snapshot();
+		assertEquals(1, s.calls(Operation.DIVIDE));
+		assertEquals(1, s.calls(Operation.MULTIPLY));
+		assertEquals(1, s.calls(Operation.ADD));
+		assertEquals(1, tierTotal(s));
+
+		BigIntegerMetrics.reset();
+		BigInteger.modPow(LARGE, LARGE, BigInteger.add(LARGE, of(2)));
+		LARGE.pow(5);
+		BigInteger.factorial(300);
+		LARGE.toString(16);
+		Expression.parse("(2^300 + 3) * 5 / 7 % 11 - 13");
+		s = BigIntegerMetrics.snapshot();
+		assertEquals(1, s.calls(Operation.ADD));
+		for (Operation op : new Operation[] {Operation.MULTIPLY, Operation.DIVIDE, Operation.PARSE}) {
+			assertEquals(0, s.calls(op), op.name());
+		}
+		assertEquals(0, tierTotal(s));
+	}
+
+	@Test
+	void parseAndToStringByResultSize() {
+		String digits = LARGE.toString();
+		Snapshot s = BigIntegerMetrics.snapshot();
+		assertEquals(1, s.calls(Operation.TO_STRING, 7));
+		BigInteger.parse(digits);
+		BigInteger.parse("0");
+		s = BigIntegerMetrics.snapshot();
+		assertEquals(2, s.calls(Operation.PARSE));
+		assertEquals(1, s.calls(Operation.PARSE, 7));
+		assertEquals(1, s.calls(Operation.PARSE, 0));
+	}
+
+	@Test
+	void snapshotIsACopyAndResetClears() {
+		BigInteger.add(LARGE, LARGE);
+		Snapshot before = BigIntegerMetrics.snapshot();
+		BigInteger.add(LARGE, LARGE);
+		assertEquals(1, before.calls(Operation.ADD));
+		assertEquals(2, BigIntegerMetrics.snapshot().calls(Operation.ADD));
+		assertTrue(before.toString().contains("64-127"));
+		BigIntegerMetrics.reset();
+		Snapshot after = BigIntegerMetrics.snapshot();
+		assertEquals(0, after.calls(Operation.ADD));
+		assertEquals(0, sum(after.latencyHistogram(Operation.ADD)));
+		assertEquals(0, after.latencyQuantile(Operation.ADD, 0.99));
+	}
+
+	@Test
+	void publishedOverJmx() throws Exception {
+		BigIntegerMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+				new ObjectName("bigint:type=Metrics"), BigIntegerMetricsMXBean.class);
+		BigInteger.multiply(LARGE, of(5));
+		assertTrue(bean.isEnabled());
+		assertEquals(1, bean.getCalls().get("MULTIPLY"));
+		assertEquals(1, bean.getMultiplyTiers().get("SCHOOLBOOK"));
+		assertTrue(bean.getP99NanosBySize().containsKey("MULTIPLY 64-127"));
+		bean.reset();
+		assertEquals(0, bean.getCalls().get("MULTIPLY"));
+	}
+}
@@ -0,0 +1,47 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sums with deferred carries against java.math.BigInteger.
+ */
+class BigIntegerSummerTest {
+
+	@Test
+	void sumOfMatchesRepeatedAddition() {
+		Random random = new Random(3);
+		List<BigInteger> values = new ArrayList<BigInteger>();
+		java.math.BigInteger expected = java.math.BigInteger.ZERO;
+		for (int i = 0; i < 500; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(200));
+			values.add(of(x));
+			expected = expected.add(x);
+		}
+		assertValue(expected, BigInteger.sumOf(values));
+		assertValue(expected, values.parallelStream().collect(BigIntegerSummer.summing()));
+		assertEquals("0", BigInteger.sumOf(new ArrayList<BigInteger>()).toString());
+		assertValue(java.math.BigInteger.valueOf(Long.MIN_VALUE).shiftLeft(1),
+				new BigIntegerSummer().add(Long.MIN_VALUE).add(Long.MIN_VALUE).sum());
+	}
+
+	@Test
+	void cancellingTermsSumToZero() {
+		Random random = new Random(4);
+		BigIntegerSummer summer = new BigIntegerSummer();
+		BigIntegerSummer negated = new BigIntegerSummer();
+		for (int i = 0; i < 300; i++) {
+			BigInteger x = of(TestValues.randomSigned(random, random.nextInt(300)));
+			summer.add(x);
+			negated.add(x.negate());
+		}
+		assertEquals(new BigInteger(), summer.combine(negated).sum());
+	}
+}
@@ -0,0 +1,163 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round trips through the binary format, in buffers and files, and rejection of
+ * malformed data.
+ */
+class BinaryFormatTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void bufferRoundTrip() {
+		Random random = new Random(60);
+		List<java.math.BigInteger> values = new ArrayList<java.math.BigInteger>();
+		values.add(java.math.BigInteger.ZERO);
+		values.add(java.math.BigInteger.valueOf(Long.MIN_VALUE));
+		for (int digits = 1; digits <= 3000; digits += 1 + digits / 4) {
+			values.add(TestValues.randomSigned(random, digits));
+		}
+		int size = 0;
+		for (java.math.BigInteger x : values) {
+			size += of(x).serializedSize();
+		}
+		for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+			ByteBuffer buffer = ByteBuffer.allocate(size + 3).order(order);
+			buffer.position(3);
+			for (java.math.BigInteger x : values) {
+				of(x).writeTo(buffer);
+			}
+			assertEquals(size + 3, buffer.position());
+			buffer.flip().position(3);
+			for (java.math.BigInteger x : values) {
+				assertValue(x, BigInteger.readFrom(buffer));
+			}
+			assertEquals(0, buffer.remaining());
+			assertEquals(order, buffer.order());
+		}
+	}
+
+	@Test
+	void sizeIsHeaderPlusLimbs() {
+		assertEquals(6, new BigInteger().serializedSize());
+		assertEquals(10, of(-999999999).serializedSize());
+		assertEquals(14, of(1000000000).serializedSize());
+	}
+
+	@Test
+	void shortBuffersLeaveThePositionAlone() {
+		BigInteger x = BigInteger.parse("-123456789012345678901234567890");
+		ByteBuffer small = ByteBuffer.allocate(x.serializedSize() - 1);
+		assertThrows(BufferOverflowException.class, () -> x.writeTo(small));
+		assertEquals(0, small.position());
+
+		ByteBuffer full = ByteBuffer.allocate(x.serializedSize());
+		x.writeTo(full);
+		for (int n = 0; n < full.capacity(); n++) {
+			ByteBuffer truncated = ByteBuffer.wrap(full.array(), 0, n);
+			assertThrows(BufferUnderflowException.class, () -> BigInteger.readFrom(truncated));
+			assertEquals(0, truncated.position());
+		}
+	}
+
+	@Test
+	void rejectsMalformedData() {
+		ByteBuffer buffer = ByteBuffer.allocate(10).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(0, (byte) 2).put(1, (byte) 0).putInt(2, 1).putInt(6, 5);
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.readFrom(buffer.duplicate()));
+		buffer.put(0, BinaryFormat.VERSION).put(1, (byte) 2);
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.readFrom(buffer.duplicate()));
+		buffer.put(1, (byte) 1).putInt(2, -1);
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.readFrom(buffer.duplicate()));
+		buffer.putInt(2, 1).putInt(6, Limbs.BASE);
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.readFrom(buffer.duplicate()));
+		buffer.putInt(6, -5);
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.readFrom(buffer.duplicate()));
+		buffer.putInt(6, 5);
+		assertValue(java.math.BigInteger.valueOf(-5), BigInteger.readFrom(buffer.duplicate()));
+	}
+
+	@Test
+	void malformedDataLeavesThePositionAlone() {
+		ByteBuffer buffer = ByteBuffer.allocate(10).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(BinaryFormat.VERSION).put((byte) 0).putInt(1).putInt(Limbs.BASE).flip();
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.readFrom(buffer));
+		assertEquals(0, buffer.position());
+		buffer.put(0, (byte) 9);
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.readFrom(buffer));
+		assertEquals(0, buffer.position());
+	}
+
+	@Test
+	void leadingZeroLimbsAreTolerated() {
+		ByteBuffer buffer = ByteBuffer.allocate(18).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(BinaryFormat.VERSION).put((byte) 1).putInt(3).putInt(7).putInt(0).putInt(0).flip();
+		BigInteger x = BigInteger.readFrom(buffer);
+		assertValue(java.math.BigInteger.valueOf(-7), x);
+		assertEquals(of(-7), x);
+		assertEquals(of(-7).hashCode(), x.hashCode());
+	}
+
+	@Test
+	void fileRoundTrip() throws IOException {
+		Random random = new Random(61);
+		List<BigInteger> values = new ArrayList<BigInteger>();
+		values.add(new BigInteger());
+		//more than 1 MB of limbs, for both the chunked write and the mapped read
+		int[] mag = new int[300000];
+		for (int i = 0; i < mag.length; i++) {
+			mag[i] = 1 + random.nextInt(Limbs.BASE - 1);
+		}
+		values.add(new BigInteger(true, mag, mag.length));
+		for (int digits = 1; digits <= 3000; digits += 1 + digits / 3) {
+			values.add(of(TestValues.randomSigned(random, digits)));
+		}
+		Path file = dir.resolve("values.bin");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			for (BigInteger x : values) {
+				x.writeTo(channel);
+			}
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			for (BigInteger x : values) {
+				assertEquals(x, BigInteger.readFrom(channel));
+			}
+			assertEquals(channel.size(), channel.position());
+			assertThrows(EOFException.class, () -> BigInteger.readFrom(channel));
+		}
+	}
+
+	@Test
+	void truncatedFile() throws IOException {
+		Path file = dir.resolve("truncated.bin");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			BigInteger.parse("123456789012345678901234567890").writeTo(channel);
+			channel.truncate(channel.size() - 1);
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			assertThrows(EOFException.class, () -> BigInteger.readFrom(channel));
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package bigint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The calculator service over a real connection: pipelined requests answered in
+ * order, and lines over the length limit rejected without dropping the connection.
+ */
+class CalculatorServerTest {
+
+	private CalculatorServer server;
+
+	private Socket connect(int maxLineLength) throws IOException {
+		server = new CalculatorServer(0, maxLineLength);
+		Thread.ofVirtual().start(() -> {
+			try {
+				server.serve();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+		socket.setSoTimeout(60000);
+		return socket;
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		if (server != null) {
+			server.close();
+		}
+	}
+
+	/**
+	 * Sends the requests from another thread, so that neither side blocks on a full
+	 * socket buffer while the other is not reading.
+	 */
+	private static Thread send(Socket socket, String requests) {
+		return Thread.ofVirtual().start(() -> {
+			try {
+				OutputStream out = socket.getOutputStream();
+				out.write(requests.getBytes(StandardCharsets.UTF_8));
+				out.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	@Test
+	void answersPipelinedRequestsInOrder() throws IOException, InterruptedException {
+		Random random = new Random(230);
+		String divideByZero = BatchRunner.error(assertThrows(ArithmeticException.class,
+				() -> BatchRunner.evaluate(new String[] {"remainder", "1", "0"})));
+		StringBuilder requests = new StringBuilder();
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 3000; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, 1 + random.nextInt(i % 50 == 0 ? 5000 : 40));
+			java.math.BigInteger y = TestValues.randomSigned(random, 1 + random.nextInt(40));
+			switch (i % 5) {
+			case 0:
+				requests.append("multiply ").append(x).append(' ').append(y).append("\r\n");
+				expected.add(x.multiply(y).toString());
+				break;
+			case 1:
+				requests.append("# comment\n\nadd ").append(x).append(' ').append(y).append('\n');
+				expected.add(x.add(y).toString());
+				break;
+			case 2:
+				requests.append("remainder ").append(x).append(" 0\n");
+				expected.add(divideByZero);
+				break;
+			case 3:
+				requests.append("square ").append(x).append('\n');
+				expected.add(x.multiply(x).toString());
+				break;
+			default:
+				requests.append("frobnicate ").append(x).append('\n');
+				expected.add("error: Unknown operation \"frobnicate\"");
+				break;
+			}
+		}
+		requests.append("quit\n");
+
+		try (Socket socket = connect(CalculatorServer.MAX_LINE_LENGTH);
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+			Thread sender = send(socket, requests.toString());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i), in.readLine(), "response " + i);
+			}
+			//quit closes the connection
+			assertNull(in.readLine());
+			sender.join();
+		}
+	}
+
+	@Test
+	void rejectsLinesOverTheLimit() throws IOException, InterruptedException {
+		String tooLong = "add " + "1".repeat(300) + " 1\n";
+		String fits = "add " + "9".repeat(93) + " 1\n";
+		try (Socket socket = connect(100);
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+			Thread sender = send(socket, "parse 7\n" + tooLong + fits + tooLong + tooLong.repeat(20) + "m 6 7\n"
+					+ "s " + "1".repeat(200));
+			assertEquals("7", in.readLine());
+			assertEquals("error: line too long", in.readLine());
+			assertEquals("1" + "0".repeat(93), in.readLine());
+			for (int i = 0; i < 21; i++) {
+				assertEquals("error: line too long", in.readLine());
+			}
+			assertEquals("42", in.readLine());
+			sender.join();
+			//the last line has no terminator and is only ended by the end of the stream
+			socket.shutdownOutput();
+			assertEquals("error: line too long", in.readLine());
+			assertNull(in.readLine());
+		}
+	}
+}
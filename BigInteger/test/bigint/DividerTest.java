@@ -0,0 +1,105 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Division against java.math.BigInteger: short division, Knuth algorithm D and
+ * Burnikel-Ziegler, with every combination of signs.
+ */
+class DividerTest {
+
+	private static void check(java.math.BigInteger x, java.math.BigInteger y) {
+		java.math.BigInteger[] expected = x.divideAndRemainder(y);
+		BigInteger[] qr = BigInteger.divideAndRemainder(of(x), of(y));
+		assertValue(expected[0], qr[0], x + " / " + y);
+		assertValue(expected[1], qr[1], x + " % " + y);
+	}
+
+	@Test
+	void divideMatchesJavaMath() {
+		Random random = new Random(20);
+		for (int i = 0; i < 3000; i++) {
+			java.math.BigInteger y = TestValues.randomSigned(random, 1 + random.nextInt(300));
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(700));
+			if (y.signum() != 0) {
+				check(x, y);
+			}
+		}
+	}
+
+	@Test
+	void burnikelZieglerMatchesJavaMath() {
+		//the quotient must be at least Divider.BURNIKEL_ZIEGLER_OFFSET limbs long
+		Random random = new Random(21);
+		for (int divisorDigits = 40; divisorDigits <= 3000; divisorDigits += 1 + divisorDigits / 3) {
+			for (int i = 0; i < 4; i++) {
+				java.math.BigInteger y = TestValues.randomSigned(random, divisorDigits);
+				java.math.BigInteger x = TestValues.randomSigned(random,
+						divisorDigits + 9 * Divider.BURNIKEL_ZIEGLER_OFFSET + random.nextInt(3 * divisorDigits));
+				if (y.signum() != 0) {
+					check(x, y);
+				}
+			}
+		}
+	}
+
+	@Test
+	void exactAndNearExactDivision() {
+		Random random = new Random(22);
+		for (int i = 0; i < 300; i++) {
+			java.math.BigInteger y = TestValues.randomSigned(random, 1 + random.nextInt(500));
+			java.math.BigInteger q = TestValues.randomSigned(random, random.nextInt(900));
+			if (y.signum() == 0) {
+				continue;
+			}
+			java.math.BigInteger x = y.multiply(q);
+			check(x, y);
+			check(x.add(java.math.BigInteger.ONE), y);
+			check(x.subtract(java.math.BigInteger.ONE), y);
+			check(x.add(y.abs()).subtract(java.math.BigInteger.ONE), y);
+		}
+	}
+
+	@Test
+	void extremeDigits() {
+		java.math.BigInteger ten = java.math.BigInteger.TEN;
+		for (int n = 1; n <= 800; n += 1 + n / 4) {
+			java.math.BigInteger nines = ten.pow(n).subtract(java.math.BigInteger.ONE);
+			java.math.BigInteger power = ten.pow(n);
+			for (int m = 1; m <= 3 * n; m += 1 + m / 3) {
+				java.math.BigInteger bigNines = ten.pow(m + n).subtract(java.math.BigInteger.ONE);
+				check(bigNines, nines);
+				check(bigNines, power);
+				check(ten.pow(m + n), nines);
+				check(ten.pow(m + n), power.add(java.math.BigInteger.ONE));
+			}
+		}
+	}
+
+	@Test
+	void smallAndZeroOperands() {
+		long[] values = {0, 1, -1, 7, -7, 999999999, 1000000000, -1000000001, Long.MAX_VALUE, Long.MIN_VALUE};
+		for (long a : values) {
+			for (long b : values) {
+				if (b != 0) {
+					check(java.math.BigInteger.valueOf(a), java.math.BigInteger.valueOf(b));
+				}
+			}
+		}
+		java.math.BigInteger large = java.math.BigInteger.TEN.pow(200).add(java.math.BigInteger.valueOf(7));
+		check(java.math.BigInteger.ZERO, large);
+		check(java.math.BigInteger.valueOf(-5), large);
+		check(large, large.negate());
+		check(large.negate(), java.math.BigInteger.valueOf(Long.MIN_VALUE));
+		assertValue(java.math.BigInteger.valueOf(-3), BigInteger.divide(of(-7), of(2)));
+		assertValue(java.math.BigInteger.valueOf(-1), BigInteger.remainder(of(-7), of(2)));
+		assertThrows(ArithmeticException.class, () -> BigInteger.divide(of(large), new BigInteger()));
+		assertThrows(ArithmeticException.class, () -> BigInteger.remainder(of(0), of(0)));
+	}
+}
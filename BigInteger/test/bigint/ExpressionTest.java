@@ -0,0 +1,150 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parsing, simplification, subexpression sharing and evaluation of Expression
+ * formulas, against the same formulas computed with java.math.BigInteger.
+ */
+class ExpressionTest {
+
+	private static BigInteger eval(String formula, long... values) {
+		BigInteger[] args = new BigInteger[values.length];
+		for (int i = 0; i < values.length; i++) {
+			args[i] = of(values[i]);
+		}
+		return Expression.parse(formula).evaluate(args);
+	}
+
+	@Test
+	void precedenceAndAssociativity() {
+		assertEquals("14", eval("2 + 3 * 4").toString());
+		assertEquals("20", eval("(2 + 3) * 4").toString());
+		assertEquals("-4", eval("-2^2").toString());
+		assertEquals("4", eval("(-2)^2").toString());
+		assertEquals("262144", eval("4^3^2").toString());
+		assertEquals("1", eval("10 - 4 - 5").toString());
+		assertEquals("2", eval("100 / 10 / 5").toString());
+		assertEquals("-3", eval("-7 / 2").toString());
+		assertEquals("-1", eval("-7 % 2").toString());
+		assertEquals("5", eval("--5").toString());
+		assertEquals("6", eval("x * y % 7 + x", 3, 8).toString());
+	}
+
+	@Test
+	void variablesInOrderOfFirstAppearance() {
+		Expression e = Expression.parse("b * a - c + b");
+		assertEquals(Arrays.asList("b", "a", "c"), e.variables());
+		assertEquals("13", e.evaluate(of(2), of(7), of(3)).toString());
+		Map<String, BigInteger> bindings = new HashMap<String, BigInteger>();
+		bindings.put("a", of(7));
+		bindings.put("b", of(2));
+		bindings.put("c", of(3));
+		bindings.put("unused", of(100));
+		assertEquals("13", e.evaluate(bindings).toString());
+		assertEquals(Arrays.asList("x"), Expression.parse("x - x + 1").variables());
+	}
+
+	@Test
+	void constantsAreFolded() {
+		Expression e = Expression.parse("(2^100 + 3) * 5 - 7 / 2 % 2");
+		assertEquals(0, e.operationCount());
+		assertValue(java.math.BigInteger.TWO.pow(100).add(java.math.BigInteger.valueOf(3))
+				.multiply(java.math.BigInteger.valueOf(5)).subtract(java.math.BigInteger.ONE), e.evaluate());
+		assertEquals(0, Expression.parse("x * 0").operationCount());
+		assertEquals("0", Expression.parse("x * 0").evaluate(of(5)).toString());
+		assertEquals(0, Expression.parse("x - x").operationCount());
+		assertEquals(0, Expression.parse("(x + 0) * 1 / 1 ^ 1").operationCount());
+		assertEquals("0", Expression.parse("x % 1").evaluate(of(-9)).toString());
+	}
+
+	@Test
+	void identicalSubexpressionsAreComputedOnce() {
+		//a + b once, then its square
+		assertEquals(2, Expression.parse("(a + b) * (a + b)").operationCount());
+		assertEquals(2, Expression.parse("(a + b) * (b + a)").operationCount());
+		//x * y once, x * y + 1 once, then its square
+		Expression e = Expression.parse("(x * y + 1) * (y * x + 1)");
+		assertEquals(3, e.operationCount());
+		assertEquals("1849", e.evaluate(of(6), of(7)).toString());
+		//x * y + x * y is 2 * x * y, one product
+		assertEquals(1, Expression.parse("x * y + x * y").operationCount());
+		//a * b once, shared by the two quotients and their sum
+		assertEquals(4, Expression.parse("a * b / c + a * b % c").operationCount());
+		assertEquals(Expression.parse("x + y").operationCount(), Expression.parse("y + x").operationCount());
+	}
+
+	@Test
+	void matchesJavaMathOnLargeValues() {
+		Random random = new Random(100);
+		Expression e = Expression.parse("(a + b) * (a + b) - 3 * c % 7 + a * b * c * d / (d - 5) + (a - b)^3");
+		for (int i = 0; i < 200; i++) {
+			java.math.BigInteger a = TestValues.randomSigned(random, random.nextInt(200));
+			java.math.BigInteger b = TestValues.randomSigned(random, random.nextInt(200));
+			java.math.BigInteger c = TestValues.randomSigned(random, random.nextInt(200));
+			java.math.BigInteger d = TestValues.randomSigned(random, random.nextInt(200));
+			java.math.BigInteger five = java.math.BigInteger.valueOf(5);
+			if (d.equals(five)) {
+				continue;
+			}
+			java.math.BigInteger expected = a.add(b).pow(2)
+					.subtract(java.math.BigInteger.valueOf(3).multiply(c).remainder(java.math.BigInteger.valueOf(7)))
+					.add(a.multiply(b).multiply(c).multiply(d).divide(d.subtract(five)))
+					.add(a.subtract(b).pow(3));
+			assertValue(expected, e.evaluate(of(a), of(b), of(c), of(d)));
+		}
+	}
+
+	@Test
+	void evaluateAllMatchesEvaluate() {
+		Random random = new Random(101);
+		Expression e = Expression.parse("x^2 - 4*x*y + y - 7 + x + y + z");
+		BigInteger[][] bindings = new BigInteger[50][];
+		for (int i = 0; i < bindings.length; i++) {
+			bindings[i] = new BigInteger[] {of(TestValues.randomSigned(random, random.nextInt(100))),
+					of(TestValues.randomSigned(random, random.nextInt(100))),
+					of(TestValues.randomSigned(random, random.nextInt(100)))};
+		}
+		BigInteger[] results = e.evaluateAll(bindings);
+		assertEquals(bindings.length, results.length);
+		for (int i = 0; i < bindings.length; i++) {
+			assertEquals(e.evaluate(bindings[i]), results[i]);
+		}
+		assertEquals(0, e.evaluateAll(new BigInteger[0][]).length);
+	}
+
+	@Test
+	void evaluationErrors() {
+		Expression e = Expression.parse("x / y + x % y");
+		assertThrows(ArithmeticException.class, () -> e.evaluate(of(5), new BigInteger()));
+		assertThrows(ArithmeticException.class, () -> e.evaluateAll(new BigInteger[][] {{of(5), of(1)},
+				{of(5), of(0)}}));
+		assertThrows(IllegalArgumentException.class, () -> e.evaluate(of(5)));
+		assertThrows(IllegalArgumentException.class, () -> e.evaluate(of(5), null));
+		assertThrows(IllegalArgumentException.class, () -> e.evaluate(new HashMap<String, BigInteger>()));
+		assertThrows(ArithmeticException.class, () -> Expression.parse("x ^ y").evaluate(of(2), of(-1)));
+		assertEquals("1", Expression.parse("x ^ y").evaluate(of(-1), BigInteger.parse("1" + "0".repeat(30)))
+				.toString());
+		//constant division by zero is left to the evaluation
+		Expression zero = Expression.parse("1 / 0");
+		assertThrows(ArithmeticException.class, () -> zero.evaluate());
+	}
+
+	@Test
+	void malformedFormulas() {
+		for (String formula : new String[] {"", "1 +", "(1 + 2", "1 + 2)", "1 ** 2", "x y", "1 $ 2", "()",
+				"* 3"}) {
+			assertThrows(IllegalArgumentException.class, () -> Expression.parse(formula), formula);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package bigint;
+
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+import bigint.BigIntegerMetrics.Operation;
+import bigint.BigIntegerMetrics.Snapshot;
+import bigint.BigIntegerMetrics.Tier;
+
+/**
+ * With bigint.metrics unset, nothing is recorded. Surefire runs this test in a JVM
+ * of its own, without the property.
+ */
+class MetricsDisabledTest {
+
+	@Test
+	void nothingIsRecorded() {
+		assertFalse(BigIntegerMetrics.isEnabled());
+		BigInteger x = BigInteger.parse("9".repeat(900));
+		BigInteger.multiply(x, x);
+		BigInteger.multiply(x, of(3));
+		BigInteger.divideAndRemainder(x, of(7));
+		BigInteger.add(x, x);
+		x.square();
+		x.toString();
+		x.front();
+		Snapshot s = BigIntegerMetrics.snapshot();
+		for (Operation op : Operation.values()) {
+			assertEquals(0, s.calls(op), op.name());
+			assertEquals(0, s.nanos(op), op.name());
+			assertEquals(0, s.allocatedLimbs(op), op.name());
+		}
+		for (Tier tier : Tier.values()) {
+			assertEquals(0, s.multiplications(tier), tier.name());
+		}
+		assertEquals(0, s.allocatedNodes());
+	}
+}
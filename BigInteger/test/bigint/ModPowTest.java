@@ -0,0 +1,79 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Modular exponentiation against java.math.BigInteger, with Montgomery reduction
+ * for odd moduli and division for even ones.
+ */
+class ModPowTest {
+
+	private static void check(java.math.BigInteger base, java.math.BigInteger exponent, java.math.BigInteger modulus) {
+		assertValue(base.modPow(exponent, modulus), BigInteger.modPow(of(base), of(exponent), of(modulus)),
+				base + " ^ " + exponent + " mod " + modulus);
+	}
+
+	@Test
+	void oddAndEvenModuli() {
+		Random random = new Random(30);
+		for (int digits = 1; digits <= 400; digits += 1 + digits / 5) {
+			for (int i = 0; i < 6; i++) {
+				java.math.BigInteger modulus = TestValues.random(random, digits).add(java.math.BigInteger.ONE);
+				if (i % 2 == 0) {
+					modulus = modulus.setBit(0);
+				}
+				java.math.BigInteger base = TestValues.randomSigned(random, random.nextInt(2 * digits + 1));
+				java.math.BigInteger exponent = TestValues.random(random, 1 + random.nextInt(40));
+				check(base, exponent, modulus);
+			}
+		}
+	}
+
+	@Test
+	void edgeCases() {
+		java.math.BigInteger m = java.math.BigInteger.TEN.pow(100).add(java.math.BigInteger.valueOf(267));
+		java.math.BigInteger big = java.math.BigInteger.TEN.pow(150).subtract(java.math.BigInteger.ONE);
+		long[] small = {0, 1, -1, 2, -2, 3};
+		for (java.math.BigInteger modulus : new java.math.BigInteger[] {java.math.BigInteger.ONE,
+				java.math.BigInteger.TWO, java.math.BigInteger.valueOf(3), m, m.add(java.math.BigInteger.ONE)}) {
+			for (long b : small) {
+				for (long e : new long[] {0, 1, 2, 65537}) {
+					check(java.math.BigInteger.valueOf(b), java.math.BigInteger.valueOf(e), modulus);
+				}
+			}
+			check(big, big, modulus);
+			check(big.negate(), m, modulus);
+			check(m, big, modulus);
+		}
+		//a power of two and a power of ten, the worst even moduli
+		check(big, m, java.math.BigInteger.TWO.pow(333));
+		check(big, m, java.math.BigInteger.TEN.pow(99));
+	}
+
+	@Test
+	void contextIsReusable() {
+		Random random = new Random(31);
+		java.math.BigInteger modulus = TestValues.random(random, 300).setBit(0);
+		ModContext context = new ModContext(of(modulus));
+		assertValue(modulus, context.getModulus());
+		for (int i = 0; i < 40; i++) {
+			java.math.BigInteger base = TestValues.randomSigned(random, random.nextInt(600));
+			java.math.BigInteger exponent = TestValues.random(random, random.nextInt(50));
+			assertValue(base.modPow(exponent, modulus), context.modPow(of(base), of(exponent)));
+		}
+	}
+
+	@Test
+	void rejectsBadArguments() {
+		assertThrows(ArithmeticException.class, () -> BigInteger.modPow(of(2), of(-1), of(7)));
+		assertThrows(ArithmeticException.class, () -> BigInteger.modPow(of(2), of(3), of(0)));
+		assertThrows(ArithmeticException.class, () -> BigInteger.modPow(of(2), of(3), of(-7)));
+		assertThrows(ArithmeticException.class, () -> new ModContext(new BigInteger()));
+	}
+}
@@ -0,0 +1,190 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import bigint.BigIntegerMetrics.Tier;
+
+/**
+ * Multiplication, squaring and products against java.math.BigInteger, at sizes on
+ * both sides of every tier threshold.
+ */
+class MultiplierTest {
+
+	@Test
+	void thresholdsAreSmallEnoughToReachEveryTier() {
+		int[] a = new int[Multiplier.NTT_THRESHOLD];
+		assertEquals(Tier.SCHOOLBOOK, Multiplier.tier(a, 3, new int[3], 3));
+		assertEquals(Tier.KARATSUBA, Multiplier.tier(a, Multiplier.KARATSUBA_THRESHOLD, a.clone(),
+				Multiplier.KARATSUBA_THRESHOLD));
+		assertEquals(Tier.TOOM_COOK_3, Multiplier.tier(a, Multiplier.TOOM_COOK_THRESHOLD, a.clone(),
+				Multiplier.TOOM_COOK_THRESHOLD));
+		assertEquals(Tier.NTT, Multiplier.tier(a, a.length, a.clone(), a.length));
+		assertEquals(Tier.SQUARE_TOOM_COOK_3, Multiplier.squareTier(Multiplier.TOOM_COOK_SQUARE_THRESHOLD));
+		assertEquals(Tier.SQUARE_NTT, Multiplier.squareTier(a.length));
+		assertTrue(Multiplier.NTT_THRESHOLD <= 40, "thresholds come from the surefire configuration");
+	}
+
+	@Test
+	void multiplyMatchesJavaMath() {
+		Random random = new Random(10);
+		for (int digits = 0; digits <= 600; digits += 1 + digits / 20) {
+			for (int i = 0; i < 8; i++) {
+				java.math.BigInteger x = TestValues.randomSigned(random, digits);
+				java.math.BigInteger y = TestValues.randomSigned(random, Math.max(0, digits + random.nextInt(20) - 10));
+				assertValue(x.multiply(y), BigInteger.multiply(of(x), of(y)), x + " * " + y);
+			}
+		}
+	}
+
+	@Test
+	void unbalancedMultiplyMatchesJavaMath() {
+		Random random = new Random(11);
+		int[] shortDigits = {1, 9, 10, 40, 90, 100, 230, 400};
+		for (int s : shortDigits) {
+			for (int i = 0; i < 6; i++) {
+				java.math.BigInteger x = TestValues.randomSigned(random, s);
+				java.math.BigInteger y = TestValues.randomSigned(random, 300 + random.nextInt(3000));
+				assertValue(x.multiply(y), BigInteger.multiply(of(x), of(y)));
+				assertValue(y.multiply(x), BigInteger.multiply(of(y), of(x)));
+			}
+		}
+	}
+
+	@Test
+	void squareMatchesJavaMath() {
+		Random random = new Random(12);
+		for (int digits = 0; digits <= 1200; digits += 1 + digits / 15) {
+			java.math.BigInteger x = TestValues.randomSigned(random, digits);
+			BigInteger a = of(x);
+			java.math.BigInteger expected = x.multiply(x);
+			assertValue(expected, a.square(), "square of " + x);
+			assertValue(expected, BigInteger.multiply(a, a), x + " * itself");
+			assertValue(expected, BigInteger.multiply(a, of(x)), x + " * a copy");
+			assertValue(expected.negate(), BigInteger.multiply(a, a.negate()), x + " * -" + x);
+		}
+	}
+
+	@Test
+	void parallelMultiplyMatchesJavaMath() {
+		Random random = new Random(17);
+		for (int digits = 0; digits <= 3000; digits += 1 + digits / 4) {
+			java.math.BigInteger x = TestValues.randomSigned(random, digits);
+			java.math.BigInteger y = TestValues.randomSigned(random, random.nextInt(digits + 1));
+			assertValue(x.multiply(y), BigInteger.multiplyParallel(of(x), of(y)), x + " * " + y);
+			assertValue(y.multiply(y), BigInteger.multiplyParallel(of(y), of(y)), y + " * itself");
+		}
+	}
+
+	@Test
+	void nttMultiplyMatchesJavaMath() {
+		Random random = new Random(13);
+		for (int digits = 0; digits <= 3000; digits += 1 + digits / 4) {
+			java.math.BigInteger x = TestValues.randomSigned(random, digits);
+			java.math.BigInteger y = TestValues.randomSigned(random, random.nextInt(digits + 1));
+			assertValue(x.multiply(y), BigInteger.multiplyNtt(of(x), of(y)), x + " * " + y);
+		}
+		//all nines make every transform coefficient as large as it can be
+		java.math.BigInteger nines = java.math.BigInteger.TEN.pow(9 * 3000).subtract(java.math.BigInteger.ONE);
+		assertValue(nines.multiply(nines), BigInteger.multiplyNtt(of(nines), of(nines)));
+	}
+
+	@Test
+	void nttMagnitudesAtEveryLength() {
+		Random random = new Random(14);
+		for (int alen = 1; alen <= 70; alen++) {
+			int blen = 1 + random.nextInt(alen);
+			int[] a = limbs(random, alen);
+			int[] b = limbs(random, blen);
+			int[] expected = Limbs.multiply(a, alen, b, blen);
+			int[] product = NttMultiplier.multiply(a, alen, b, blen);
+			assertEquals(0, Limbs.compare(expected, Limbs.normalize(expected, expected.length), product,
+					Limbs.normalize(product, product.length)), alen + " x " + blen + " limbs");
+		}
+	}
+
+	@Test
+	void powMatchesJavaMath() {
+		Random random = new Random(15);
+		for (int i = 0; i < 200; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(30));
+			int n = random.nextInt(60);
+			assertValue(x.pow(n), of(x).pow(n), x + " ^ " + n);
+		}
+		assertValue(java.math.BigInteger.ONE, of(0).pow(0));
+		assertValue(java.math.BigInteger.valueOf(-2).pow(1001), of(-2).pow(1001));
+		assertThrows(ArithmeticException.class, () -> of(2).pow(-1));
+	}
+
+	@Test
+	void productOfMatchesJavaMath() {
+		Random random = new Random(16);
+		List<BigInteger> factors = new ArrayList<BigInteger>();
+		java.math.BigInteger expected = java.math.BigInteger.ONE;
+		long[] longs = new long[400];
+		for (int i = 0; i < 400; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, 1 + random.nextInt(40));
+			factors.add(of(x));
+			expected = expected.multiply(x);
+			longs[i] = random.nextLong();
+		}
+		assertValue(expected, BigInteger.productOf(factors));
+		assertValue(product(longs), BigInteger.productOf(longs));
+		assertValue(java.math.BigInteger.ONE, BigInteger.productOf(new ArrayList<BigInteger>()));
+		assertValue(java.math.BigInteger.ONE, BigInteger.productOf(new long[0]));
+		longs[123] = 0;
+		assertValue(java.math.BigInteger.ZERO, BigInteger.productOf(longs));
+		longs[123] = Long.MIN_VALUE;
+		assertValue(product(longs), BigInteger.productOf(longs));
+	}
+
+	@Test
+	void factorialAndBinomialMatchJavaMath() {
+		java.math.BigInteger factorial = java.math.BigInteger.ONE;
+		for (int n = 0; n <= 1200; n++) {
+			if (n > 0) {
+				factorial = factorial.multiply(java.math.BigInteger.valueOf(n));
+			}
+			if (n < 200 || n % 97 == 0) {
+				assertValue(factorial, BigInteger.factorial(n), n + "!");
+			}
+		}
+		for (int n = 0; n <= 120; n += 7) {
+			java.math.BigInteger c = java.math.BigInteger.ONE;
+			for (int k = 0; k <= n; k++) {
+				assertValue(c, BigInteger.binomial(n, k), n + " choose " + k);
+				c = c.multiply(java.math.BigInteger.valueOf(n - k)).divide(java.math.BigInteger.valueOf(k + 1));
+			}
+		}
+		assertValue(java.math.BigInteger.ZERO, BigInteger.binomial(5, -1));
+		assertValue(java.math.BigInteger.ZERO, BigInteger.binomial(5, 6));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.factorial(-1));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.binomial(-1, 0));
+	}
+
+	private static java.math.BigInteger product(long[] values) {
+		java.math.BigInteger p = java.math.BigInteger.ONE;
+		for (long v : values) {
+			p = p.multiply(java.math.BigInteger.valueOf(v));
+		}
+		return p;
+	}
+
+	private static int[] limbs(Random random, int len) {
+		int[] a = new int[len];
+		for (int i = 0; i < len; i++) {
+			a[i] = random.nextInt(8) == 0 ? 999999999 : random.nextInt(1000000000);
+		}
+		a[len - 1] = Math.max(1, a[len - 1]);
+		return a;
+	}
+}
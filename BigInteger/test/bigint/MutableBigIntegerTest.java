@@ -0,0 +1,94 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The in-place operations of MutableBigInteger against java.math.BigInteger.
+ */
+class MutableBigIntegerTest {
+
+	@Test
+	void addAndSubtractInPlace() {
+		Random random = new Random(90);
+		MutableBigInteger acc = new MutableBigInteger(1);
+		java.math.BigInteger expected = java.math.BigInteger.ZERO;
+		for (int i = 0; i < 3000; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(120));
+			if (random.nextBoolean()) {
+				acc.addInPlace(of(x));
+				expected = expected.add(x);
+			} else {
+				acc.subtractInPlace(of(x));
+				expected = expected.subtract(x);
+			}
+			assertValue(expected, acc.toBigInteger());
+			assertEquals(expected.signum() < 0, acc.negative);
+		}
+	}
+
+	@Test
+	void subtractingItselfLeavesPositiveZero() {
+		BigInteger x = BigInteger.parse("-123456789012345678901234567890");
+		MutableBigInteger acc = new MutableBigInteger();
+		acc.addInPlace(x);
+		acc.subtractInPlace(x);
+		assertEquals(0, acc.len);
+		assertEquals(false, acc.negative);
+		assertEquals(new BigInteger(), acc.toBigInteger());
+	}
+
+	@Test
+	void multiplyAddSmall() {
+		Random random = new Random(91);
+		MutableBigInteger acc = new MutableBigInteger();
+		java.math.BigInteger expected = java.math.BigInteger.ZERO;
+		for (int i = 0; i < 400; i++) {
+			int factor = random.nextInt(4) == 0 ? Limbs.BASE - 1 : random.nextInt(Limbs.BASE);
+			int addend = random.nextInt(4) == 0 ? Limbs.BASE - 1 : random.nextInt(Limbs.BASE);
+			acc.multiplyAddSmall(factor, addend);
+			expected = expected.multiply(java.math.BigInteger.valueOf(factor)).add(java.math.BigInteger.valueOf(addend));
+			assertValue(expected, acc.toBigInteger());
+		}
+		acc.multiplyAddSmall(0, 0);
+		assertEquals(0, acc.len);
+	}
+
+	@Test
+	void shiftDigitsAndLimbs() {
+		Random random = new Random(92);
+		for (int i = 0; i < 300; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(60));
+			int n = random.nextInt(50);
+			MutableBigInteger acc = new MutableBigInteger(1);
+			acc.addInPlace(of(x));
+			acc.shiftDigits(n);
+			assertValue(x.multiply(java.math.BigInteger.TEN.pow(n)), acc.toBigInteger(), x + " * 10^" + n);
+
+			acc.clear();
+			acc.addInPlace(of(x));
+			acc.shiftLimbs(n);
+			assertValue(x.multiply(java.math.BigInteger.TEN.pow(9 * n)), acc.toBigInteger(), x + " * 10^(9*" + n + ")");
+		}
+	}
+
+	@Test
+	void shiftsOfZeroStayZero() {
+		MutableBigInteger acc = new MutableBigInteger();
+		int[] buffer = acc.value;
+		acc.shiftLimbs(5);
+		acc.shiftDigits(40);
+		assertEquals(0, acc.len);
+		assertSame(buffer, acc.value);
+		acc.addInPlace(of(7));
+		acc.shiftDigits(0);
+		acc.shiftLimbs(0);
+		assertValue(java.math.BigInteger.valueOf(7), acc.toBigInteger());
+	}
+}
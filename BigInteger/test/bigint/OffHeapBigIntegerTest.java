@@ -0,0 +1,76 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.foreign.Arena;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Off-heap addition, blocked multiplication and parsing against java.math.BigInteger.
+ * The tests run with a block of a few limbs, so that every product is cut into
+ * many blocks.
+ */
+class OffHeapBigIntegerTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void addAndMultiplyMatchJavaMath() {
+		Random random = new Random(80);
+		for (int digits = 0; digits <= 1500; digits += 1 + digits / 4) {
+			java.math.BigInteger x = TestValues.randomSigned(random, digits);
+			java.math.BigInteger y = TestValues.randomSigned(random, random.nextInt(2 * digits + 1));
+			try (Arena arena = Arena.ofConfined()) {
+				OffHeapBigInteger a = OffHeapBigInteger.valueOf(of(x), arena);
+				OffHeapBigInteger b = OffHeapBigInteger.valueOf(of(y), arena);
+				assertValue(x.add(y), OffHeapBigInteger.add(a, b, arena).toBigInteger(), x + " + " + y);
+				assertValue(x.subtract(y), OffHeapBigInteger.add(a, OffHeapBigInteger.valueOf(of(y.negate()), arena),
+						arena).toBigInteger(), x + " - " + y);
+				OffHeapBigInteger product = OffHeapBigInteger.multiply(a, b, arena);
+				assertValue(x.multiply(y), product.toBigInteger(), x + " * " + y);
+				assertEquals(x.multiply(y).toString(), product.toString());
+				assertEquals(x.multiply(y).signum() == 0 ? 0 : x.multiply(y).abs().toString().length(),
+						product.digitCount());
+			}
+		}
+	}
+
+	@Test
+	void ownedArenaIsFreedOnClose() {
+		OffHeapBigInteger x = OffHeapBigInteger.valueOf(BigInteger.parse("-123456789012345678901234567890"));
+		OffHeapBigInteger square = OffHeapBigInteger.multiply(x, x);
+		x.close();
+		assertValue(new java.math.BigInteger("-123456789012345678901234567890").pow(2), square.toBigInteger());
+		square.close();
+		assertThrows(IllegalStateException.class, square::toBigInteger);
+	}
+
+	@Test
+	void parseAndWriteMatchBigInteger() throws IOException {
+		Random random = new Random(81);
+		for (int digits = 1; digits <= 20000; digits += 1 + digits / 2) {
+			String s = TestValues.randomSigned(random, digits).toString();
+			Path file = Files.writeString(dir.resolve("value.txt"), " " + s + "\n", StandardCharsets.US_ASCII);
+			try (OffHeapBigInteger x = OffHeapBigInteger.parse(file)) {
+				StringWriter out = new StringWriter();
+				x.writeTo(out);
+				assertEquals(s, out.toString());
+				assertEquals(BigInteger.parse(s), x.toBigInteger());
+			}
+		}
+		Path bad = Files.writeString(dir.resolve("bad.txt"), "12x", StandardCharsets.US_ASCII);
+		assertThrows(IllegalArgumentException.class, () -> OffHeapBigInteger.parse(bad));
+	}
+}
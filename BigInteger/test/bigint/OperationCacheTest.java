@@ -0,0 +1,150 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Value equality and hashing of BigInteger, and the OperationCache built on them.
+ */
+class OperationCacheTest {
+
+	private static void assertSameValue(BigInteger expected, BigInteger actual) {
+		assertEquals(expected, actual);
+		assertEquals(actual, expected);
+		assertEquals(expected.hashCode(), actual.hashCode(), expected.toString());
+	}
+
+	@Test
+	void equalValuesBuiltDifferentlyAreEqual() {
+		Random random = new Random(110);
+		long[] longs = {0, 1, -1, 999999999, 1000000000, Long.MAX_VALUE, Long.MIN_VALUE + 1, -1000000000000000000L};
+		for (long x : longs) {
+			BigInteger compact = BigInteger.valueOf(x);
+			assertSameValue(compact, BigInteger.parse(Long.toString(x)));
+			assertSameValue(compact, BigInteger.parse(Long.toString(x, 16), 16));
+			assertSameValue(compact, BigInteger.fromByteArray(java.math.BigInteger.valueOf(x).toByteArray()));
+			assertSameValue(compact, BigInteger.add(BigInteger.parse("123456789012345678901234567890"),
+					BigInteger.add(compact, BigInteger.parse("-123456789012345678901234567890"))));
+			assertSameValue(compact, BigInteger.divide(BigInteger.multiply(compact, of(java.math.BigInteger.TEN.pow(40))),
+					of(java.math.BigInteger.TEN.pow(40))));
+		}
+		assertSameValue(of(Long.MIN_VALUE), BigInteger.add(of(Long.MIN_VALUE + 1), of(-1)));
+		assertSameValue(of(Long.MIN_VALUE), BigInteger.multiply(of(Integer.MIN_VALUE), of(1L << 32)));
+		for (int i = 0; i < 300; i++) {
+			java.math.BigInteger x = TestValues.randomSigned(random, random.nextInt(200));
+			BigInteger parsed = of(x);
+			assertSameValue(parsed, BigInteger.parse(x.toString(7), 7));
+			assertSameValue(parsed, BigInteger.fromByteArray(x.toByteArray()));
+			ByteBuffer buffer = ByteBuffer.allocate(parsed.serializedSize());
+			parsed.writeTo(buffer);
+			assertSameValue(parsed, BigInteger.readFrom(buffer.flip()));
+			assertSameValue(parsed, BigInteger.add(BigInteger.add(parsed, of(x)), parsed.negate()));
+		}
+	}
+
+	@Test
+	void hitReturnsTheCachedInstance() {
+		OperationCache cache = new OperationCache(1 << 20, 2);
+		BigInteger a = BigInteger.parse("123456789012345678901234567890");
+		BigInteger b = BigInteger.parse("-987654321098765432109876543210");
+		BigInteger product = cache.multiply(a, b);
+		assertValue(new java.math.BigInteger(a.toString()).multiply(new java.math.BigInteger(b.toString())), product);
+		assertSame(product, cache.multiply(a, b));
+		assertSame(product, cache.multiply(BigInteger.parse(b.toString()), BigInteger.parse(a.toString())));
+		BigInteger quotient = cache.divide(b, a);
+		assertSame(quotient, cache.divide(b, a));
+		assertNotSame(quotient, cache.divide(a, b));
+		BigInteger m = BigInteger.parse("1000000000000000000000000000057");
+		BigInteger power = cache.modPow(a, of(65537), m);
+		assertSame(power, cache.modPow(a, of(65537), m));
+		assertNotSame(power, cache.modPow(a, of(65539), m));
+		assertEquals(4, cache.hitCount());
+		assertEquals(5, cache.missCount());
+		assertEquals(5, cache.size());
+	}
+
+	@Test
+	void smallOperandsSkipTheCache() {
+		OperationCache cache = new OperationCache(1 << 20, 3);
+		BigInteger small = BigInteger.parse("123456789012345678");
+		BigInteger large = BigInteger.parse("123456789012345678901234567890");
+		cache.multiply(small, large);
+		cache.multiply(small, large);
+		cache.divide(large, small);
+		cache.modPow(small, large, large);
+		assertEquals(0, cache.hitCount());
+		assertEquals(0, cache.missCount());
+		assertEquals(0, cache.size());
+		cache.multiply(large, large);
+		cache.modPow(large, of(3), large);
+		assertEquals(2, cache.missCount());
+		assertEquals(2, cache.size());
+		assertThrows(ArithmeticException.class, () -> cache.divide(large, new BigInteger()));
+		assertThrows(IllegalArgumentException.class, () -> new OperationCache(-1, 0));
+		assertThrows(IllegalArgumentException.class, () -> new OperationCache(0, -1));
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreEvictedByWeight() {
+		//two limb operands with a four limb product weigh 8 limbs each
+		BigInteger[] x = new BigInteger[4];
+		for (int i = 0; i < x.length; i++) {
+			x[i] = BigInteger.parse("99999999999999999" + i);
+		}
+		OperationCache cache = new OperationCache(24, 2);
+		BigInteger p0 = cache.multiply(x[0], x[0]);
+		BigInteger p1 = cache.multiply(x[1], x[1]);
+		BigInteger p2 = cache.multiply(x[2], x[2]);
+		assertEquals(24, cache.weight());
+		assertEquals(0, cache.evictionCount());
+
+		//touch p0, so p1 is now the least recently used
+		assertSame(p0, cache.multiply(x[0], x[0]));
+		cache.multiply(x[3], x[3]);
+		assertEquals(1, cache.evictionCount());
+		assertEquals(3, cache.size());
+		assertEquals(24, cache.weight());
+		assertSame(p0, cache.multiply(x[0], x[0]));
+		assertSame(p2, cache.multiply(x[2], x[2]));
+		assertNotSame(p1, cache.multiply(x[1], x[1]));
+		assertEquals(2, cache.evictionCount());
+
+		//an entry heavier than the whole cache is not kept and evicts nothing
+		BigInteger big = BigInteger.parse("9".repeat(200));
+		cache.multiply(big, big);
+		assertEquals(2, cache.evictionCount());
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	void countersAndClear() {
+		OperationCache cache = new OperationCache(1 << 20, 0);
+		assertEquals(0, cache.hitRate());
+		BigInteger a = of(123456789);
+		for (int i = 0; i < 4; i++) {
+			cache.multiply(a, of(i));
+		}
+		for (int i = 0; i < 4; i++) {
+			cache.multiply(of(i), a);
+		}
+		assertEquals(4, cache.hitCount());
+		assertEquals(4, cache.missCount());
+		assertEquals(0.5, cache.hitRate());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.weight());
+		assertEquals(4, cache.hitCount());
+		cache.multiply(a, of(1));
+		assertEquals(5, cache.missCount());
+		assertEquals("OperationCache[size=1, weight=3/1048576, hits=4, misses=5, evictions=0]", cache.toString());
+	}
+}
@@ -0,0 +1,110 @@
+package bigint;
+
+import static bigint.TestValues.assertValue;
+import static bigint.TestValues.of;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Conversions to and from decimal, other radices and two's complement bytes,
+ * against java.math.BigInteger.
+ */
+class RadixConversionTest {
+
+	@Test
+	void decimalRoundTrip() throws IOException {
+		Random random = new Random(40);
+		for (int digits = 0; digits <= 5000; digits += 1 + digits / 6) {
+			java.math.BigInteger x = TestValues.randomSigned(random, digits);
+			BigInteger a = BigInteger.parse(x.toString());
+			assertEquals(x.toString(), a.toString());
+			assertEquals(x.toString(), a.toString(10));
+			StringWriter writer = new StringWriter();
+			a.writeTo(writer);
+			assertEquals(x.toString(), writer.toString());
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			a.writeTo(bytes);
+			assertEquals(x.toString(), bytes.toString(StandardCharsets.US_ASCII));
+		}
+	}
+
+	@Test
+	void everyRadixMatchesJavaMath() {
+		Random random = new Random(41);
+		for (int radix = Character.MIN_RADIX; radix <= Character.MAX_RADIX; radix++) {
+			for (int digits = 0; digits <= 2500; digits += 1 + digits / 3) {
+				java.math.BigInteger x = TestValues.randomSigned(random, digits);
+				String expected = x.toString(radix);
+				assertEquals(expected, of(x).toString(radix), "radix " + radix);
+				assertValue(x, BigInteger.parse(expected, radix), "radix " + radix);
+				assertValue(x, BigInteger.parse(expected.toUpperCase(), radix), "radix " + radix);
+			}
+		}
+	}
+
+	@Test
+	void powersOfTheRadix() {
+		for (int radix : new int[] {2, 8, 10, 16, 36}) {
+			java.math.BigInteger r = java.math.BigInteger.valueOf(radix);
+			for (int n = 0; n <= 1500; n += 1 + n / 5) {
+				java.math.BigInteger power = r.pow(n);
+				for (java.math.BigInteger x : new java.math.BigInteger[] {power, power.subtract(java.math.BigInteger.ONE),
+						power.negate()}) {
+					assertEquals(x.toString(radix), of(x).toString(radix));
+					assertValue(x, BigInteger.parse(x.toString(radix), radix));
+				}
+			}
+		}
+	}
+
+	@Test
+	void parseRejectsDigitsOutsideTheRadix() {
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse("102", 2));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse("1".repeat(100) + "2", 2));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse("f".repeat(100) + "g", 16));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse("z".repeat(40) + "!", 36));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse("-", 16));
+		assertThrows(IllegalArgumentException.class, () -> of(1).toString(1));
+		assertThrows(IllegalArgumentException.class, () -> of(1).toString(37));
+		assertEquals("0", new BigInteger().toString(2));
+		assertEquals("-zz", BigInteger.parse("-ZZ", 36).toString(36));
+	}
+
+	@Test
+	void byteArraysMatchJavaMath() {
+		Random random = new Random(42);
+		for (int digits = 0; digits <= 3000; digits += 1 + digits / 5) {
+			for (int i = 0; i < 4; i++) {
+				java.math.BigInteger x = TestValues.randomSigned(random, digits);
+				assertArrayEquals(x.toByteArray(), of(x).toByteArray(), x.toString());
+				assertValue(x, BigInteger.fromByteArray(x.toByteArray()));
+			}
+		}
+		//sign boundaries: -2^n and 2^n - 1 need one byte less than their neighbours
+		for (int n = 0; n <= 600; n++) {
+			java.math.BigInteger power = java.math.BigInteger.ONE.shiftLeft(n);
+			for (java.math.BigInteger x : new java.math.BigInteger[] {power, power.negate(),
+					power.subtract(java.math.BigInteger.ONE), power.negate().subtract(java.math.BigInteger.ONE)}) {
+				assertArrayEquals(x.toByteArray(), of(x).toByteArray(), x.toString());
+				assertValue(x, BigInteger.fromByteArray(x.toByteArray()));
+			}
+		}
+	}
+
+	@Test
+	void fromByteArrayAcceptsRedundantSignBytes() {
+		assertValue(java.math.BigInteger.valueOf(-1), BigInteger.fromByteArray(new byte[] {-1, -1, -1, -1, -1}));
+		assertValue(java.math.BigInteger.ONE, BigInteger.fromByteArray(new byte[] {0, 0, 0, 0, 0, 0, 0, 1}));
+		assertValue(java.math.BigInteger.ZERO, BigInteger.fromByteArray(new byte[] {0, 0, 0}));
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.fromByteArray(new byte[0]));
+	}
+}
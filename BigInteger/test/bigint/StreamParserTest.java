@@ -0,0 +1,74 @@
+package bigint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Parsing from a Reader, an InputStream and a file, which must accept and reject
+ * exactly the strings parse(String) does.
+ */
+class StreamParserTest {
+
+	@TempDir
+	Path dir;
+
+	private void check(String s) throws IOException {
+		String expected = BigInteger.parse(s).toString();
+		assertEquals(expected, BigInteger.parse(new StringReader(s)).toString(), "reader");
+		assertEquals(expected, BigInteger.parse(new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII)))
+				.toString(), "stream");
+		Path file = Files.writeString(dir.resolve("value.txt"), s, StandardCharsets.US_ASCII);
+		assertEquals(expected, BigInteger.parse(file).toString(), "file");
+	}
+
+	private void checkRejected(String s) throws IOException {
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse(s), "string");
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse(new StringReader(s)), "reader");
+		assertThrows(IllegalArgumentException.class,
+				() -> BigInteger.parse(new ByteArrayInputStream(s.getBytes(StandardCharsets.US_ASCII))), "stream");
+		Path file = Files.writeString(dir.resolve("value.txt"), s, StandardCharsets.US_ASCII);
+		assertThrows(IllegalArgumentException.class, () -> BigInteger.parse(file), "file");
+	}
+
+	@Test
+	void matchesParseString() throws IOException {
+		Random random = new Random(70);
+		//past the 8192 character read buffer, and every group length
+		for (int digits = 1; digits <= 30000; digits += 1 + digits / 3) {
+			java.math.BigInteger x = TestValues.randomSigned(random, digits);
+			check(x.toString());
+			check(x.toString() + "\n");
+			check("  \t" + x.toString() + " \r\n");
+			check((x.signum() < 0 ? "-" : "+") + "0".repeat(random.nextInt(20)) + x.abs().toString());
+		}
+	}
+
+	@Test
+	void zeroAndSmallValues() throws IOException {
+		for (String s : new String[] {"0", "-0", "+0", "000000000000000000000", "-0000000000000000000000000",
+				"1", "-1", "999999999", "1000000000", "-1000000000", "000000001000000000"}) {
+			check(s);
+		}
+		check("9".repeat(9000));
+		check("-1" + "0".repeat(8999));
+	}
+
+	@Test
+	void rejectsWhatParseStringRejects() throws IOException {
+		for (String s : new String[] {"", "   ", "+", "-", "- 1", "12 345", "1-2", "--1", "12a", "0x10",
+				"1" + "0".repeat(9000) + " 1", "9".repeat(8191) + "x"}) {
+			checkRejected(s);
+		}
+	}
+}
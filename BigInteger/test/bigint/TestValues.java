@@ -0,0 +1,67 @@
+package bigint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+/**
+ * Random operands and comparisons against java.math.BigInteger, shared by the
+ * differential tests.
+ *
+ * The tests run with tiny tier thresholds (see the surefire configuration in the
+ * pom), so operands of a few dozen limbs already go through Karatsuba, Toom-Cook,
+ * the NTT and Burnikel-Ziegler division.
+ */
+final class TestValues {
+
+	private TestValues() {
+	}
+
+	/**
+	 * Returns a random non-negative integer of up to the given number of decimal
+	 * digits, sometimes made of long runs of 9s and 0s, which stress carries and
+	 * borrows.
+	 */
+	static java.math.BigInteger random(Random random, int digits) {
+		if (digits == 0) {
+			return java.math.BigInteger.ZERO;
+		}
+		char[] c = new char[digits];
+		int shape = random.nextInt(4);
+		for (int i = 0; i < digits; i++) {
+			c[i] = shape == 0 ? '9' : shape == 1 && i > 0 ? '0' : (char) ('0' + random.nextInt(10));
+		}
+		if (shape == 1) {
+			c[0] = '1';
+		}
+		return new java.math.BigInteger(new String(c));
+	}
+
+	/**
+	 * Returns a random integer of up to the given number of decimal digits, negative
+	 * half of the time.
+	 */
+	static java.math.BigInteger randomSigned(Random random, int digits) {
+		java.math.BigInteger x = random(random, digits);
+		return random.nextBoolean() ? x.negate() : x;
+	}
+
+	static BigInteger of(java.math.BigInteger x) {
+		return BigInteger.parse(x.toString());
+	}
+
+	static BigInteger of(long x) {
+		return BigInteger.valueOf(x);
+	}
+
+	/**
+	 * Asserts that a BigInteger has the value of a java.math.BigInteger.
+	 */
+	static void assertValue(java.math.BigInteger expected, BigInteger actual) {
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	static void assertValue(java.math.BigInteger expected, BigInteger actual, String message) {
+		assertEquals(expected.toString(), actual.toString(), message);
+	}
+}
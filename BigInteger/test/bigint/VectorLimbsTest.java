@@ -0,0 +1,130 @@
+package bigint;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The SIMD loops of VectorLimbs against the scalar loops they replace, at every
+ * length around the vector width and with long carry and borrow chains.
+ */
+class VectorLimbsTest {
+
+	@BeforeAll
+	static void needsVectorModule() {
+		assumeTrue(Limbs.VECTOR, "jdk.incubator.vector is not in the boot layer");
+	}
+
+	@Test
+	void addMatchesScalarLoop() {
+		Random random = new Random(50);
+		for (int alen = 1; alen <= 100; alen++) {
+			for (int blen = 1; blen <= alen; blen += 1 + blen / 4) {
+				for (int shape = 0; shape < 4; shape++) {
+					int[] a = limbs(random, alen, shape);
+					int[] b = limbs(random, blen, shape);
+					assertArrayEquals(scalarAdd(a, b), VectorLimbs.add(a, alen, b, blen), alen + " + " + blen);
+					assertArrayEquals(scalarAdd(a, b), VectorLimbs.add(b, blen, a, alen), blen + " + " + alen);
+				}
+			}
+		}
+	}
+
+	@Test
+	void subtractMatchesScalarLoop() {
+		Random random = new Random(51);
+		for (int alen = 1; alen <= 100; alen++) {
+			for (int blen = 1; blen <= alen; blen += 1 + blen / 4) {
+				for (int shape = 0; shape < 4; shape++) {
+					int[] a = limbs(random, alen, shape);
+					int[] b = limbs(random, blen, (shape + 1) % 4);
+					if (Limbs.compare(a, alen, b, blen) < 0) {
+						continue;
+					}
+					assertArrayEquals(scalarSubtract(a, b), VectorLimbs.subtract(a, alen, b, blen),
+							alen + " - " + blen);
+				}
+			}
+		}
+		//1000...0 - 1 borrows through every limb
+		for (int len = 1; len <= 70; len++) {
+			int[] a = new int[len];
+			a[len - 1] = 1;
+			int[] one = {1};
+			assertArrayEquals(scalarSubtract(a, one), VectorLimbs.subtract(a, len, one, 1));
+		}
+	}
+
+	@Test
+	void multiplySmallMatchesScalarLoop() {
+		Random random = new Random(52);
+		int[] factors = {0, 1, 2, 10, 999999999, 123456789, 1 << 29};
+		for (int alen = 1; alen <= 100; alen++) {
+			for (int shape = 0; shape < 4; shape++) {
+				int[] a = limbs(random, alen, shape);
+				for (int factor : factors) {
+					assertArrayEquals(scalarMultiplySmall(a, factor), VectorLimbs.multiplySmall(a, alen, factor),
+							alen + " limbs * " + factor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns random limbs (shape 0), all 999999999 (shape 1), all zero but the top
+	 * (shape 2), or alternating extremes (shape 3).
+	 */
+	private static int[] limbs(Random random, int len, int shape) {
+		int[] a = new int[len];
+		for (int i = 0; i < len; i++) {
+			a[i] = shape == 0 ? random.nextInt(Limbs.BASE)
+					: shape == 1 ? Limbs.BASE - 1
+					: shape == 2 ? 0
+					: i % 2 == 0 ? Limbs.BASE - 1 : 0;
+		}
+		a[len - 1] = Math.max(a[len - 1], 1);
+		return a;
+	}
+
+	private static int[] scalarAdd(int[] a, int[] b) {
+		if (a.length < b.length) {
+			int[] t = a; a = b; b = t;
+		}
+		int[] sum = Arrays.copyOf(a, a.length + 1);
+		int carry = 0;
+		for (int i = 0; i <= a.length; i++) {
+			int s = sum[i] + (i < b.length ? b[i] : 0) + carry;
+			carry = s >= Limbs.BASE ? 1 : 0;
+			sum[i] = s - carry * Limbs.BASE;
+		}
+		return sum;
+	}
+
+	private static int[] scalarSubtract(int[] a, int[] b) {
+		int[] diff = a.clone();
+		int borrow = 0;
+		for (int i = 0; i < a.length; i++) {
+			int d = diff[i] - (i < b.length ? b[i] : 0) - borrow;
+			borrow = d < 0 ? 1 : 0;
+			diff[i] = d + borrow * Limbs.BASE;
+		}
+		return diff;
+	}
+
+	private static int[] scalarMultiplySmall(int[] a, int factor) {
+		int[] product = new int[a.length + 1];
+		long carry = 0;
+		for (int i = 0; i < a.length; i++) {
+			long t = (long) a[i] * factor + carry;
+			carry = t / Limbs.BASE;
+			product[i] = (int) (t - carry * Limbs.BASE);
+		}
+		product[a.length] = (int) carry;
+		return product;
+	}
+}